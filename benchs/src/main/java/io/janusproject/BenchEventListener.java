@@ -0,0 +1,47 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject;
+
+import io.janusproject.benchmarking.BenchEvent;
+
+import java.util.EventListener;
+
+/** Listener on the events that are sent by the forked benchs.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ * @see ForkScheduler#addBenchEventListener(BenchEventListener)
+ */
+interface BenchEventListener extends EventListener {
+
+	/** Invoked when a forked bench has sent an event.
+	 * This function is invoked by the thread that reads the events of the fork.
+	 * 
+	 * @param scheduler is the scheduler that has launched the fork, and
+	 * that may be {@link ForkScheduler#abort() aborted}.
+	 * @param fork is the index of the fork.
+	 * @param event is the event.
+	 */
+	void benchEvent(ForkScheduler scheduler, int fork, BenchEvent event);
+
+}
\ No newline at end of file
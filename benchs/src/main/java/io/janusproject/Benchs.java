@@ -24,13 +24,31 @@ import io.janusproject.benchmarking.BenchConstants;
 import io.janusproject.benchmarking.BenchLauncher;
 import io.janusproject.benchmarking.PropertyBench;
 import io.janusproject.benchmarking.jei.JanusExperienceIndex;
+import io.janusproject.benchmarking.jei.JanusExperienceIndex.JEI;
+import io.janusproject.network.zeromq.CodecBench;
+import io.janusproject.network.zeromq.GsonAesLocalhostContentionBench;
+import io.janusproject.network.zeromq.GsonAesLocalhostFanoutBench;
 import io.janusproject.network.zeromq.GsonAesLocalhostMonodirBench;
+import io.janusproject.network.zeromq.GsonAesLocalhostPayloadBench;
+import io.janusproject.network.zeromq.GsonAesLoopbackBench;
 import io.janusproject.network.zeromq.GsonAesRemotehostBench;
+import io.janusproject.network.zeromq.GsonPlainLocalhostContentionBench;
+import io.janusproject.network.zeromq.GsonPlainLocalhostFanoutBench;
 import io.janusproject.network.zeromq.GsonPlainLocalhostMonodirBench;
+import io.janusproject.network.zeromq.GsonPlainLocalhostPayloadBench;
+import io.janusproject.network.zeromq.GsonPlainLoopbackBench;
 import io.janusproject.network.zeromq.GsonPlainRemotehostBench;
+import io.janusproject.network.zeromq.JavaAesLocalhostContentionBench;
+import io.janusproject.network.zeromq.JavaAesLocalhostFanoutBench;
 import io.janusproject.network.zeromq.JavaAesLocalhostMonodirBench;
+import io.janusproject.network.zeromq.JavaAesLocalhostPayloadBench;
+import io.janusproject.network.zeromq.JavaAesLoopbackBench;
 import io.janusproject.network.zeromq.JavaAesRemotehostBench;
+import io.janusproject.network.zeromq.JavaPlainLocalhostContentionBench;
+import io.janusproject.network.zeromq.JavaPlainLocalhostFanoutBench;
 import io.janusproject.network.zeromq.JavaPlainLocalhostMonodirBench;
+import io.janusproject.network.zeromq.JavaPlainLocalhostPayloadBench;
+import io.janusproject.network.zeromq.JavaPlainLoopbackBench;
 import io.janusproject.network.zeromq.JavaPlainRemotehostBench;
 
 import java.awt.BorderLayout;
@@ -40,18 +58,16 @@ import java.awt.Window;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
-import java.io.PrintStream;
 import java.lang.annotation.Annotation;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Map.Entry;
 import java.util.Properties;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.swing.DefaultListCellRenderer;
@@ -80,13 +96,12 @@ import org.arakhne.afc.vmutil.locale.Locale;
 @SuppressWarnings("unchecked")
 public class Benchs {
 
-	/**
-	 * @param args
-	 * @throws Exception
+	/** Replies the bench classes that may be run.
+	 * 
+	 * @return the bench classes.
 	 */
-	public static void main(String[] args) throws Exception {
-		VMCommandLine.saveVMParametersIfNotSet(BenchLauncher.class, args);
-		run(
+	static List<Class<? extends Bench<?>>> getBenchTypes() {
+		return Arrays.<Class<? extends Bench<?>>>asList(
 				//
 				// ZeroMQ
 				//
@@ -94,15 +109,41 @@ public class Benchs {
 				JavaAesLocalhostMonodirBench.class,
 				GsonPlainLocalhostMonodirBench.class,
 				GsonAesLocalhostMonodirBench.class,
+				JavaPlainLocalhostPayloadBench.class,
+				JavaAesLocalhostPayloadBench.class,
+				GsonPlainLocalhostPayloadBench.class,
+				GsonAesLocalhostPayloadBench.class,
+				JavaPlainLocalhostContentionBench.class,
+				JavaAesLocalhostContentionBench.class,
+				GsonPlainLocalhostContentionBench.class,
+				GsonAesLocalhostContentionBench.class,
+				JavaPlainLocalhostFanoutBench.class,
+				JavaAesLocalhostFanoutBench.class,
+				GsonPlainLocalhostFanoutBench.class,
+				GsonAesLocalhostFanoutBench.class,
+				JavaPlainLoopbackBench.class,
+				JavaAesLoopbackBench.class,
+				GsonPlainLoopbackBench.class,
+				GsonAesLoopbackBench.class,
+				CodecBench.class,
 				JavaPlainRemotehostBench.class,
 				JavaAesRemotehostBench.class,
 				GsonPlainRemotehostBench.class,
 				GsonAesRemotehostBench.class
 				);
+	}
+
+	/**
+	 * @param args
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		VMCommandLine.saveVMParametersIfNotSet(BenchLauncher.class, args);
+		run(getBenchTypes());
 		System.exit(0);
 	}
 
-	private static List<Class<? extends Bench<?>>> selectBenchs(Class<? extends Bench<?>>... benchs) {
+	private static List<Class<? extends Bench<?>>> selectBenchs(List<Class<? extends Bench<?>>> benchs) {
 		List<Class<? extends Bench<?>>> benchsToRun = new ArrayList<>();
 		SelectionGUI gui = new SelectionGUI(benchs);
 		gui.setVisible(true);
@@ -116,7 +157,7 @@ public class Benchs {
 		return benchsToRun;
 	}
 
-	private static void run(Class<? extends Bench<?>>... benchs) throws Exception {
+	private static void run(List<Class<? extends Bench<?>>> benchs) throws Exception {
 		List<Class<? extends Bench<?>>> benchsToRun = selectBenchs(benchs);
 		if (benchsToRun==null) {
 			JanusExperienceIndex.main(new String[0]);
@@ -124,47 +165,18 @@ public class Benchs {
 		else if (!benchsToRun.isEmpty()) {
 			// Enter additional parameters
 			Properties properties = new Properties();
-			for(Class<?> benchType : benchsToRun) {
-				while (benchType!=null && !Object.class.equals(benchType)) {
-					for(Annotation a : benchType.getDeclaredAnnotations()) {
-						if (PropertyBench.class.isAssignableFrom(a.annotationType())) {
-							for(String name : ((PropertyBench)a).names()) {
-								if (!properties.containsKey(name)) {
-									TextInputGUI g = new TextInputGUI(name);
-									g.setVisible(true);
-									String value = g.getValue();
-									if (value==null) {
-										return; // exit from the main
-									}
-									properties.setProperty(name, value);
-									g.dispose();
-								}
-							}
-							break;
-						}
-					}
-					benchType = benchType.getSuperclass();
+			for(String name : getBenchPropertyNames(benchsToRun)) {
+				TextInputGUI g = new TextInputGUI(name);
+				g.setVisible(true);
+				String value = g.getValue();
+				if (value==null) {
+					return; // exit from the main
 				}
+				properties.setProperty(name, value);
+				g.dispose();
 			}
 			
-			// Create the temp directory
-			String tmpDir;
-			tmpDir = System.getenv("TEMP"); //$NON-NLS-1$
-			if (tmpDir==null || "".equals(tmpDir)) { //$NON-NLS-1$
-				tmpDir = System.getenv("TMP"); //$NON-NLS-1$
-			}
-			if (tmpDir==null || "".equals(tmpDir)) { //$NON-NLS-1$
-				tmpDir = System.getProperty("java.io.tmpdir"); //$NON-NLS-1$
-			}
-			File output;
-			if (tmpDir==null || "".equals(tmpDir)) { //$NON-NLS-1$
-				output = null;
-			}
-			else {
-				output = new File(tmpDir);
-			}
-
-			output = new File(output, "janusBenchmarks"); //$NON-NLS-1$
+			File output = getDefaultOutputDirectory();
 
 			JFileChooser fileChooser = new JFileChooser(output);
 			fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
@@ -175,37 +187,109 @@ public class Benchs {
 				return; // exit from the main
 			}
 			
-			SimpleDateFormat fmt = new SimpleDateFormat("yyyyMMdd-HHmmss"); //$NON-NLS-1$
-			output = new File(output, fmt.format(new Date()));
-			System.out.println(output.getAbsolutePath());
-			output.mkdirs();
-
-			boolean isAssertEnabled = false;
-			assert((isAssertEnabled = true)==true);
-			ExecutorService serv = null;
-			if (!isAssertEnabled)
-				serv = Executors.newFixedThreadPool(2);
-			
+			ForkScheduler scheduler = new ForkScheduler(createRunDirectory(output), properties);
+			scheduler.setFromSystemProperties();
+			launch(benchsToRun, scheduler);
+		}
+	}
+
+	/** Replies the names of the system properties that are needed by the given benchs.
+	 * 
+	 * @param benchs are the bench classes.
+	 * @return the names of the properties, in the order of the benchs.
+	 * @see PropertyBench
+	 */
+	static Set<String> getBenchPropertyNames(Collection<Class<? extends Bench<?>>> benchs) {
+		Set<String> names = new LinkedHashSet<>();
+		for(Class<?> benchType : benchs) {
+			while (benchType!=null && !Object.class.equals(benchType)) {
+				for(Annotation a : benchType.getDeclaredAnnotations()) {
+					if (PropertyBench.class.isAssignableFrom(a.annotationType())) {
+						names.addAll(Arrays.asList(((PropertyBench)a).names()));
+						break;
+					}
+				}
+				benchType = benchType.getSuperclass();
+			}
+		}
+		return names;
+	}
+
+	/** Replies the directory in which the results are written by default.
+	 * 
+	 * @return the directory.
+	 */
+	static File getDefaultOutputDirectory() {
+		String tmpDir;
+		tmpDir = System.getenv("TEMP"); //$NON-NLS-1$
+		if (tmpDir==null || "".equals(tmpDir)) { //$NON-NLS-1$
+			tmpDir = System.getenv("TMP"); //$NON-NLS-1$
+		}
+		if (tmpDir==null || "".equals(tmpDir)) { //$NON-NLS-1$
+			tmpDir = System.getProperty("java.io.tmpdir"); //$NON-NLS-1$
+		}
+		File output;
+		if (tmpDir==null || "".equals(tmpDir)) { //$NON-NLS-1$
+			output = null;
+		}
+		else {
+			output = new File(tmpDir);
+		}
+		return new File(output, "janusBenchmarks"); //$NON-NLS-1$
+	}
+
+	/** Create the directory in which the results of a launch are written.
+	 * 
+	 * @param output is the directory that contains the results of all the launches.
+	 * @return the directory of the launch, named from the current date.
+	 */
+	static File createRunDirectory(File output) {
+		SimpleDateFormat fmt = new SimpleDateFormat("yyyyMMdd-HHmmss"); //$NON-NLS-1$
+		File directory = new File(output, fmt.format(new Date()));
+		System.out.println(directory.getAbsolutePath());
+		directory.mkdirs();
+		return directory;
+	}
+
+	/** Run the given benchs in forked virtual machines, or in the current
+	 * virtual machine when the assertions are enabled.
+	 * 
+	 * @param benchsToRun are the bench classes to run.
+	 * @param scheduler is the scheduler of the forks.
+	 * @throws Exception
+	 */
+	static void launch(List<Class<? extends Bench<?>>> benchsToRun, ForkScheduler scheduler) throws Exception {
+		File output = scheduler.getOutput();
+		if (Boolean.getBoolean(BenchConstants.JEI_PROPERTY) && scheduler.getBenchProperties()!=null) {
+			// The JEI is computed once, and given to the benchs for being written in the results
+			JEI jei = JanusExperienceIndex.janusExperienceIndex();
+			Properties properties = scheduler.getBenchProperties();
+			properties.setProperty(BenchConstants.JEI_BASE_SCORE_PROPERTY, Float.toString(jei.getBaseScore()));
+			properties.setProperty(BenchConstants.JEI_CPU_SCORE_PROPERTY, Float.toString(jei.getCpuScore()));
+			properties.setProperty(BenchConstants.JEI_MEMORY_SCORE_PROPERTY, Float.toString(jei.getMemoryScore()));
+			properties.setProperty(BenchConstants.JEI_DISK_SCORE_PROPERTY, Float.toString(jei.getDiskScore()));
+		}
+		boolean isAssertEnabled = false;
+		assert((isAssertEnabled = true)==true);
+		
+		// Ensure that most of the unused objects are removed from memory
+		System.gc();
+		System.gc();
+		System.gc();
+		
+		if (isAssertEnabled) {
 			float percentagePerBench = 100f / benchsToRun.size();
 			float progression = 0f;
-			
-			// Ensure that most of the unused objects are removed from memory
-			System.gc();
-			System.gc();
-			System.gc();
-						
 			for(Class<? extends Bench<?>> benchType : benchsToRun) {
-				if (isAssertEnabled) {
-					launchForDebug(output, benchType, properties, progression, percentagePerBench);
-				}
-				else {
-					launchInSubProcess(output, benchType, serv, properties, progression, percentagePerBench);
-				}
+				launchForDebug(output, benchType, scheduler.getBenchProperties(), progression, percentagePerBench);
 				progression += percentagePerBench;
 			}
-
-			System.out.println(output.getAbsolutePath());
 		}
+		else {
+			scheduler.run(benchsToRun);
+		}
+
+		System.out.println(output.getAbsolutePath());
 	}
 	
 	private static void launchForDebug(File output, Class<? extends Bench<?>> benchType, Properties benchProperties, float progression, float percentage) throws Exception {
@@ -221,100 +305,6 @@ public class Benchs {
 				});
 	}
 	
-	private static void launchInSubProcess(File output, Class<? extends Bench<?>> benchType, ExecutorService service, Properties benchProperties, float progression, float progressionWindow) throws Exception {
-		Process process = null;
-		try {
-			List<String> cmd = new ArrayList<>();
-			cmd.add(VMCommandLine.getVMBinary());
-			if (benchProperties!=null) {
-				for(Entry<Object,Object> entry : benchProperties.entrySet()) {
-					cmd.add("-D"+entry.getKey()+"="+entry.getValue()); //$NON-NLS-1$ //$NON-NLS-2$
-				}
-			}
-			cmd.add("-Xmx"+BenchConstants.MAX_MEMORY+"m"); //$NON-NLS-1$ //$NON-NLS-2$
-			cmd.add("-classpath"); //$NON-NLS-1$
-			cmd.add(System.getProperty("java.class.path")); //$NON-NLS-1$
-			cmd.add(BenchLauncher.class.getCanonicalName());
-			cmd.add(output.getAbsolutePath());
-			cmd.add(Float.toString(progression));
-			cmd.add(Float.toString(progressionWindow));
-			cmd.add(benchType.getCanonicalName());
-			for(int i=0; i<cmd.size(); ++i) {
-				if (i>0) System.out.print(' ');
-				System.out.print(cmd.get(i));
-			}
-			System.out.print("\n"); //$NON-NLS-1$
-			String[] array = new String[cmd.size()];
-			cmd.toArray(array);
-			cmd.clear();
-			cmd = null;
-			System.gc();
-			System.gc();
-			System.gc();
-			process = Runtime.getRuntime().exec(
-					array,
-					null,
-					null);
-			OutputRunner r1 = new OutputRunner(process.getInputStream(), System.out);
-			OutputRunner r2 = new OutputRunner(process.getErrorStream(), System.err);
-			service.submit(r1);
-			service.submit(r2);
-			process.waitFor();
-			r1.stop();
-			r2.stop();
-			process = null;
-		}
-		catch(Throwable e) {
-			System.err.println(Locale.getString(Benchs.class, "KILLING")); //$NON-NLS-1$
-			e.printStackTrace();
-			if (process!=null) {
-				process.destroy();
-			}
-		}
-	}
-	
-	private static class OutputRunner implements Runnable {
-	
-		private volatile boolean stop = false; 
-		private final PrintStream os;
-		private final InputStream is;
-		
-		public OutputRunner(InputStream is, PrintStream os) {
-			this.is = is;
-			this.os = os;
-		}
-		
-		/**
-		 * {@inheritDoc}
-		 */
-		@Override
-		public void run() {
-			try {
-				String s;
-				byte[] buffer = new byte[2048];
-				Thread.yield();
-				int nb = this.is.read(buffer);
-				while (nb>0 && !this.stop) {
-					s = new String(buffer, 0, nb);
-					this.os.print(s);
-					Thread.yield();
-					nb = this.is.read(buffer);
-				}
-				this.is.close();
-			}
-			catch(IOException _) {
-				//
-			}
-		}
-		
-		/** Stop the process.
-		 */
-		public void stop() {
-			this.stop = true;
-		}
-		
-	}
-	
 	private static class TextInputGUI extends JDialog implements ActionListener {
 		
 		private static final long serialVersionUID = -4124681578914766500L;
@@ -398,7 +388,7 @@ public class Benchs {
 		/**
 		 * @param benchs
 		 */
-		public SelectionGUI(Class<? extends Bench<?>>... benchs) {
+		public SelectionGUI(List<Class<? extends Bench<?>>> benchs) {
 			super((Window)null, Locale.getString(Benchs.class, "SELECT_BENCHS")); //$NON-NLS-1$
 			setPreferredSize(new Dimension(600, 600));
 			setLayout(new BorderLayout());
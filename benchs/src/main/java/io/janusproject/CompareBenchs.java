@@ -0,0 +1,291 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject;
+
+import io.janusproject.ResultSet.Measures;
+import io.janusproject.benchmarking.Statistics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.arakhne.afc.vmutil.locale.Locale;
+
+/** Compare the results of several launches of the benchs.
+ * <p>
+ * The first directory is the baseline; the results of each other directory
+ * are compared to the baseline, run by run. The runs are aligned by the
+ * bench class, the bench function and the name of the run, i.e. the point
+ * of the parameters. See {@link ResultSet} for the measures that are compared.
+ * <p>
+ * For the latencies and the throughputs, the tool reports the medians, the
+ * relative change of the median with its bootstrap confidence interval, and
+ * the p-value of the Mann-Whitney U test. A change is significant when the
+ * p-value is lower than the threshold, the confidence interval does not
+ * contain zero, and the change is greater than the minimal change. The
+ * significant increases of the latencies and decreases of the throughputs
+ * are regressions; the virtual machine exits with the code {@value #REGRESSION_EXIT_CODE}
+ * when a regression is found.
+ * <p>
+ * Command line: <code>[OPTIONS] baseline candidate...</code>
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public class CompareBenchs {
+
+	/** Exit code of the virtual machine when a regression is found.
+	 */
+	public static final int REGRESSION_EXIT_CODE = 2;
+
+	private static final double DEFAULT_ALPHA = .05;
+	private static final double DEFAULT_MIN_CHANGE = 5.;
+	private static final int DEFAULT_RESAMPLES = 1000;
+	private static final long SEED = 4578L;
+
+	private final PrintStream output;
+	private final double alpha;
+	private final double minChange;
+	private final int resamples;
+	private final Random random = new Random(SEED);
+	private int comparisons = 0;
+	private int regressions = 0;
+
+	/**
+	 * @param output is the stream on which the comparisons are written.
+	 * @param alpha is the threshold of the p-values.
+	 * @param minChange is the minimal relative change, in percent.
+	 * @param resamples is the number of bootstrap resamples.
+	 */
+	public CompareBenchs(PrintStream output, double alpha, double minChange, int resamples) {
+		this.output = output;
+		this.alpha = alpha;
+		this.minChange = minChange;
+		this.resamples = resamples;
+	}
+
+	/**
+	 * @param args
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		CommandLineParser parser = new BasicParser();
+
+		Options options = new Options();
+		options.addOption("h", "help", false, "Help"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("o", "output", true, "File in which the comparisons are written"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("a", "alpha", true, "Threshold of the p-values (default: 0.05)"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("m", "min-change", true, "Minimal change of the medians, in percent (default: 5)"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("n", "resamples", true, "Number of bootstrap resamples (default: 1000)"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+
+		CommandLine cmd;
+		try {
+			cmd = parser.parse(options, args);
+		}
+		catch(ParseException e) {
+			System.err.println(e.getLocalizedMessage());
+			printHelp(options);
+			System.exit(1);
+			return;
+		}
+
+		if (cmd.hasOption('h') || cmd.getArgs().length<2) {
+			printHelp(options);
+			System.exit(cmd.hasOption('h') ? 0 : 1);
+			return;
+		}
+
+		double alpha;
+		double minChange;
+		int resamples;
+		try {
+			alpha = Double.parseDouble(cmd.getOptionValue('a', Double.toString(DEFAULT_ALPHA)));
+			minChange = Double.parseDouble(cmd.getOptionValue('m', Double.toString(DEFAULT_MIN_CHANGE)));
+			resamples = Integer.parseInt(cmd.getOptionValue('n', Integer.toString(DEFAULT_RESAMPLES)));
+		}
+		catch(NumberFormatException e) {
+			System.err.println(Locale.getString(CompareBenchs.class, "INVALID_NUMBER", e.getLocalizedMessage())); //$NON-NLS-1$
+			System.exit(1);
+			return;
+		}
+
+		ResultSet[] results = new ResultSet[cmd.getArgs().length];
+		for(int i=0; i<results.length; ++i) {
+			File directory = new File(cmd.getArgs()[i]);
+			if (!directory.isDirectory()) {
+				System.err.println(Locale.getString(CompareBenchs.class, "NO_DIRECTORY", directory.getAbsolutePath())); //$NON-NLS-1$
+				System.exit(1);
+				return;
+			}
+			results[i] = new ResultSet(directory);
+		}
+
+		PrintStream output = cmd.hasOption('o')
+				? new PrintStream(new FileOutputStream(cmd.getOptionValue('o')))
+				: System.out;
+		CompareBenchs comparator = new CompareBenchs(output, alpha, minChange, resamples);
+		comparator.writeHeader();
+		for(int i=1; i<results.length; ++i) {
+			comparator.compare(results[0], results[i]);
+		}
+		output.flush();
+		if (output!=System.out) {
+			output.close();
+		}
+		System.err.println(Locale.getString(CompareBenchs.class, "SUMMARY", //$NON-NLS-1$
+				comparator.getComparisonNumber(), comparator.getRegressionNumber()));
+		System.exit(comparator.getRegressionNumber()>0 ? REGRESSION_EXIT_CODE : 0);
+	}
+
+	private static void printHelp(Options options) {
+		HelpFormatter formatter = new HelpFormatter();
+		formatter.printHelp(CompareBenchs.class.getName()+" [OPTIONS] baseline candidate...", options); //$NON-NLS-1$
+	}
+
+	/** Replies the number of compared measures.
+	 * 
+	 * @return the number of comparisons.
+	 */
+	public int getComparisonNumber() {
+		return this.comparisons;
+	}
+
+	/** Replies the number of regressions.
+	 * 
+	 * @return the number of regressions.
+	 */
+	public int getRegressionNumber() {
+		return this.regressions;
+	}
+
+	/** Write the headers of the columns.
+	 */
+	public void writeHeader() {
+		this.output.print("#"); //$NON-NLS-1$
+		write(Locale.getString(CompareBenchs.class, "COLUMN_CANDIDATE"), //$NON-NLS-1$
+				Locale.getString(CompareBenchs.class, "COLUMN_FUNCTION"), //$NON-NLS-1$
+				Locale.getString(CompareBenchs.class, "COLUMN_RUN"), //$NON-NLS-1$
+				Locale.getString(CompareBenchs.class, "COLUMN_MEASURE"), //$NON-NLS-1$
+				Locale.getString(CompareBenchs.class, "COLUMN_BASELINE_SIZE"), //$NON-NLS-1$
+				Locale.getString(CompareBenchs.class, "COLUMN_CANDIDATE_SIZE"), //$NON-NLS-1$
+				Locale.getString(CompareBenchs.class, "COLUMN_BASELINE_MEDIAN"), //$NON-NLS-1$
+				Locale.getString(CompareBenchs.class, "COLUMN_CANDIDATE_MEDIAN"), //$NON-NLS-1$
+				Locale.getString(CompareBenchs.class, "COLUMN_CHANGE"), //$NON-NLS-1$
+				Locale.getString(CompareBenchs.class, "COLUMN_CHANGE_LOW"), //$NON-NLS-1$
+				Locale.getString(CompareBenchs.class, "COLUMN_CHANGE_HIGH"), //$NON-NLS-1$
+				Locale.getString(CompareBenchs.class, "COLUMN_P_VALUE"), //$NON-NLS-1$
+				Locale.getString(CompareBenchs.class, "COLUMN_VERDICT")); //$NON-NLS-1$
+	}
+
+	/** Compare the results of a launch to the baseline.
+	 * 
+	 * @param baseline are the results of the baseline.
+	 * @param candidate are the results to compare.
+	 * @throws IOException
+	 */
+	public void compare(ResultSet baseline, ResultSet candidate) throws IOException {
+		String candidateName = candidate.getDirectory().getName();
+		for(String function : baseline.getFunctions()) {
+			if (!candidate.getFunctions().contains(function)) {
+				System.err.println(Locale.getString(CompareBenchs.class, "MISSING_FUNCTION", //$NON-NLS-1$
+						function, candidateName));
+				continue;
+			}
+			Map<String,Measures> baselineRuns = baseline.read(function);
+			Map<String,Measures> candidateRuns = candidate.read(function);
+			for(Entry<String,Measures> entry : baselineRuns.entrySet()) {
+				Measures candidateRun = candidateRuns.get(entry.getKey());
+				if (candidateRun!=null) {
+					compare(candidateName, function, entry.getKey(),
+							Locale.getString(CompareBenchs.class, "LATENCY"), //$NON-NLS-1$
+							entry.getValue().getLatencies(), candidateRun.getLatencies(), true);
+					compare(candidateName, function, entry.getKey(),
+							Locale.getString(CompareBenchs.class, "THROUGHPUT"), //$NON-NLS-1$
+							entry.getValue().getThroughputs(), candidateRun.getThroughputs(), false);
+				}
+			}
+		}
+	}
+
+	private void compare(String candidateName, String function, String run, String measure,
+			double[] baseline, double[] candidate, boolean lowerIsBetter) {
+		if (baseline.length==0 || candidate.length==0) {
+			return;
+		}
+		++this.comparisons;
+		double[] sortedBaseline = baseline.clone();
+		double[] sortedCandidate = candidate.clone();
+		Arrays.sort(sortedBaseline);
+		Arrays.sort(sortedCandidate);
+		double baselineMedian = Statistics.median(sortedBaseline);
+		double candidateMedian = Statistics.median(sortedCandidate);
+		double change = (candidateMedian / baselineMedian - 1.) * 100.;
+		double[] interval = Statistics.bootstrapMedianChange(baseline, candidate,
+				this.resamples, 1. - this.alpha, this.random);
+		double low = interval==null ? Double.NaN : interval[0] * 100.;
+		double high = interval==null ? Double.NaN : interval[1] * 100.;
+		double p = Statistics.mannWhitneyPValue(baseline, candidate);
+		String verdict;
+		if (baseline.length<2 || candidate.length<2) {
+			verdict = Locale.getString(CompareBenchs.class, "NOT_TESTED"); //$NON-NLS-1$
+		}
+		else if (p<this.alpha && (low>0. || high<0.) && Math.abs(change)>=this.minChange) {
+			if ((change>0.)==lowerIsBetter) {
+				verdict = Locale.getString(CompareBenchs.class, "REGRESSION"); //$NON-NLS-1$
+				++this.regressions;
+			}
+			else {
+				verdict = Locale.getString(CompareBenchs.class, "IMPROVEMENT"); //$NON-NLS-1$
+			}
+		}
+		else {
+			verdict = Locale.getString(CompareBenchs.class, "UNCHANGED"); //$NON-NLS-1$
+		}
+		write(candidateName, function, run, measure,
+				baseline.length, candidate.length,
+				baselineMedian, candidateMedian,
+				change, low, high, p, verdict);
+	}
+
+	private void write(Object... columns) {
+		for(int i=0; i<columns.length; ++i) {
+			if (i>0) {
+				this.output.print("\t"); //$NON-NLS-1$
+			}
+			this.output.print(columns[i]);
+		}
+		this.output.println();
+	}
+
+}
\ No newline at end of file
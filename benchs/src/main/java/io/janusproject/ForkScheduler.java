@@ -0,0 +1,870 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject;
+
+import io.janusproject.benchmarking.Bench;
+import io.janusproject.benchmarking.BenchConstants;
+import io.janusproject.benchmarking.BenchEvent;
+import io.janusproject.benchmarking.BenchLauncher;
+import io.janusproject.benchmarking.ExclusiveBench;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.annotation.Annotation;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import org.arakhne.afc.vmutil.OperatingSystem;
+import org.arakhne.afc.vmutil.VMCommandLine;
+import org.arakhne.afc.vmutil.locale.Locale;
+
+/** Run the bench classes in forked virtual machines.
+ * <p>
+ * Each bench class is run in {@link #setForkNumber(int) several forks}, and
+ * {@link #setParallelForkNumber(int) several forks} may be run at the same time.
+ * Each fork that is running at the same time is given a slot:
+ * <ul>
+ * <li>the ports opened on localhost by the fork are shifted by
+ * {@link BenchConstants#PORT_OFFSET_STEP} times the slot index;</li>
+ * <li>if the {@link #setCpuPinning(boolean) pinning} is enabled, the fork is pinned with
+ * <code>taskset</code> on a set of processors that is disjoint from the
+ * sets of the other slots.</li>
+ * </ul>
+ * The bench classes that are marked with {@link ExclusiveBench} are run alone.
+ * <p>
+ * When the bench classes are run in several forks, the fork number <code>i</code>
+ * writes its results in the directory <code>fork-i</code>. The CSV files of the
+ * forks are aggregated in the output directory: <code>name.csv</code> contains
+ * the average of the numerical values of the forks, line by line, and
+ * <code>name-forks.csv</code> contains the lines of all the forks.
+ * <p>
+ * Each fork sends its {@link BenchEvent events} on a socket of the local host.
+ * The scheduler prints the progression and the estimated remaining time
+ * when a run is terminated, and gives the events to the
+ * {@link #addBenchEventListener(BenchEventListener) listeners}. The benchs
+ * may be {@link #abort() aborted} at any time: the running forks are
+ * stopped after their current runs, and the other forks are not launched.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+class ForkScheduler {
+
+	/** Name of the system property that contains the number of forks per bench class.
+	 */
+	public static final String FORK_NUMBER_PROPERTY = "BENCH_FORKS"; //$NON-NLS-1$
+
+	/** Name of the system property that contains the number of forks that are run
+	 * at the same time.
+	 */
+	public static final String PARALLEL_FORK_NUMBER_PROPERTY = "BENCH_PARALLEL_FORKS"; //$NON-NLS-1$
+
+	/** Name of the system property that indicates if the forks are pinned
+	 * on disjoint sets of processors.
+	 */
+	public static final String CPU_PINNING_PROPERTY = "BENCH_CPU_PINNING"; //$NON-NLS-1$
+
+	private static final String FORK_DIRECTORY = "fork-"; //$NON-NLS-1$
+	private static final String CSV_EXTENSION = ".csv"; //$NON-NLS-1$
+
+	private final File output;
+	private final Properties benchProperties;
+	private int forkNumber = BenchConstants.DEFAULT_FORK_NUMBER;
+	private int parallelForkNumber = BenchConstants.DEFAULT_PARALLEL_FORK_NUMBER;
+	private boolean cpuPinning = false;
+	private final List<BenchEventListener> listeners = new CopyOnWriteArrayList<>();
+	private final List<Socket> eventChannels = new ArrayList<>();
+	private volatile boolean aborted = false;
+	private long startTime;
+	private float terminatedProgression;
+	private final Map<Fork,Float> runningProgressions = new HashMap<>();
+
+	/**
+	 * @param output is the directory in which the results are written.
+	 * @param benchProperties are the system properties to give to the forks.
+	 */
+	public ForkScheduler(File output, Properties benchProperties) {
+		this.output = output;
+		this.benchProperties = benchProperties;
+	}
+
+	/** Replies the directory in which the results are written.
+	 * 
+	 * @return the directory.
+	 */
+	public File getOutput() {
+		return this.output;
+	}
+
+	/** Replies the system properties that are given to the forks.
+	 * 
+	 * @return the properties.
+	 */
+	public Properties getBenchProperties() {
+		return this.benchProperties;
+	}
+
+	/** Set the number of forks, the parallel forks and the pinning from
+	 * the system properties.
+	 * 
+	 * @see #FORK_NUMBER_PROPERTY
+	 * @see #PARALLEL_FORK_NUMBER_PROPERTY
+	 * @see #CPU_PINNING_PROPERTY
+	 */
+	public void setFromSystemProperties() {
+		setForkNumber(Integer.getInteger(FORK_NUMBER_PROPERTY, getForkNumber()).intValue());
+		setParallelForkNumber(Integer.getInteger(PARALLEL_FORK_NUMBER_PROPERTY, getParallelForkNumber()).intValue());
+		setCpuPinning(Boolean.getBoolean(CPU_PINNING_PROPERTY));
+	}
+
+	/** Replies the number of forks in which each bench class is run.
+	 * 
+	 * @return the number of forks.
+	 */
+	public int getForkNumber() {
+		return this.forkNumber;
+	}
+
+	/** Set the number of forks in which each bench class is run.
+	 * 
+	 * @param forks is the number of forks.
+	 */
+	public void setForkNumber(int forks) {
+		if (forks>0) {
+			this.forkNumber = forks;
+		}
+	}
+
+	/** Replies the number of forks that are run at the same time.
+	 * 
+	 * @return the number of forks.
+	 */
+	public int getParallelForkNumber() {
+		return this.parallelForkNumber;
+	}
+
+	/** Set the number of forks that are run at the same time.
+	 * 
+	 * @param forks is the number of forks.
+	 */
+	public void setParallelForkNumber(int forks) {
+		if (forks>0) {
+			this.parallelForkNumber = forks;
+		}
+	}
+
+	/** Replies if the forks are pinned on disjoint sets of processors.
+	 * 
+	 * @return <code>true</code> if the forks are pinned.
+	 */
+	public boolean isCpuPinning() {
+		return this.cpuPinning;
+	}
+
+	/** Set if the forks are pinned on disjoint sets of processors.
+	 * The pinning is supported on Linux only.
+	 * 
+	 * @param pinning is <code>true</code> if the forks are pinned.
+	 */
+	public void setCpuPinning(boolean pinning) {
+		this.cpuPinning = pinning;
+	}
+
+	/** Add a listener on the events of the forks.
+	 * 
+	 * @param listener is the listener to add.
+	 */
+	public void addBenchEventListener(BenchEventListener listener) {
+		this.listeners.add(listener);
+	}
+
+	/** Remove a listener on the events of the forks.
+	 * 
+	 * @param listener is the listener to remove.
+	 */
+	public void removeBenchEventListener(BenchEventListener listener) {
+		this.listeners.remove(listener);
+	}
+
+	/** Stop the benchs. The running forks are stopped after their
+	 * current runs, and the results of their terminated runs are written.
+	 * The forks that are not started are not launched.
+	 */
+	public void abort() {
+		this.aborted = true;
+		synchronized(this.eventChannels) {
+			for(Socket channel : this.eventChannels) {
+				sendAbort(channel);
+			}
+		}
+	}
+
+	/** Replies if the benchs were aborted.
+	 * 
+	 * @return <code>true</code> if the benchs were aborted.
+	 */
+	public boolean isAborted() {
+		return this.aborted;
+	}
+
+	private static void sendAbort(Socket channel) {
+		try {
+			channel.getOutputStream().write(BenchEvent.ABORT);
+			channel.getOutputStream().flush();
+		}
+		catch(IOException _) {
+			//
+		}
+	}
+
+	/** Run the given bench classes, and wait for the end of all the forks.
+	 * 
+	 * @param benchs are the bench classes to run.
+	 * @throws Exception
+	 */
+	public void run(List<Class<? extends Bench<?>>> benchs) throws Exception {
+		int slotNumber = this.parallelForkNumber;
+		int processors = Runtime.getRuntime().availableProcessors();
+		String cpuPinning = null;
+		if (this.cpuPinning) {
+			cpuPinning = findTaskset();
+			if (cpuPinning==null) {
+				System.err.println(Locale.getString(ForkScheduler.class, "NO_CPU_PINNING")); //$NON-NLS-1$
+			}
+			else if (processors<slotNumber) {
+				System.err.println(Locale.getString(ForkScheduler.class, "NOT_ENOUGH_CPUS", processors, slotNumber)); //$NON-NLS-1$
+				cpuPinning = null;
+			}
+		}
+		int cpusPerSlot = Math.max(1, processors / slotNumber);
+		BlockingQueue<Integer> freeSlots = new LinkedBlockingQueue<>();
+		for(int i=0; i<slotNumber; ++i) {
+			freeSlots.add(i);
+		}
+		ExecutorService service = Executors.newCachedThreadPool();
+		synchronized(this.runningProgressions) {
+			this.startTime = System.nanoTime();
+			this.terminatedProgression = 0f;
+			this.runningProgressions.clear();
+		}
+		try {
+			int taskNumber = benchs.size() * this.forkNumber;
+			float percentagePerTask = 100f / Math.max(1, taskNumber);
+			float progression = 0f;
+			for(Class<? extends Bench<?>> benchType : benchs) {
+				boolean exclusive = isExclusive(benchType);
+				for(int fork=0; fork<this.forkNumber && !this.aborted; ++fork) {
+					Fork task = new Fork(benchType, fork, progression, percentagePerTask, freeSlots, service);
+					if (exclusive) {
+						// Wait for the end of all the running forks
+						for(int i=0; i<slotNumber; ++i) {
+							freeSlots.take();
+						}
+						task.setSlot(0, null, slotNumber);
+						task.run();
+					}
+					else {
+						int slot = freeSlots.take();
+						if (this.aborted) {
+							freeSlots.add(slot);
+							break;
+						}
+						if (cpuPinning!=null) {
+							task.setSlot(slot, cpuPinning, slot * cpusPerSlot + "-" + ((slot + 1) * cpusPerSlot - 1)); //$NON-NLS-1$
+						}
+						else {
+							task.setSlot(slot, null, 1);
+						}
+						if (slotNumber>1) {
+							service.submit(task);
+						}
+						else {
+							task.run();
+						}
+					}
+					progression += percentagePerTask;
+				}
+			}
+			// Wait for the end of all the running forks
+			for(int i=0; i<slotNumber; ++i) {
+				freeSlots.take();
+			}
+		}
+		finally {
+			service.shutdownNow();
+		}
+		if (this.forkNumber>1 && !this.aborted) {
+			for(Class<? extends Bench<?>> benchType : benchs) {
+				aggregate(benchType.getSimpleName());
+			}
+		}
+	}
+
+	/** Invoked when a fork has sent an event.
+	 * 
+	 * @param fork is the fork.
+	 * @param event is the event.
+	 */
+	void fireBenchEvent(Fork fork, BenchEvent event) {
+		if (event.getType()==BenchEvent.Type.END_RUN) {
+			float progression;
+			long elapsedTime;
+			synchronized(this.runningProgressions) {
+				this.runningProgressions.put(fork, Math.max(0f, event.getProgression() - fork.getProgression()));
+				progression = this.terminatedProgression;
+				for(Float p : this.runningProgressions.values()) {
+					progression += p.floatValue();
+				}
+				elapsedTime = System.nanoTime() - this.startTime;
+			}
+			String eta;
+			if (progression>0f) {
+				eta = formatDuration((long)(elapsedTime * (100. - progression) / progression));
+			}
+			else {
+				eta = "?"; //$NON-NLS-1$
+			}
+			System.out.println(Locale.getString(ForkScheduler.class, "PROGRESS", //$NON-NLS-1$
+					(int)progression, event.getBenchName(), event.getFunctionName(), event.getRunName(),
+					event.getRunIndex()+1, event.getRunNumber(), event.getCallDuration(), eta));
+		}
+		for(BenchEventListener listener : this.listeners) {
+			listener.benchEvent(this, fork.getForkIndex(), event);
+		}
+	}
+
+	/** Invoked when a fork is terminated.
+	 * 
+	 * @param fork is the fork.
+	 */
+	void fireForkTerminated(Fork fork) {
+		synchronized(this.runningProgressions) {
+			this.runningProgressions.remove(fork);
+			this.terminatedProgression += fork.getProgressionWindow();
+		}
+	}
+
+	private static String formatDuration(long nanos) {
+		long seconds = nanos / 1000000000l;
+		StringBuilder b = new StringBuilder();
+		b.append(seconds / 3600);
+		b.append(':');
+		long minutes = (seconds / 60) % 60;
+		if (minutes<10) b.append('0');
+		b.append(minutes);
+		b.append(':');
+		seconds = seconds % 60;
+		if (seconds<10) b.append('0');
+		b.append(seconds);
+		return b.toString();
+	}
+
+	private static boolean isExclusive(Class<?> benchType) {
+		Class<?> type = benchType;
+		while (type!=null && !Object.class.equals(type)) {
+			for(Annotation a : type.getDeclaredAnnotations()) {
+				if (ExclusiveBench.class.isAssignableFrom(a.annotationType())) {
+					return true;
+				}
+			}
+			type = type.getSuperclass();
+		}
+		return false;
+	}
+
+	private static String findTaskset() {
+		if (OperatingSystem.getCurrentOS()!=OperatingSystem.LINUX) {
+			return null;
+		}
+		String path = System.getenv("PATH"); //$NON-NLS-1$
+		if (path!=null) {
+			for(String directory : path.split(File.pathSeparator)) {
+				File taskset = new File(directory, "taskset"); //$NON-NLS-1$
+				if (taskset.canExecute()) {
+					return taskset.getAbsolutePath();
+				}
+			}
+		}
+		return null;
+	}
+
+	private File getForkDirectory(int fork) {
+		if (this.forkNumber>1) {
+			return new File(this.output, FORK_DIRECTORY + fork);
+		}
+		return this.output;
+	}
+
+	/** Aggregate the CSV files of the forks of a bench class.
+	 * 
+	 * @param benchName is the name of the directory of the bench class.
+	 * @throws IOException
+	 */
+	private void aggregate(String benchName) throws IOException {
+		File firstDirectory = new File(getForkDirectory(0), benchName);
+		File[] files = firstDirectory.listFiles();
+		if (files==null) {
+			return;
+		}
+		File directory = new File(this.output, benchName);
+		directory.mkdirs();
+		for(File file : files) {
+			String name = file.getName();
+			if (name.endsWith(CSV_EXTENSION)) {
+				List<List<String>> forks = new ArrayList<>();
+				for(int fork=0; fork<this.forkNumber; ++fork) {
+					File forkFile = new File(new File(getForkDirectory(fork), benchName), name);
+					if (forkFile.isFile()) {
+						forks.add(readLines(forkFile));
+					}
+				}
+				String baseName = name.substring(0, name.length() - CSV_EXTENSION.length());
+				writeAverage(new File(directory, name), forks);
+				writeForks(new File(directory, baseName + "-forks" + CSV_EXTENSION), forks); //$NON-NLS-1$
+			}
+		}
+	}
+
+	private static List<String> readLines(File file) throws IOException {
+		List<String> lines = new ArrayList<>();
+		try (BufferedReader reader = new BufferedReader(new FileReader(file))) {
+			String line = reader.readLine();
+			while (line!=null) {
+				lines.add(line);
+				line = reader.readLine();
+			}
+		}
+		return lines;
+	}
+
+	private static Double parseDouble(String value) {
+		try {
+			return Double.valueOf(value);
+		}
+		catch(NumberFormatException _) {
+			return null;
+		}
+	}
+
+	/** Write the lines of the first fork in which the numerical values are
+	 * replaced by their average over the forks.
+	 */
+	private static void writeAverage(File file, List<List<String>> forks) throws IOException {
+		List<String> first = forks.get(0);
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+			for(int i=0; i<first.size(); ++i) {
+				String line = first.get(i);
+				if (!line.startsWith("#")) { //$NON-NLS-1$
+					String[] columns = line.split("\t", -1); //$NON-NLS-1$
+					for(int j=0; j<columns.length; ++j) {
+						Double value = parseDouble(columns[j]);
+						if (value!=null) {
+							double sum = value.doubleValue();
+							int count = 1;
+							boolean same = true;
+							for(int k=1; k<forks.size(); ++k) {
+								List<String> fork = forks.get(k);
+								if (i<fork.size()) {
+									String[] forkColumns = fork.get(i).split("\t", -1); //$NON-NLS-1$
+									Double forkValue = j<forkColumns.length ? parseDouble(forkColumns[j]) : null;
+									if (forkValue!=null) {
+										sum += forkValue.doubleValue();
+										++count;
+										same = same && columns[j].equals(forkColumns[j]);
+									}
+								}
+							}
+							// The indexes and the parameters are the same in all the forks
+							if (!same) {
+								columns[j] = Double.toString(sum / count);
+							}
+						}
+					}
+					StringBuilder b = new StringBuilder();
+					for(int j=0; j<columns.length; ++j) {
+						if (j>0) b.append('\t');
+						b.append(columns[j]);
+					}
+					line = b.toString();
+				}
+				writer.write(line);
+				writer.write("\n"); //$NON-NLS-1$
+			}
+		}
+	}
+
+	/** Write the lines of all the forks, preceded by the index of the fork.
+	 */
+	private static void writeForks(File file, List<List<String>> forks) throws IOException {
+		try (BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
+			boolean header = false;
+			for(int fork=0; fork<forks.size(); ++fork) {
+				for(String line : forks.get(fork)) {
+					if (line.startsWith("#")) { //$NON-NLS-1$
+						// The headers are written once
+						if (fork==0) {
+							if (line.indexOf('\t')>=0 && !header) {
+								writer.write("#"); //$NON-NLS-1$
+								writer.write(Locale.getString(ForkScheduler.class, "COLUMN_FORK")); //$NON-NLS-1$
+								writer.write("\t"); //$NON-NLS-1$
+								writer.write(line.substring(1));
+								header = true;
+							}
+							else {
+								writer.write(line);
+							}
+							writer.write("\n"); //$NON-NLS-1$
+						}
+					}
+					else {
+						writer.write(Integer.toString(fork));
+						writer.write("\t"); //$NON-NLS-1$
+						writer.write(line);
+						writer.write("\n"); //$NON-NLS-1$
+					}
+				}
+			}
+		}
+	}
+
+	/** Run of a bench class in a forked virtual machine.
+	 * 
+	 * @author $Author: sgalland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 2.0.0
+	 */
+	private class Fork implements Runnable {
+
+		private final Class<? extends Bench<?>> benchType;
+		private final int fork;
+		private final float progression;
+		private final float progressionWindow;
+		private final BlockingQueue<Integer> freeSlots;
+		private final ExecutorService service;
+		private int slot;
+		private String taskset;
+		private String cpus;
+		private int usedSlots;
+
+		/**
+		 * @param benchType is the bench class to run.
+		 * @param fork is the index of the fork.
+		 * @param progression is the progression at the start of the fork.
+		 * @param progressionWindow is the amount of the progression dedicated to the fork.
+		 * @param freeSlots are the free slots, in which the slot of the fork is put back.
+		 * @param service is the service that runs the readers of the outputs.
+		 */
+		public Fork(Class<? extends Bench<?>> benchType, int fork, float progression, float progressionWindow,
+				BlockingQueue<Integer> freeSlots, ExecutorService service) {
+			this.benchType = benchType;
+			this.fork = fork;
+			this.progression = progression;
+			this.progressionWindow = progressionWindow;
+			this.freeSlots = freeSlots;
+			this.service = service;
+		}
+
+		/** Replies the index of the fork.
+		 * 
+		 * @return the index of the fork.
+		 */
+		public int getForkIndex() {
+			return this.fork;
+		}
+
+		/** Replies the progression at the start of the fork.
+		 * 
+		 * @return the progression, in percent.
+		 */
+		public float getProgression() {
+			return this.progression;
+		}
+
+		/** Replies the amount of the progression dedicated to the fork.
+		 * 
+		 * @return the amount of the progression, in percent.
+		 */
+		public float getProgressionWindow() {
+			return this.progressionWindow;
+		}
+
+		/** Set the slot of the fork.
+		 * 
+		 * @param slot is the index of the slot.
+		 * @param taskset is the path to the pinning tool, or <code>null</code>.
+		 * @param cpus are the processors on which the fork is pinned.
+		 */
+		public void setSlot(int slot, String taskset, String cpus) {
+			this.slot = slot;
+			this.taskset = taskset;
+			this.cpus = cpus;
+			this.usedSlots = 1;
+		}
+
+		/** Set the slot of the fork when it uses several slots.
+		 * 
+		 * @param slot is the index of the slot.
+		 * @param taskset is the path to the pinning tool, or <code>null</code>.
+		 * @param usedSlots is the number of slots that are used by the fork.
+		 */
+		public void setSlot(int slot, String taskset, int usedSlots) {
+			this.slot = slot;
+			this.taskset = taskset;
+			this.cpus = null;
+			this.usedSlots = usedSlots;
+		}
+
+		@Override
+		public void run() {
+			Process process = null;
+			ServerSocket eventServer = null;
+			try {
+				eventServer = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+				File forkOutput = getForkDirectory(this.fork);
+				forkOutput.mkdirs();
+				List<String> cmd = new ArrayList<>();
+				if (this.taskset!=null && this.cpus!=null) {
+					cmd.add(this.taskset);
+					cmd.add("-c"); //$NON-NLS-1$
+					cmd.add(this.cpus);
+				}
+				cmd.add(VMCommandLine.getVMBinary());
+				if (ForkScheduler.this.benchProperties!=null) {
+					for(Entry<Object,Object> entry : ForkScheduler.this.benchProperties.entrySet()) {
+						cmd.add("-D"+entry.getKey()+"="+entry.getValue()); //$NON-NLS-1$ //$NON-NLS-2$
+					}
+				}
+				cmd.add("-D"+BenchConstants.PORT_OFFSET_PROPERTY+"=" //$NON-NLS-1$ //$NON-NLS-2$
+						+(this.slot * BenchConstants.PORT_OFFSET_STEP));
+				cmd.add("-D"+BenchConstants.EVENT_PORT_PROPERTY+"="+eventServer.getLocalPort()); //$NON-NLS-1$ //$NON-NLS-2$
+				cmd.add("-Xmx"+BenchConstants.MAX_MEMORY+"m"); //$NON-NLS-1$ //$NON-NLS-2$
+				cmd.add("-classpath"); //$NON-NLS-1$
+				cmd.add(System.getProperty("java.class.path")); //$NON-NLS-1$
+				cmd.add(BenchLauncher.class.getCanonicalName());
+				cmd.add(forkOutput.getAbsolutePath());
+				cmd.add(Float.toString(this.progression));
+				cmd.add(Float.toString(this.progressionWindow));
+				cmd.add(this.benchType.getCanonicalName());
+				StringBuilder line = new StringBuilder();
+				for(int i=0; i<cmd.size(); ++i) {
+					if (i>0) line.append(' ');
+					line.append(cmd.get(i));
+				}
+				System.out.println(line.toString());
+				String[] array = new String[cmd.size()];
+				cmd.toArray(array);
+				cmd.clear();
+				cmd = null;
+				System.gc();
+				System.gc();
+				System.gc();
+				process = Runtime.getRuntime().exec(
+						array,
+						null,
+						null);
+				PrintStream out;
+				PrintStream err;
+				boolean log = getParallelForkNumber()>1;
+				if (log) {
+					// The outputs of the forks that are run at the same time are not mixed
+					File logFile = new File(forkOutput, this.benchType.getSimpleName()+"-console.log"); //$NON-NLS-1$
+					out = new PrintStream(logFile);
+					err = out;
+					System.out.println(Locale.getString(ForkScheduler.class, "FORK_LOG", //$NON-NLS-1$
+							this.benchType.getSimpleName(), this.fork, logFile.getAbsolutePath()));
+				}
+				else {
+					out = System.out;
+					err = System.err;
+				}
+				Future<?> eventReader = this.service.submit(new EventReader(eventServer, this));
+				OutputRunner r1 = new OutputRunner(process.getInputStream(), out);
+				OutputRunner r2 = new OutputRunner(process.getErrorStream(), err);
+				Future<?> relay1 = this.service.submit(r1);
+				Future<?> relay2 = this.service.submit(r2);
+				int exitCode = process.waitFor();
+				process = null;
+				// The last lines of the fork, e.g. a stack trace, must be relayed before closing the output
+				relay1.get();
+				relay2.get();
+				// Wait for the last events of the fork
+				eventServer.close();
+				eventReader.get();
+				if (log) {
+					out.close();
+				}
+				if (exitCode!=0) {
+					System.err.println(Locale.getString(ForkScheduler.class, "FORK_FAILURE", //$NON-NLS-1$
+							this.benchType.getSimpleName(), this.fork, exitCode));
+				}
+			}
+			catch(Throwable e) {
+				System.err.println(Locale.getString(Benchs.class, "KILLING")); //$NON-NLS-1$
+				e.printStackTrace();
+				if (process!=null) {
+					process.destroy();
+				}
+			}
+			finally {
+				if (eventServer!=null) {
+					try {
+						eventServer.close();
+					}
+					catch(IOException _) {
+						//
+					}
+				}
+				fireForkTerminated(this);
+				for(int i=0; i<this.usedSlots; ++i) {
+					this.freeSlots.add(this.slot + i);
+				}
+			}
+		}
+
+	}
+
+	/** Read the events that are sent by a forked virtual machine.
+	 * 
+	 * @author $Author: sgalland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 2.0.0
+	 */
+	private class EventReader implements Runnable {
+
+		private final ServerSocket server;
+		private final Fork fork;
+
+		/**
+		 * @param server is the socket on which the fork is connecting.
+		 * @param fork is the fork.
+		 */
+		public EventReader(ServerSocket server, Fork fork) {
+			this.server = server;
+			this.fork = fork;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run() {
+			// The socket is closed when the fork is terminated
+			try (Socket channel = this.server.accept()) {
+				synchronized(ForkScheduler.this.eventChannels) {
+					ForkScheduler.this.eventChannels.add(channel);
+					if (ForkScheduler.this.aborted) {
+						sendAbort(channel);
+					}
+				}
+				try {
+					DataInputStream input = new DataInputStream(new BufferedInputStream(channel.getInputStream()));
+					if (input.readInt()==BenchEvent.MAGIC_NUMBER) {
+						while (true) {
+							fireBenchEvent(this.fork, BenchEvent.read(input));
+						}
+					}
+				}
+				finally {
+					synchronized(ForkScheduler.this.eventChannels) {
+						ForkScheduler.this.eventChannels.remove(channel);
+					}
+				}
+			}
+			catch(EOFException _) {
+				//
+			}
+			catch(IOException _) {
+				//
+			}
+		}
+
+	}
+
+	/** Copy an output of a forked virtual machine.
+	 * 
+	 * @author $Author: sgalland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 2.0.0
+	 */
+	private static class OutputRunner implements Runnable {
+	
+		private final PrintStream os;
+		private final InputStream is;
+		
+		public OutputRunner(InputStream is, PrintStream os) {
+			this.is = is;
+			this.os = os;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void run() {
+			try {
+				byte[] buffer = new byte[8192];
+				int nb = this.is.read(buffer);
+				while (nb>0) {
+					// The bytes are copied without decoding them
+					this.os.write(buffer, 0, nb);
+					this.os.flush();
+					nb = this.is.read(buffer);
+				}
+				this.is.close();
+			}
+			catch(IOException _) {
+				//
+			}
+		}
+		
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,271 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject;
+
+import io.janusproject.benchmarking.Bench;
+import io.janusproject.benchmarking.BenchConstants;
+import io.janusproject.benchmarking.BenchLauncher;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.regex.Pattern;
+
+import org.apache.commons.cli.BasicParser;
+import org.apache.commons.cli.CommandLine;
+import org.apache.commons.cli.CommandLineParser;
+import org.apache.commons.cli.HelpFormatter;
+import org.apache.commons.cli.Option;
+import org.apache.commons.cli.Options;
+import org.apache.commons.cli.ParseException;
+import org.arakhne.afc.vmutil.VMCommandLine;
+import org.arakhne.afc.vmutil.locale.Locale;
+
+/** Run the benchs without user interface, e.g. on a server without display.
+ * <p>
+ * The benchs are selected by their names, with the wildcards <code>*</code>
+ * and <code>?</code>; the qualified names may be used too. The properties
+ * that are needed by the benchs, see {@link io.janusproject.benchmarking.PropertyBench},
+ * are given with <code>-Dname=value</code>, or as system properties of this
+ * virtual machine.
+ * <p>
+ * The progression of the benchs is printed when each run is terminated.
+ * When a baseline is given, the benchs are aborted as soon as a bench function
+ * is slower than in the baseline, see {@link RegressionGuard}.
+ * <p>
+ * The options <code>--calls</code> and <code>--runs</code> replace the numbers of
+ * calls and runs of the bench functions, except for the functions that fix their
+ * own counts, e.g. the bursts of messages, the runs of a fixed duration and the
+ * transit times with one message per run.
+ * <p>
+ * Command line: <code>[OPTIONS] [bench...]</code>
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public class HeadlessBenchs {
+
+	/** Default greatest accepted regression of a bench function,
+	 * in percent of the durations in the baseline.
+	 */
+	private static final double DEFAULT_MAX_REGRESSION = 20.;
+
+	/**
+	 * @param args
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		VMCommandLine.saveVMParametersIfNotSet(BenchLauncher.class, args);
+		CommandLineParser parser = new BasicParser();
+
+		Options options = new Options();
+		options.addOption("h", "help", false, "Help"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("l", "list", false, "List the benchs"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("b", "bench", true, "Name or pattern of the benchs to run"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("o", "output", true, "Directory of the results"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("c", "calls", true, "Number of calls per run, for the functions that do not fix their own counts"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("r", "runs", true, "Number of runs, for the functions that do not fix their own counts"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("f", "forks", true, "Number of forks per bench"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("p", "parallel", true, "Number of forks at the same time"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("a", "pin", false, "Pin the forks on disjoint processors"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("j", "jei", false, "Compute the JEI and write it in the results"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("g", "baseline", true, "Directory of the results to compare with; the benchs are aborted on regression"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("m", "max-regression", true, "Greatest accepted regression of a bench function, in percent"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		Option property = new Option("D", true, "Property of the benchs"); //$NON-NLS-1$//$NON-NLS-2$
+		property.setArgName("property=value"); //$NON-NLS-1$
+		property.setArgs(2);
+		property.setValueSeparator('=');
+		options.addOption(property);
+
+		CommandLine cmd;
+		try {
+			cmd = parser.parse(options, args);
+		}
+		catch(ParseException e) {
+			System.err.println(e.getLocalizedMessage());
+			printHelp(options);
+			System.exit(1);
+			return;
+		}
+
+		if (cmd.hasOption('h')) {
+			printHelp(options);
+			System.exit(0);
+			return;
+		}
+
+		if (cmd.hasOption('l')) {
+			for(Class<? extends Bench<?>> benchType : Benchs.getBenchTypes()) {
+				System.out.println(benchType.getSimpleName());
+			}
+			System.exit(0);
+			return;
+		}
+
+		// Select the benchs
+		List<String> patterns = new ArrayList<>();
+		String[] values = cmd.getOptionValues('b');
+		if (values!=null) {
+			for(String value : values) {
+				for(String pattern : value.split(",")) { //$NON-NLS-1$
+					patterns.add(pattern.trim());
+				}
+			}
+		}
+		for(String pattern : cmd.getArgs()) {
+			patterns.add(pattern);
+		}
+		List<Class<? extends Bench<?>>> benchsToRun = new ArrayList<>();
+		for(String pattern : patterns) {
+			if (!pattern.isEmpty() && !select(pattern, benchsToRun)) {
+				System.err.println(Locale.getString(HeadlessBenchs.class, "NO_BENCH", pattern)); //$NON-NLS-1$
+				System.exit(1);
+				return;
+			}
+		}
+		if (benchsToRun.isEmpty()) {
+			System.err.println(Locale.getString(HeadlessBenchs.class, "NO_SELECTED_BENCH")); //$NON-NLS-1$
+			printHelp(options);
+			System.exit(1);
+			return;
+		}
+
+		// Properties of the benchs
+		Properties properties = new Properties();
+		Properties givenProperties = cmd.getOptionProperties("D"); //$NON-NLS-1$
+		for(String name : Benchs.getBenchPropertyNames(benchsToRun)) {
+			String value = givenProperties.getProperty(name, System.getProperty(name));
+			if (value==null) {
+				System.err.println(Locale.getString(HeadlessBenchs.class, "MISSING_PROPERTY", name)); //$NON-NLS-1$
+				System.exit(1);
+				return;
+			}
+			properties.setProperty(name, value);
+		}
+		for(Entry<Object,Object> entry : givenProperties.entrySet()) {
+			properties.put(entry.getKey(), entry.getValue());
+		}
+
+		ForkScheduler scheduler;
+		try {
+			if (cmd.hasOption('c')) {
+				properties.setProperty(BenchConstants.CALL_NUMBER_PROPERTY,
+						Integer.toString(parsePositive(cmd.getOptionValue('c'))));
+			}
+			if (cmd.hasOption('r')) {
+				properties.setProperty(BenchConstants.RUN_NUMBER_PROPERTY,
+						Integer.toString(parsePositive(cmd.getOptionValue('r'))));
+			}
+
+			File output;
+			if (cmd.hasOption('o')) {
+				output = new File(cmd.getOptionValue('o'));
+				output.mkdirs();
+			}
+			else {
+				output = Benchs.createRunDirectory(Benchs.getDefaultOutputDirectory());
+			}
+
+			scheduler = new ForkScheduler(output, properties);
+			scheduler.setFromSystemProperties();
+			if (cmd.hasOption('f')) {
+				scheduler.setForkNumber(parsePositive(cmd.getOptionValue('f')));
+			}
+			if (cmd.hasOption('p')) {
+				scheduler.setParallelForkNumber(parsePositive(cmd.getOptionValue('p')));
+			}
+			if (cmd.hasOption('a')) {
+				scheduler.setCpuPinning(true);
+			}
+			if (cmd.hasOption('g')) {
+				double maxRegression = DEFAULT_MAX_REGRESSION;
+				if (cmd.hasOption('m')) {
+					maxRegression = Double.parseDouble(cmd.getOptionValue('m'));
+				}
+				scheduler.addBenchEventListener(new RegressionGuard(
+						new File(cmd.getOptionValue('g')), maxRegression));
+			}
+		}
+		catch(NumberFormatException e) {
+			System.err.println(Locale.getString(HeadlessBenchs.class, "INVALID_NUMBER", e.getLocalizedMessage())); //$NON-NLS-1$
+			System.exit(1);
+			return;
+		}
+
+		if (cmd.hasOption('j')) {
+			System.setProperty(BenchConstants.JEI_PROPERTY, Boolean.TRUE.toString());
+		}
+
+		Benchs.launch(benchsToRun, scheduler);
+		System.exit(0);
+	}
+
+	private static void printHelp(Options options) {
+		HelpFormatter formatter = new HelpFormatter();
+		formatter.printHelp(HeadlessBenchs.class.getName()+" [OPTIONS] [bench...]", options); //$NON-NLS-1$
+	}
+
+	private static int parsePositive(String value) {
+		int number = Integer.parseInt(value);
+		if (number<=0) {
+			throw new NumberFormatException(value);
+		}
+		return number;
+	}
+
+	/** Add the benchs that are matching the given pattern.
+	 * 
+	 * @param pattern is the name or the pattern of the benchs.
+	 * @param benchs is the list to fill.
+	 * @return <code>true</code> if at least one bench is matching.
+	 */
+	private static boolean select(String pattern, List<Class<? extends Bench<?>>> benchs) {
+		StringBuilder regex = new StringBuilder();
+		for(String part : pattern.split("(?=[*?])|(?<=[*?])")) { //$NON-NLS-1$
+			if ("*".equals(part)) { //$NON-NLS-1$
+				regex.append(".*"); //$NON-NLS-1$
+			}
+			else if ("?".equals(part)) { //$NON-NLS-1$
+				regex.append('.');
+			}
+			else if (!part.isEmpty()) {
+				regex.append(Pattern.quote(part));
+			}
+		}
+		Pattern p = Pattern.compile(regex.toString());
+		boolean found = false;
+		for(Class<? extends Bench<?>> benchType : Benchs.getBenchTypes()) {
+			if (p.matcher(benchType.getSimpleName()).matches()
+				|| p.matcher(benchType.getName()).matches()) {
+				found = true;
+				if (!benchs.contains(benchType)) {
+					benchs.add(benchType);
+				}
+			}
+		}
+		return found;
+	}
+
+}
\ No newline at end of file
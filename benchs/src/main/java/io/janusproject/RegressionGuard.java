@@ -0,0 +1,161 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject;
+
+import io.janusproject.benchmarking.BenchEvent;
+
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.arakhne.afc.vmutil.locale.Locale;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.google.gson.JsonParser;
+
+/** Abort the benchs when a bench function is slower than in a baseline.
+ * <p>
+ * The baseline is a directory of results of a previous launch: the
+ * durations are read from the JSON file <code>Bench/function.json</code>,
+ * or <code>fork-0/Bench/function.json</code> when the previous launch had
+ * several forks. The runs are matched by their names.
+ * <p>
+ * The average duration of each run, over all its repetitions, is compared
+ * to the one of the baseline; it is the statistic that is written in the
+ * JSON files, e.g. the average transit time of the messages for the remote
+ * runs. The decision is taken when the function is terminated, on the
+ * geometric mean of the ratios of all its runs, so that a single noisy
+ * run does not abort the benchs.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+class RegressionGuard implements BenchEventListener {
+
+	private static final String JSON_EXTENSION = ".json"; //$NON-NLS-1$
+
+	private final File baseline;
+	private final double maxRegression;
+	private final Map<String,Map<String,Long>> durations = new HashMap<>();
+	private final Map<String,double[]> ratios = new HashMap<>();
+
+	/**
+	 * @param baseline is the directory of the results to compare with.
+	 * @param maxRegression is the greatest accepted increase of the durations
+	 * of a bench function, in percent of the durations in the baseline.
+	 */
+	public RegressionGuard(File baseline, double maxRegression) {
+		this.baseline = baseline;
+		this.maxRegression = maxRegression;
+	}
+
+	@Override
+	public void benchEvent(ForkScheduler scheduler, int fork, BenchEvent event) {
+		if (event.getType()==BenchEvent.Type.END_RANGE && event.getCallDuration()>0) {
+			Long reference = getBaselineDurations(event.getBenchName(), event.getFunctionName()).get(event.getRunName());
+			if (reference!=null && reference.longValue()>0) {
+				addRatio(fork, event, Math.log(event.getCallDuration() / reference.doubleValue()));
+			}
+		}
+		else if (event.getType()==BenchEvent.Type.END_FUNCTION) {
+			double[] ratio = removeRatios(fork, event);
+			if (ratio!=null && ratio[1]>0) {
+				double regression = (Math.exp(ratio[0] / ratio[1]) - 1.) * 100.;
+				if (regression>this.maxRegression) {
+					System.err.println(Locale.getString(RegressionGuard.class, "REGRESSION", //$NON-NLS-1$
+							event.getBenchName(), event.getFunctionName(), (long)ratio[1], regression));
+					scheduler.abort();
+				}
+			}
+		}
+	}
+
+	private static String getFunctionKey(int fork, BenchEvent event) {
+		return fork + "#" + event.getBenchName() + "#" + event.getFunctionName(); //$NON-NLS-1$ //$NON-NLS-2$
+	}
+
+	/** Add the logarithm of the ratio of a run to the sums of its function.
+	 * 
+	 * @param fork is the index of the fork that has run the function.
+	 * @param event is the end of the run.
+	 * @param logRatio is the logarithm of the ratio of the duration of the run
+	 * to the duration in the baseline.
+	 */
+	private synchronized void addRatio(int fork, BenchEvent event, double logRatio) {
+		String key = getFunctionKey(fork, event);
+		double[] ratio = this.ratios.get(key);
+		if (ratio==null) {
+			ratio = new double[2];
+			this.ratios.put(key, ratio);
+		}
+		ratio[0] += logRatio;
+		ratio[1] += 1.;
+	}
+
+	/** Replies and forget the sums of the ratios of a function.
+	 * 
+	 * @param fork is the index of the fork that has run the function.
+	 * @param event is the end of the function.
+	 * @return the sum of the logarithms of the ratios, and the number of
+	 * ratios; or <code>null</code> if no run was compared.
+	 */
+	private synchronized double[] removeRatios(int fork, BenchEvent event) {
+		return this.ratios.remove(getFunctionKey(fork, event));
+	}
+
+	private synchronized Map<String,Long> getBaselineDurations(String benchName, String functionName) {
+		String key = benchName + "#" + functionName; //$NON-NLS-1$
+		Map<String,Long> runs = this.durations.get(key);
+		if (runs==null) {
+			runs = new HashMap<>();
+			File file = new File(new File(this.baseline, benchName), functionName + JSON_EXTENSION);
+			if (!file.isFile()) {
+				file = new File(new File(new File(this.baseline, "fork-0"), benchName), functionName + JSON_EXTENSION); //$NON-NLS-1$
+			}
+			if (file.isFile()) {
+				try (Reader reader = new FileReader(file)) {
+					JsonObject results = new JsonParser().parse(reader).getAsJsonObject();
+					for(JsonElement element : results.getAsJsonArray("runs")) { //$NON-NLS-1$
+						JsonObject run = element.getAsJsonObject();
+						String name = run.get("name").getAsString(); //$NON-NLS-1$
+						if (!runs.containsKey(name)) {
+							runs.put(name, run.get("callAverageDuration").getAsLong()); //$NON-NLS-1$
+						}
+					}
+				}
+				catch(IOException | JsonParseException | IllegalStateException e) {
+					System.err.println(Locale.getString(RegressionGuard.class, "INVALID_BASELINE", //$NON-NLS-1$
+							file.getAbsolutePath(), e.getLocalizedMessage()));
+				}
+			}
+			this.durations.put(key, runs);
+		}
+		return runs;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,315 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject;
+
+import io.janusproject.benchmarking.SampleFileWriter;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileFilter;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+/** Results of a launch of the benchs, read from its output directory.
+ * <p>
+ * The results are read from the JSON files <code>Bench/function.json</code>
+ * of the directory and of its <code>fork-i</code> sub-directories. For each
+ * run, the measures of the forks are merged:
+ * <ul>
+ * <li>the latencies are the raw durations of the calls when they were recorded,
+ * and the average durations of the calls otherwise;</li>
+ * <li>the throughputs are the throughputs of the intervals when they are known,
+ * and the throughputs of the runs otherwise.</li>
+ * </ul>
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+class ResultSet {
+
+	private static final String JSON_EXTENSION = ".json"; //$NON-NLS-1$
+
+	private final File directory;
+	private final Map<String,List<File>> files = new TreeMap<>();
+
+	/**
+	 * @param directory is the output directory of the launch.
+	 */
+	public ResultSet(File directory) {
+		this.directory = directory;
+		List<File> roots = new ArrayList<>();
+		roots.add(directory);
+		File[] forks = directory.listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File pathname) {
+				return pathname.isDirectory() && pathname.getName().startsWith("fork-"); //$NON-NLS-1$
+			}
+		});
+		if (forks!=null) {
+			Arrays.sort(forks);
+			roots.addAll(Arrays.asList(forks));
+		}
+		for(File root : roots) {
+			File[] benchs = root.listFiles();
+			if (benchs!=null) {
+				for(File bench : benchs) {
+					File[] results = bench.listFiles();
+					if (bench.isDirectory() && results!=null) {
+						for(File result : results) {
+							String name = result.getName();
+							if (result.isFile() && name.endsWith(JSON_EXTENSION)) {
+								String key = bench.getName() + "#" //$NON-NLS-1$
+										+ name.substring(0, name.length() - JSON_EXTENSION.length());
+								List<File> list = this.files.get(key);
+								if (list==null) {
+									list = new ArrayList<>();
+									this.files.put(key, list);
+								}
+								list.add(result);
+							}
+						}
+					}
+				}
+			}
+		}
+	}
+
+	/** Replies the output directory of the launch.
+	 * 
+	 * @return the directory.
+	 */
+	public File getDirectory() {
+		return this.directory;
+	}
+
+	/** Replies the bench functions for which results are available.
+	 * 
+	 * @return the names of the functions, with the format <code>Bench#function</code>.
+	 */
+	public Set<String> getFunctions() {
+		return this.files.keySet();
+	}
+
+	/** Read the measures of the runs of a bench function.
+	 * 
+	 * @param function is the name of the function, with the format <code>Bench#function</code>.
+	 * @return the measures, indexed by the names of the runs.
+	 * @throws IOException
+	 */
+	public Map<String,Measures> read(String function) throws IOException {
+		Map<String,Measures> measures = new LinkedHashMap<>();
+		List<File> list = this.files.get(function);
+		if (list!=null) {
+			for(File file : list) {
+				read(file, measures);
+			}
+		}
+		return measures;
+	}
+
+	private static void read(File file, Map<String,Measures> measures) throws IOException {
+		JsonObject results;
+		try (Reader reader = new FileReader(file)) {
+			results = new JsonParser().parse(reader).getAsJsonObject();
+		}
+		Map<Integer,Measures> runs = new HashMap<>();
+		for(JsonElement element : results.getAsJsonArray("runs")) { //$NON-NLS-1$
+			JsonObject run = element.getAsJsonObject();
+			String name = run.get("name").getAsString(); //$NON-NLS-1$
+			Measures m = measures.get(name);
+			if (m==null) {
+				m = new Measures(name);
+				measures.put(name, m);
+			}
+			Integer id = run.get("id").getAsInt(); //$NON-NLS-1$
+			if (runs.containsValue(m)) {
+				// The same run may be reported several times
+				runs.put(id, m);
+				continue;
+			}
+			runs.put(id, m);
+			m.averageLatencies.add(run.get("callAverageDuration").getAsDouble()); //$NON-NLS-1$
+			JsonElement throughput = run.get("throughput"); //$NON-NLS-1$
+			if (throughput!=null && !throughput.isJsonNull() && throughput.getAsDouble()>0.) {
+				m.runThroughputs.add(throughput.getAsDouble());
+			}
+			JsonElement intervals = run.get("intervalThroughputs"); //$NON-NLS-1$
+			if (intervals!=null && intervals.isJsonArray()) {
+				for(JsonElement repetition : intervals.getAsJsonArray()) {
+					for(JsonElement value : (JsonArray)repetition) {
+						if (!value.isJsonNull()) {
+							m.intervalThroughputs.add(value.getAsDouble());
+						}
+					}
+				}
+			}
+		}
+		JsonElement samples = results.get("samples"); //$NON-NLS-1$
+		if (samples!=null && !samples.isJsonNull()) {
+			File sampleFile = new File(file.getParentFile(), samples.getAsString());
+			if (sampleFile.isFile()) {
+				readSamples(sampleFile, runs);
+			}
+		}
+	}
+
+	/** Read the raw durations that were written by
+	 * {@link io.janusproject.benchmarking.CsvBench}.
+	 */
+	private static void readSamples(File file, Map<Integer,Measures> runs) throws IOException {
+		try (DataInputStream input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+			if (input.readInt()!=SampleFileWriter.MAGIC_NUMBER
+				|| input.readInt()!=SampleFileWriter.VERSION) {
+				throw new IOException(file.getAbsolutePath());
+			}
+			while (true) {
+				int runId;
+				try {
+					runId = input.readInt();
+				}
+				catch(EOFException _) {
+					return;
+				}
+				// Index of the block
+				input.readInt();
+				int count = input.readInt();
+				Measures m = runs.get(runId);
+				for(int i=0; i<count; ++i) {
+					long sample = input.readLong();
+					if (m!=null) {
+						m.rawLatencies.add(sample);
+					}
+				}
+			}
+		}
+	}
+
+	/** Measures of a run in the forks of a launch.
+	 * 
+	 * @author $Author: sgalland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 2.0.0
+	 */
+	static class Measures {
+
+		private final String name;
+		final Values rawLatencies = new Values();
+		final Values averageLatencies = new Values();
+		final Values intervalThroughputs = new Values();
+		final Values runThroughputs = new Values();
+
+		/**
+		 * @param name is the name of the run.
+		 */
+		Measures(String name) {
+			this.name = name;
+		}
+
+		/** Replies the name of the run.
+		 * 
+		 * @return the name.
+		 */
+		public String getName() {
+			return this.name;
+		}
+
+		/** Replies the latencies of the run.
+		 * 
+		 * @return the durations in nanoseconds.
+		 */
+		public double[] getLatencies() {
+			return this.rawLatencies.size()>0 ? this.rawLatencies.toArray() : this.averageLatencies.toArray();
+		}
+
+		/** Replies the throughputs of the run.
+		 * 
+		 * @return the numbers of calls per second.
+		 */
+		public double[] getThroughputs() {
+			return this.intervalThroughputs.size()>0 ? this.intervalThroughputs.toArray() : this.runThroughputs.toArray();
+		}
+
+	}
+
+	/** Growable array of values.
+	 * 
+	 * @author $Author: sgalland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 2.0.0
+	 */
+	static class Values {
+
+		private double[] values = new double[16];
+		private int size = 0;
+
+		/** Add a value.
+		 * 
+		 * @param value is the value.
+		 */
+		public void add(double value) {
+			if (this.size==this.values.length) {
+				this.values = Arrays.copyOf(this.values, this.size * 2);
+			}
+			this.values[this.size++] = value;
+		}
+
+		/** Replies the number of values.
+		 * 
+		 * @return the number of values.
+		 */
+		public int size() {
+			return this.size;
+		}
+
+		/** Replies the values.
+		 * 
+		 * @return a copy of the values.
+		 */
+		public double[] toArray() {
+			return Arrays.copyOf(this.values, this.size);
+		}
+
+	}
+
+}
\ No newline at end of file
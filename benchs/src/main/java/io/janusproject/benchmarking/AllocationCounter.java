@@ -0,0 +1,85 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+/** Counter of the bytes that are allocated in the heap by the current thread.
+ * <p>
+ * The counter is based on the extension of the thread management bean of
+ * the HotSpot virtual machines. On the other virtual machines, the
+ * allocations are not counted.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public final class AllocationCounter {
+
+	private static final com.sun.management.ThreadMXBean BEAN = getBean();
+
+	private AllocationCounter() {
+		//
+	}
+
+	private static com.sun.management.ThreadMXBean getBean() {
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean instanceof com.sun.management.ThreadMXBean) {
+				com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean)bean;
+				if (sunBean.isThreadAllocatedMemorySupported()) {
+					if (!sunBean.isThreadAllocatedMemoryEnabled()) {
+						sunBean.setThreadAllocatedMemoryEnabled(true);
+					}
+					return sunBean;
+				}
+			}
+		}
+		catch(Throwable _) {
+			//
+		}
+		return null;
+	}
+
+	/** Replies if the allocations are counted by the virtual machine.
+	 * 
+	 * @return <code>true</code> if the allocations are counted.
+	 */
+	public static boolean isSupported() {
+		return BEAN!=null;
+	}
+
+	/** Replies the number of bytes that were allocated by the current
+	 * thread since its start.
+	 * 
+	 * @return the number of bytes, or {@code -1} if the allocations
+	 * are not counted.
+	 */
+	public static long getAllocatedBytes() {
+		if (BEAN==null) {
+			return -1;
+		}
+		return BEAN.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+}
\ No newline at end of file
@@ -29,6 +29,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Logger;
 
 import org.arakhne.afc.vmutil.locale.Locale;
@@ -55,14 +56,28 @@ public abstract class Bench<R extends BenchRun> {
 	private final File outputDirectory;
 	private int nbCalls = BenchConstants.DEFAULT_TEST_NUMBER;
 	private int nbRuns = BenchConstants.DEFAULT_RUN_NUMBER;
+	private boolean callRecording = false;
+	private boolean reportingOnly = false;
+	private boolean callOverheadCompensation = true;
+	private double callOverhead = 0.;
+	private int warmupBatchNumber = 0;
+	private int warmupBatchSize = BenchConstants.DEFAULT_WARMUP_BATCH_SIZE;
+	private double steadyStateThreshold = 0.;
+	private long throughputDuration = 0;
+	private long throughputInterval = 0;
+	private final int forcedCallNumber = Integer.getInteger(BenchConstants.CALL_NUMBER_PROPERTY, 0).intValue();
+	private final int forcedRunNumber = Integer.getInteger(BenchConstants.RUN_NUMBER_PROPERTY, 0).intValue();
+	private boolean forcedCounts = true;
 	
 	private Collection<R> ranges = Collections.emptyList();
 	
 	private final List<R> runs = new LinkedList<>();
 	
-	private R currentRun = null;
+	private volatile R currentRun = null;
 	
 	private final OperatingSystemMXBean osBean;
+
+	private BenchEventChannel eventChannel = null;
 	
 	/**
 	 * @param directory is the directory that shold contains the CSV file.
@@ -138,13 +153,15 @@ public abstract class Bench<R extends BenchRun> {
 		return this.osBean.getAvailableProcessors();
 	}
 
-	// Invoked by reflection
+	// Invoked through a method handle for calibrating the invocations
 	@SuppressWarnings("unused")
 	private void doIddle() {
 		//
 	}
 	
 	/** Replies the current run.
+	 * The current run may be read by the threads that are receiving
+	 * the events of the benched layers.
 	 * 
 	 * @return the current run.
 	 */
@@ -152,7 +169,11 @@ public abstract class Bench<R extends BenchRun> {
 		return this.currentRun;
 	}
 	
-	private void setCurrentRun(R run) {
+	/** Change the current run.
+	 * 
+	 * @param run is the current run.
+	 */
+	void setCurrentRun(R run) {
 		this.currentRun = run;
 	}
 	
@@ -173,20 +194,43 @@ public abstract class Bench<R extends BenchRun> {
 	 * Each benchmarking function is invoked the number of times
 	 * given by the parameter. This enable us to obtain
 	 * better time consumption computation.
+	 * <p>
+	 * The number may be forced with the system property
+	 * {@link BenchConstants#CALL_NUMBER_PROPERTY}, except for the
+	 * bench functions that are {@link #setForcedCounts(boolean) fixing their counts}.
 	 * 
 	 * @return the number of tests to run for each benchmark.
 	 */
 	protected int getNumberOfCalls() {
-		return this.nbCalls;
+		return this.forcedCounts && this.forcedCallNumber>0 ? this.forcedCallNumber : this.nbCalls;
 	}
 
 	/** Replies the number of times the bench was initialized, run and
 	 * disposed.
+	 * <p>
+	 * The number may be forced with the system property
+	 * {@link BenchConstants#RUN_NUMBER_PROPERTY}, except for the
+	 * bench functions that are {@link #setForcedCounts(boolean) fixing their counts}.
 	 * 
 	 * @return the number of runs
 	 */
 	protected int getNumberOfRuns() {
-		return this.nbRuns;
+		return this.forcedCounts && this.forcedRunNumber>0 ? this.forcedRunNumber : this.nbRuns;
+	}
+
+	/** Set if the numbers of calls and runs of the current bench function
+	 * may be forced with the system properties {@link BenchConstants#CALL_NUMBER_PROPERTY}
+	 * and {@link BenchConstants#RUN_NUMBER_PROPERTY}.
+	 * <p>
+	 * The counts may be forced by default. A bench function whose
+	 * counts are part of its protocol, e.g. a call that is a burst of
+	 * messages, disables it in {@link #onStartDeclaredBenchFunction(String)};
+	 * it is enabled again before the next function.
+	 * 
+	 * @param forced is <code>true</code> if the counts may be forced.
+	 */
+	protected void setForcedCounts(boolean forced) {
+		this.forcedCounts = forced;
 	}
 
 	/** Set the number of times the bench was initialized, run and
@@ -200,6 +244,187 @@ public abstract class Bench<R extends BenchRun> {
 		}
 	}
 	
+	/** Replies if the duration of each call to the benchmarking function
+	 * is recorded into the histogram of the run.
+	 * 
+	 * @return <code>true</code> if the calls are recorded one by one,
+	 * <code>false</code> if only the global duration of the calls is measured.
+	 * @see BenchRun#getCallHistogram()
+	 */
+	public boolean isCallRecording() {
+		return this.callRecording;
+	}
+
+	/** Set if the duration of each call to the benchmarking function
+	 * is recorded into the histogram of the run.
+	 * <p>
+	 * When the calls are recorded, the time is read before and after
+	 * each call, and the durations of the runs are the sums of the
+	 * durations of the calls.
+	 * 
+	 * @param record is <code>true</code> if the calls are recorded one by one,
+	 * <code>false</code> if only the global duration of the calls is measured.
+	 */
+	protected void setCallRecording(boolean record) {
+		this.callRecording = record;
+	}
+
+	/** Replies if the bench is only reporting the results of runs
+	 * that are executed elsewhere, e.g. in the virtual machines that
+	 * are forked by JMH.
+	 * <p>
+	 * Such a bench determines its runs and writes their results, but
+	 * it must not allocate the resources that are used by the calls
+	 * to the benchmarking functions, e.g. the network peers.
+	 * 
+	 * @return <code>true</code> if the bench functions are not invoked
+	 * by this bench.
+	 */
+	public boolean isReportingOnly() {
+		return this.reportingOnly;
+	}
+
+	/** Set if the bench is only reporting the results of runs
+	 * that are executed elsewhere.
+	 * 
+	 * @param reportingOnly is <code>true</code> if the bench functions
+	 * are not invoked by this bench.
+	 */
+	void setReportingOnly(boolean reportingOnly) {
+		this.reportingOnly = reportingOnly;
+	}
+
+	/** Replies if the cost of the invocation of the benchmarking functions
+	 * is measured when the bench is starting, and removed from the
+	 * measured durations.
+	 * 
+	 * @return <code>true</code> if the invocation overhead is removed
+	 * from the durations.
+	 * @see #getCallOverhead()
+	 */
+	public boolean isCallOverheadCompensation() {
+		return this.callOverheadCompensation;
+	}
+
+	/** Set if the cost of the invocation of the benchmarking functions
+	 * is measured when the bench is starting, and removed from the
+	 * measured durations.
+	 * 
+	 * @param compensate is <code>true</code> if the invocation overhead is
+	 * removed from the durations.
+	 */
+	protected void setCallOverheadCompensation(boolean compensate) {
+		this.callOverheadCompensation = compensate;
+	}
+
+	/** Replies the measured cost of one invocation of an empty
+	 * benchmarking function.
+	 * 
+	 * @return the nano time that is removed from the duration of each
+	 * call, or {@code 0} if the overhead is not compensated.
+	 */
+	public double getCallOverhead() {
+		return this.callOverhead;
+	}
+
+	/** Replies the minimal number of warmup batches that are run before
+	 * the measurements of each run.
+	 * 
+	 * @return the number of warmup batches; {@code 0} if there is no warmup,
+	 * which is the default.
+	 */
+	public int getWarmupBatchNumber() {
+		return this.warmupBatchNumber;
+	}
+
+	/** Replies the number of calls in each warmup batch.
+	 * 
+	 * @return the number of calls in a warmup batch.
+	 */
+	public int getWarmupBatchSize() {
+		return this.warmupBatchSize;
+	}
+
+	/** Set the warmup that is run before the measurements of each run.
+	 * The durations of the warmup calls are discarded.
+	 * <p>
+	 * The warmup is disabled by default; the benchs that need it enable it,
+	 * e.g. with {@link BenchConstants#DEFAULT_WARMUP_BATCH_NUMBER}.
+	 * 
+	 * @param batches is the minimal number of warmup batches; {@code 0} to disable the warmup.
+	 * @param batchSize is the number of calls in each warmup batch.
+	 */
+	protected void setWarmup(int batches, int batchSize) {
+		if (batches>=0) {
+			this.warmupBatchNumber = batches;
+		}
+		if (batchSize>0) {
+			this.warmupBatchSize = batchSize;
+		}
+	}
+
+	/** Replies the threshold of the coefficient of variation of the successive
+	 * warmup batches under which the steady state is assumed.
+	 * 
+	 * @return the threshold, or {@code 0} if the steady state is not detected.
+	 */
+	public double getSteadyStateThreshold() {
+		return this.steadyStateThreshold;
+	}
+
+	/** Set the threshold of the coefficient of variation of the successive
+	 * warmup batches under which the steady state is assumed.
+	 * <p>
+	 * When the threshold is positive, the warmup continues after the minimal number
+	 * of batches until the coefficient of variation of the
+	 * {@link BenchConstants#STEADY_STATE_WINDOW last batches} is lower than
+	 * the threshold, or until {@link BenchConstants#MAX_WARMUP_BATCH_NUMBER} batches
+	 * were run.
+	 * 
+	 * @param threshold is the threshold, or {@code 0} for disabling the detection.
+	 * @see BenchConstants#DEFAULT_STEADY_STATE_THRESHOLD
+	 */
+	protected void setSteadyStateThreshold(double threshold) {
+		this.steadyStateThreshold = Math.max(0., threshold);
+	}
+
+	/** Replies if the bench is measuring the number of operations
+	 * per second during a fixed time, in place of the duration of a
+	 * fixed number of calls.
+	 * 
+	 * @return <code>true</code> if the throughput is measured.
+	 */
+	public boolean isThroughputMode() {
+		return this.throughputDuration>0;
+	}
+
+	/** Set if the bench is measuring the number of operations
+	 * per second during a fixed time, in place of the duration of a
+	 * fixed number of calls.
+	 * <p>
+	 * In this mode, each run invokes the benchmarking function until
+	 * the given duration is elapsed, and the number of calls is
+	 * measured on each interval. The number of calls given by
+	 * {@link #setNumberOfCalls(int)} is ignored.
+	 * 
+	 * @param duration is the duration of a run in ms; {@code 0} for
+	 * going back to the fixed number of calls.
+	 * @param interval is the duration of the measurement intervals in ms.
+	 * @see BenchConstants#PER_SECOND_BENCH_DURATION
+	 * @see BenchConstants#PER_SECOND_BENCH_INTERVAL
+	 */
+	protected void setThroughputMode(long duration, long interval) {
+		if (duration>0) {
+			this.throughputDuration = TimeUnit.MILLISECONDS.toNanos(duration);
+			this.throughputInterval = TimeUnit.MILLISECONDS.toNanos(
+					interval>0 ? Math.min(interval, duration) : duration);
+		}
+		else {
+			this.throughputDuration = 0;
+			this.throughputInterval = 0;
+		}
+	}
+
 	/** Invoked when the bench class is starting.
 	 * @throws Exception
 	 */
@@ -230,6 +455,24 @@ public abstract class Bench<R extends BenchRun> {
 		//
 	}
 
+	/** Invoked before the warmup of a run.
+	 * 
+	 * @param run is the description of the run of the bench to warm up. 
+	 * @throws Exception
+	 */
+	public void onStartWarmup(R run) throws Exception {
+		//
+	}
+
+	/** Invoked after the warmup of a run.
+	 * 
+	 * @param run is the description of the warmed up run. 
+	 * @throws Exception
+	 */
+	public void onEndWarmup(R run) throws Exception {
+		//
+	}
+
 	/** Invoked to initialize a bench when it is multi-run-based.
 	 * 
 	 * @param run is the description of the run of the bench to execute. 
@@ -274,6 +517,31 @@ public abstract class Bench<R extends BenchRun> {
 		return this.runs;
 	}
 	
+	/** Forget the terminated runs and the run ranges of the
+	 * previous bench function.
+	 */
+	void clearRuns() {
+		this.runs.clear();
+		this.ranges = Collections.emptyList();
+	}
+	
+	/** Set the channel on which the events of the bench are sent.
+	 * 
+	 * @param channel is the channel, or <code>null</code>.
+	 */
+	void setEventChannel(BenchEventChannel channel) {
+		this.eventChannel = channel;
+	}
+
+	/** Replies if the process that has launched the bench has requested
+	 * to stop it. The bench is stopped after the current run.
+	 * 
+	 * @return <code>true</code> if the bench must be stopped.
+	 */
+	private boolean isAbortRequested() {
+		return this.eventChannel!=null && this.eventChannel.isAbortRequested();
+	}
+
 	private static String formatPercentage(float v) {
 		StringBuilder sb = new StringBuilder();
 		sb.append((int)v);
@@ -283,13 +551,13 @@ public abstract class Bench<R extends BenchRun> {
 		return sb.toString();
 	}
 
-	/** Run all the benchs of the class.
+	/** Replies the benchmarking functions that are declared in the
+	 * bench class and its super-classes.
 	 * 
-	 * @param taskStart is the first percentage dedicated to this task.
-	 * @param taskSize is the amount of the progression dedicated to this run
-	 * @throws Exception
+	 * @return the benchmarking functions, bound to this bench.
+	 * @throws IllegalAccessException if a function cannot be accessed.
 	 */
-	public final void runBenchs(float taskStart, float taskSize) throws Exception {
+	List<BenchFunction> getBenchFunctions() throws IllegalAccessException {
 		// Retreive the hierarchy of classes.
 		List<Class<?>> classes = new LinkedList<>();
 		{
@@ -299,45 +567,308 @@ public abstract class Bench<R extends BenchRun> {
 				type = type.getSuperclass();
 			}
 		}
-		
-		Logger logger = Logger.getAnonymousLogger();
-		
-		initialize();
-		
-		List<Method> benchMethods = new ArrayList<>(); 
+		List<BenchFunction> benchFunctions = new ArrayList<>(); 
 		for(Class<?> type : classes) {
 			for(Method method : type.getDeclaredMethods()) {
 				if (method.getName().startsWith(PREFIX)) {
-					benchMethods.add(method);
+					if (method.getParameterTypes().length==0) {
+						benchFunctions.add(BenchFunction.bind(this, method,
+								method.getName().substring(PREFIX.length())));
+					}
+					else {
+						Logger.getAnonymousLogger().warning(Locale.getString(Bench.class,
+								"IGNORED_FUNCTION", type.getSimpleName(), method.getName())); //$NON-NLS-1$
+					}
+				}
+			}
+		}
+		return benchFunctions;
+	}
+
+	/** Invoke a function the given number of times, and
+	 * replies the elapsed time.
+	 * <p>
+	 * If the calls are recorded, the duration of each call is
+	 * given to the run. If the invocation overhead is compensated,
+	 * it is removed from the elapsed time.
+	 * 
+	 * @param function is the function to invoke.
+	 * @param run is the run that is recording the calls, or <code>null</code>
+	 * if the calls should not be recorded.
+	 * @param nbCalls is the number of calls.
+	 * @return the elapsed nano time, not scaled.
+	 * @throws Throwable
+	 */
+	private long runCalls(BenchFunction function, R run, int nbCalls) throws Throwable {
+		long startTime, endTime, elapsedTime;
+		if (run!=null && isCallRecording()) {
+			long overhead = Math.round(this.callOverhead);
+			elapsedTime = 0;
+			for(int i=0; i<nbCalls; ++i) {
+				startTime = System.nanoTime();
+				function.invoke();
+				endTime = System.nanoTime();
+				long duration = Math.max(0, endTime - startTime - overhead);
+				elapsedTime += duration;
+				run.recordCallDuration(Math.max(0,
+						(long)(run.getTimeScalingFactor()*duration)
+						+run.getTimeIncrement()));
+			}
+		}
+		else {
+			startTime = System.nanoTime();
+			for(int i=0; i<nbCalls; ++i) {
+				function.invoke();
+			}
+			endTime = System.nanoTime();
+			elapsedTime = Math.max(0, endTime - startTime - (long)(this.callOverhead*nbCalls));
+		}
+		return elapsedTime;
+	}
+
+	/** Invoke a function until the measurement intervals are elapsed,
+	 * and replies the elapsed time.
+	 * <p>
+	 * If the calls are recorded, the time between the ends of two successive
+	 * calls is given to the run.
+	 * 
+	 * @param function is the function to invoke.
+	 * @param run is the run that is recording the calls.
+	 * @param intervalCalls is filled with the numbers of calls that have
+	 * finished in each interval.
+	 * @param interval is the nano time of an interval.
+	 * @return the elapsed nano time, not scaled.
+	 * @throws Throwable
+	 */
+	private long runDuringIntervals(BenchFunction function, R run, long[] intervalCalls, long interval) throws Throwable {
+		boolean record = isCallRecording();
+		long startTime = System.nanoTime();
+		long intervalEnd = startTime + interval;
+		long previousTime = startTime;
+		long currentTime = startTime;
+		long calls = 0;
+		long intervalStart = 0;
+		int index = 0;
+		while (index<intervalCalls.length) {
+			function.invoke();
+			++calls;
+			currentTime = System.nanoTime();
+			if (record) {
+				run.recordCallDuration(Math.max(0,
+						(long)(run.getTimeScalingFactor()*(currentTime - previousTime))
+						+run.getTimeIncrement()));
+				previousTime = currentTime;
+			}
+			// A call may stall over several intervals
+			while (currentTime>=intervalEnd && index<intervalCalls.length) {
+				intervalCalls[index] = calls - intervalStart;
+				intervalStart = calls;
+				intervalEnd += interval;
+				++index;
+			}
+		}
+		return currentTime - startTime;
+	}
+
+	/** Run the warmup batches of the given run.
+	 * 
+	 * @param function is the function to invoke.
+	 * @param run is the run to warm up.
+	 * @throws Throwable
+	 */
+	private void warmup(BenchFunction function, R run) throws Throwable {
+		int minBatches = getWarmupBatchNumber();
+		int batchSize = getWarmupBatchSize();
+		double threshold = getSteadyStateThreshold();
+		int maxBatches = threshold>0. ? Math.max(minBatches, BenchConstants.MAX_WARMUP_BATCH_NUMBER) : minBatches;
+		double[] window = new double[BenchConstants.STEADY_STATE_WINDOW];
+		int batches = 0;
+		int steadyStateBatch = -1;
+		onStartWarmup(run);
+		while (batches<maxBatches) {
+			window[batches % window.length] = (double)runCalls(function, null, batchSize) / batchSize;
+			++batches;
+			if (batches>=minBatches) {
+				if (threshold<=0.) {
+					break;
+				}
+				if (batches>=window.length && coefficientOfVariation(window)<=threshold) {
+					steadyStateBatch = batches;
+					break;
+				}
+			}
+		}
+		onEndWarmup(run);
+		run.setWarmup(batches, (long)batches * batchSize, steadyStateBatch);
+	}
+
+	private static double coefficientOfVariation(double[] values) {
+		double mean = 0.;
+		for(double x : values) {
+			mean += x;
+		}
+		mean /= values.length;
+		if (mean<=0.) {
+			return 0.;
+		}
+		double variance = 0.;
+		for(double x : values) {
+			variance += (x-mean)*(x-mean);
+		}
+		variance /= values.length;
+		return Math.sqrt(variance) / mean;
+	}
+
+	/** Measure the cost of the invocation of an empty function,
+	 * with the same instrumentation as the benchmarking functions.
+	 * 
+	 * @return the lowest nano time per call among the calibration rounds.
+	 * @throws Throwable
+	 */
+	private double calibrateCallOverhead() throws Throwable {
+		BenchFunction idle = BenchFunction.bind(this, getIddleMethod(), "Iddle"); //$NON-NLS-1$
+		this.callOverhead = 0.;
+		double overhead = Double.MAX_VALUE;
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int round=0; round<BenchConstants.CALIBRATION_ROUND_NUMBER; ++round) {
+			double roundOverhead;
+			if (isCallRecording()) {
+				histogram.reset();
+				long startTime, endTime;
+				for(int i=0; i<BenchConstants.CALIBRATION_CALL_NUMBER; ++i) {
+					startTime = System.nanoTime();
+					idle.invoke();
+					endTime = System.nanoTime();
+					histogram.recordValue(endTime - startTime);
 				}
+				roundOverhead = histogram.getValueAtPercentile(50);
 			}
+			else {
+				roundOverhead = (double)runCalls(idle, null, BenchConstants.CALIBRATION_CALL_NUMBER)
+						/ BenchConstants.CALIBRATION_CALL_NUMBER;
+			}
+			overhead = Math.min(overhead, roundOverhead);
 		}
+		return overhead;
+	}
+
+	/** Measure the cost of the reflective invocation of an empty function,
+	 * with the same instrumentation as {@link #calibrateCallOverhead()}.
+	 * It is the cost of the invocation of the benchmarking functions
+	 * before they were bound to method handles; it is only reported.
+	 * 
+	 * @return the lowest nano time per call among the calibration rounds.
+	 * @throws Throwable
+	 */
+	private double calibrateReflectiveCallOverhead() throws Throwable {
+		Method idle = getIddleMethod();
+		idle.setAccessible(true);
+		double overhead = Double.MAX_VALUE;
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int round=0; round<BenchConstants.CALIBRATION_ROUND_NUMBER; ++round) {
+			double roundOverhead;
+			long startTime, endTime;
+			if (isCallRecording()) {
+				histogram.reset();
+				for(int i=0; i<BenchConstants.CALIBRATION_CALL_NUMBER; ++i) {
+					startTime = System.nanoTime();
+					idle.invoke(this);
+					endTime = System.nanoTime();
+					histogram.recordValue(endTime - startTime);
+				}
+				roundOverhead = histogram.getValueAtPercentile(50);
+			}
+			else {
+				startTime = System.nanoTime();
+				for(int i=0; i<BenchConstants.CALIBRATION_CALL_NUMBER; ++i) {
+					idle.invoke(this);
+				}
+				endTime = System.nanoTime();
+				roundOverhead = (double)(endTime - startTime) / BenchConstants.CALIBRATION_CALL_NUMBER;
+			}
+			overhead = Math.min(overhead, roundOverhead);
+		}
+		return overhead;
+	}
+
+	private static Method getIddleMethod() throws NoSuchMethodException {
+		return Bench.class.getDeclaredMethod("doIddle"); //$NON-NLS-1$
+	}
+
+	/** Run all the benchs of the class.
+	 * 
+	 * @param taskStart is the first percentage dedicated to this task.
+	 * @param taskSize is the amount of the progression dedicated to this run
+	 * @throws Exception
+	 */
+	public final void runBenchs(float taskStart, float taskSize) throws Exception {
+		Logger logger = Logger.getAnonymousLogger();
+		
+		initialize();
+		
+		List<BenchFunction> benchFunctions = getBenchFunctions();
 		
-		float taskStep = taskSize / benchMethods.size();
+		float taskStep = taskSize / benchFunctions.size();
 		float taskValue = taskStart;
 		String task = formatPercentage(taskValue);
 		
+		if (isCallOverheadCompensation()) {
+			try {
+				double overhead = calibrateCallOverhead();
+				this.callOverhead = overhead;
+				double reflectiveOverhead = calibrateReflectiveCallOverhead();
+				logger.info(Locale.getString("CALIBRATION", task, getClass().getSimpleName(), overhead, reflectiveOverhead)); //$NON-NLS-1$
+			}
+			catch(Throwable e) {
+				this.callOverhead = 0.;
+				logError(logger, "Iddle", e); //$NON-NLS-1$
+			}
+		}
+		else {
+			this.callOverhead = 0.;
+		}
 		
 		// Run the "bench" functions for each class
-		for(Method method : benchMethods) {
-			String groupName = method.getName().substring(PREFIX.length());
+		for(BenchFunction function : benchFunctions) {
+			String groupName = function.getName();
+			if (isAbortRequested()) {
+				logger.info(Locale.getString("ABORTED", task, getClass().getSimpleName())); //$NON-NLS-1$
+				break;
+			}
 			try {
-				long startTime, endTime;
-				int nbTests = getNumberOfCalls();
-				int nbRuns = getNumberOfRuns();
+				long elapsedTime;
 				
 				logger.info(Locale.getString("START_GROUP", task, getClass().getSimpleName(), groupName)); //$NON-NLS-1$
-				this.runs.clear();
-				this.ranges = Collections.emptyList();
+				clearRuns();
+				setForcedCounts(true);
 				onStartDeclaredBenchFunction(groupName);
+				// The configuration may be changed for each bench function
+				int nbTests = getNumberOfCalls();
+				int nbRuns = getNumberOfRuns();
+				boolean throughputMode = isThroughputMode();
+				long[] intervalCalls = throughputMode
+						? new long[(int)Math.max(1, this.throughputDuration / this.throughputInterval)]
+						: null;
 				Collection<R> runIterator = getRunRanges();
 				
 				float subTaskValue = taskValue;
 				float subTaskStep = taskStep / runIterator.size();
+				int rangeIndex = 0;
+				
+				if (this.eventChannel!=null) {
+					this.eventChannel.send(new BenchEvent(BenchEvent.Type.START_FUNCTION,
+							getClass().getSimpleName(), groupName, "", //$NON-NLS-1$
+							0, runIterator.size(), 0, nbRuns, taskValue, -1, -1, -1, -1));
+				}
 				
 				for(R run : runIterator) {
+					if (isAbortRequested()) {
+						break;
+					}
 					setCurrentRun(run);
 					long runDuration = 0;
+					long totalCalls = 0;
+					long totalElapsedTime = 0;
 					if (nbRuns>1) {
 						onStartRunInMany(run);
 					}
@@ -354,27 +885,61 @@ public abstract class Bench<R extends BenchRun> {
 						if (BenchConstants.INITIALIZATION_WAITING_TIME>0) {
 							Thread.sleep(BenchConstants.INITIALIZATION_WAITING_TIME);
 						}
+						if (idxRun==0 && getWarmupBatchNumber()>0) {
+							warmup(function, run);
+							logger.info(Locale.getString("WARMUP", task, getClass().getSimpleName(), run.toString(), run.getWarmupCallNumber(), run.getSteadyStateBatch())); //$NON-NLS-1$
+						}
 						logger.info(Locale.getString("START_BENCH", task, idxRun+1, nbRuns, getClass().getSimpleName(), run.toString())); //$NON-NLS-1$
-						startTime = System.nanoTime();
-						for(int i=0; i<nbTests; ++i) {
-							method.invoke(this);
+						if (isCallRecording()) {
+							// The histogram and the buffer of the raw durations must not be allocated during the measures
+							run.ensureCallHistogram();
+							run.ensureSampleCapacity(throughputMode ? BenchConstants.MAX_RAW_SAMPLE_NUMBER : nbTests);
+						}
+						long calls;
+						ResourceSnapshot startResources = ResourceSnapshot.take(this.osBean);
+						if (throughputMode) {
+							elapsedTime = runDuringIntervals(function, run, intervalCalls, this.throughputInterval);
+							run.addIntervalThroughputs(this.throughputInterval, intervalCalls);
+							calls = 0;
+							for(long c : intervalCalls) {
+								calls += c;
+							}
 						}
-						endTime = System.nanoTime();
+						else {
+							elapsedTime = runCalls(function, run, nbTests);
+							calls = nbTests;
+						}
+						run.addResourceUsage(startResources, ResourceSnapshot.take(this.osBean), calls);
+						totalCalls += calls;
+						totalElapsedTime += elapsedTime;
 						measurements[idxRun] = Math.max(0,
-								(long)(run.getTimeScalingFactor()*(endTime - startTime))
+								(long)(run.getTimeScalingFactor()*elapsedTime)
 								+run.getTimeIncrement());
 						runDuration += measurements[idxRun];
-						measurements[idxRun] = measurements[idxRun] / nbTests;
+						measurements[idxRun] = measurements[idxRun] / Math.max(1, calls);
 						if (nbRuns==1) {
 							run.setDurations(
 									runDuration,
 									measurements[idxRun],
 									0);
 						}
+						if (throughputMode) {
+							run.setThroughput(totalCalls * 1e9 / Math.max(1, totalElapsedTime));
+						}
 						onEndBenchCalls(run);
+						if (throughputMode && BenchConstants.PER_SECOND_BENCH_SLEEPING_DURATION>0) {
+							Thread.sleep(BenchConstants.PER_SECOND_BENCH_SLEEPING_DURATION);
+						}
 						subsubTaskValue += subsubTaskStep;
 						task = formatPercentage(subsubTaskValue);
 						logger.info(Locale.getString("END_BENCH", task, idxRun+1, nbRuns, getClass().getSimpleName(), run.toString())); //$NON-NLS-1$
+						if (this.eventChannel!=null) {
+							this.eventChannel.send(new BenchEvent(BenchEvent.Type.END_RUN,
+									getClass().getSimpleName(), groupName, run.toString(),
+									rangeIndex, runIterator.size(), idxRun, nbRuns, subsubTaskValue,
+									calls, elapsedTime, measurements[idxRun],
+									throughputMode ? calls * 1e9 / Math.max(1, elapsedTime) : -1));
+						}
 					}
 					{
 						double runAverage = (double)runDuration/nbRuns;
@@ -401,12 +966,20 @@ public abstract class Bench<R extends BenchRun> {
 					if (nbRuns>1) {
 						onEndRunOnMany(nbRuns, run);
 					}
+					if (this.eventChannel!=null) {
+						this.eventChannel.send(new BenchEvent(BenchEvent.Type.END_RANGE,
+								getClass().getSimpleName(), groupName, run.toString(),
+								rangeIndex, runIterator.size(), nbRuns, nbRuns, subsubTaskValue,
+								totalCalls, totalElapsedTime, run.getCallAverageDuration(),
+								throughputMode ? run.getThroughput() : -1));
+					}
 					setCurrentRun(null);
 					run = null;
 					for(int i=0; i<6; ++i) {
 						System.gc();
 					}
 					subTaskValue += subTaskStep;
+					++rangeIndex;
 				}
 			}
 			catch(Throwable e) {
@@ -414,12 +987,16 @@ public abstract class Bench<R extends BenchRun> {
 			}
 
 			onEndDeclaredBenchFunction();
-			this.runs.clear();
-			this.ranges = Collections.emptyList();
+			clearRuns();
 
 			taskValue += taskStep;
 			task = formatPercentage(taskValue);
 			logger.info(Locale.getString("END_GROUP", task, getClass().getSimpleName(), groupName)); //$NON-NLS-1$
+			if (this.eventChannel!=null) {
+				this.eventChannel.send(new BenchEvent(BenchEvent.Type.END_FUNCTION,
+						getClass().getSimpleName(), groupName, "", //$NON-NLS-1$
+						0, 0, 0, 0, taskValue, -1, -1, -1, -1));
+			}
 			
 		}
 		
@@ -0,0 +1,126 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/** Axis of a parameter sweep: a named parameter of the benched
+ * layers and the values that are taken by this parameter.
+ * <p>
+ * The runs of a bench function are generated by {@link BenchSweep}
+ * from the cartesian product of the values of the axes.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public final class BenchAxis {
+
+	private final String name;
+	private final List<Object> values;
+
+	/**
+	 * @param name is the name of the parameter.
+	 * @param values are the values of the parameter.
+	 */
+	private BenchAxis(String name, List<Object> values) {
+		this.name = name;
+		this.values = Collections.unmodifiableList(values);
+	}
+
+	/** Create an axis with the given values.
+	 * 
+	 * @param name is the name of the parameter.
+	 * @param values are the values of the parameter.
+	 * @return the axis.
+	 */
+	public static BenchAxis values(String name, Object... values) {
+		if (values.length==0) {
+			throw new IllegalArgumentException(name);
+		}
+		return new BenchAxis(name, new ArrayList<>(Arrays.asList(values)));
+	}
+
+	/** Create an axis with integer values that are distributed on segments.
+	 * <p>
+	 * The segments are described by pairs of integers: the upper bound
+	 * of the segment (inclusive), and the step between two successive values
+	 * in the segment. For example, the start {@code 0} and the segments
+	 * <code>{100, 10, 1000, 50}</code> give the values {@code 10}, {@code 20}, ...
+	 * {@code 100}, {@code 150}, ... {@code 1000}.
+	 * 
+	 * @param name is the name of the parameter.
+	 * @param start is the lower bound of the first segment (exclusive).
+	 * @param segments are the pairs of upper bound and step of the segments.
+	 * @return the axis.
+	 */
+	public static BenchAxis segments(String name, int start, int... segments) {
+		if (segments.length==0 || segments.length%2!=0) {
+			throw new IllegalArgumentException(name);
+		}
+		List<Object> values = new ArrayList<>();
+		int value = start;
+		for(int i=0; i<segments.length; i+=2) {
+			int end = segments[i];
+			int step = segments[i+1];
+			if (step<=0) {
+				throw new IllegalArgumentException(name);
+			}
+			while (value+step<=end) {
+				value += step;
+				values.add(value);
+			}
+		}
+		if (values.isEmpty()) {
+			throw new IllegalArgumentException(name);
+		}
+		return new BenchAxis(name, values);
+	}
+
+	/** Replies the name of the parameter.
+	 * 
+	 * @return the name.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/** Replies the values of the parameter.
+	 * 
+	 * @return the values.
+	 */
+	public List<Object> getValues() {
+		return this.values;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return this.name+"="+this.values; //$NON-NLS-1$
+	}
+
+}
\ No newline at end of file
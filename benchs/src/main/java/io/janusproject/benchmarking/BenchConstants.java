@@ -46,6 +46,182 @@ public class BenchConstants {
 	 */
 	public static final int MAX_MEMORY = 1024;
 
+	/** Number of runs when the bench should measure
+	 * number of operations per second.
+	 */
+	public static final int PER_SECOND_BENCH_RUN_NUMBER = 5;
+
+	/** Sleeping duration when the bench should measure
+	 * number of operations per second (in ms).
+	 * It is the time given to the benched layers to drain
+	 * their queues after each run.
+	 */
+	public static final int PER_SECOND_BENCH_SLEEPING_DURATION = 2000;
+
+	/** Duration of a run when the bench should measure
+	 * number of operations per second (in ms).
+	 */
+	public static final int PER_SECOND_BENCH_DURATION = 30000;
+
+	/** Duration of the intervals on which the number of operations
+	 * per second is measured during a run (in ms).
+	 */
+	public static final int PER_SECOND_BENCH_INTERVAL = 1000;
+
+	/** Default number of warmup batches that are run
+	 * before the measurements of a run, for the benchs that
+	 * enable the warmup. The durations of the warmup batches
+	 * are discarded.
+	 */
+	public static final int DEFAULT_WARMUP_BATCH_NUMBER = 10;
+
+	/** Default number of calls in a warmup batch.
+	 */
+	public static final int DEFAULT_WARMUP_BATCH_SIZE = 1000;
+
+	/** Maximal number of warmup batches when the warmup
+	 * continues until the steady state is detected.
+	 */
+	public static final int MAX_WARMUP_BATCH_NUMBER = 200;
+
+	/** Number of successive warmup batches on which the coefficient
+	 * of variation is computed for detecting the steady state.
+	 */
+	public static final int STEADY_STATE_WINDOW = 5;
+
+	/** Default threshold of the coefficient of variation of the successive
+	 * warmup batches under which the steady state is assumed.
+	 */
+	public static final double DEFAULT_STEADY_STATE_THRESHOLD = .05;
+
+	/** Number of calls to the empty function in each round
+	 * of the calibration of the invocation overhead.
+	 */
+	public static final int CALIBRATION_CALL_NUMBER = 100000;
+
+	/** Number of rounds of the calibration of the invocation overhead.
+	 * The lowest overhead among the rounds is kept.
+	 */
+	public static final int CALIBRATION_ROUND_NUMBER = 5;
+
+	/** Number of forked virtual machines per run
+	 * when the benchs are executed by JMH.
+	 */
+	public static final int JMH_FORK_NUMBER = 2;
+
+	/** Number of warmup iterations per fork
+	 * when the benchs are executed by JMH.
+	 */
+	public static final int JMH_WARMUP_ITERATION_NUMBER = 5;
+
+	/** Number of measurement iterations per fork
+	 * when the benchs are executed by JMH.
+	 */
+	public static final int JMH_MEASUREMENT_ITERATION_NUMBER = 10;
+
+	/** Duration of one iteration (in ms)
+	 * when the benchs are executed by JMH.
+	 */
+	public static final int JMH_ITERATION_DURATION = 1000;
+
+	/** Name of the system property that contains the number of calls
+	 * per run, in place of the number that is set by the benchs.
+	 */
+	public static final String CALL_NUMBER_PROPERTY = "BENCH_CALLS"; //$NON-NLS-1$
+
+	/** Name of the system property that contains the number of runs,
+	 * in place of the number that is set by the benchs.
+	 */
+	public static final String RUN_NUMBER_PROPERTY = "BENCH_RUNS"; //$NON-NLS-1$
+
+	/** Maximal number of raw durations of calls that are kept by a run
+	 * between two writings of the samples file; the next durations
+	 * are only recorded in the histogram of the run.
+	 */
+	public static final int MAX_RAW_SAMPLE_NUMBER = 1 << 22;
+
+	/** Name of the system property that indicates if the JEI is computed
+	 * before the benchs, for being written in the results.
+	 */
+	public static final String JEI_PROPERTY = "BENCH_JEI"; //$NON-NLS-1$
+
+	/** Name of the system property that contains the base score of the JEI.
+	 */
+	public static final String JEI_BASE_SCORE_PROPERTY = "JEI_BASE_SCORE"; //$NON-NLS-1$
+
+	/** Name of the system property that contains the CPU score of the JEI.
+	 */
+	public static final String JEI_CPU_SCORE_PROPERTY = "JEI_CPU_SCORE"; //$NON-NLS-1$
+
+	/** Name of the system property that contains the memory score of the JEI.
+	 */
+	public static final String JEI_MEMORY_SCORE_PROPERTY = "JEI_MEMORY_SCORE"; //$NON-NLS-1$
+
+	/** Name of the system property that contains the disk score of the JEI.
+	 */
+	public static final String JEI_DISK_SCORE_PROPERTY = "JEI_DISK_SCORE"; //$NON-NLS-1$
+
+	/** Default number of forked virtual machines in which each
+	 * bench class is run; the results of the forks are aggregated.
+	 */
+	public static final int DEFAULT_FORK_NUMBER = 1;
+
+	/** Default number of forked virtual machines that are run
+	 * at the same time.
+	 */
+	public static final int DEFAULT_PARALLEL_FORK_NUMBER = 1;
+
+	/** Name of the system property that contains the offset to add to the
+	 * ports that are opened on the local host, for running several benchs
+	 * at the same time.
+	 */
+	public static final String PORT_OFFSET_PROPERTY = "BENCH_PORT_OFFSET"; //$NON-NLS-1$
+
+	/** Difference between the port offsets of two benchs that are
+	 * run at the same time.
+	 * @see #PORT_OFFSET_PROPERTY
+	 */
+	public static final int PORT_OFFSET_STEP = 100;
+
+	/** Name of the system property that contains the port on the local host
+	 * to which the events of a forked bench are sent.
+	 * @see BenchEventChannel
+	 */
+	public static final String EVENT_PORT_PROPERTY = "BENCH_EVENT_PORT"; //$NON-NLS-1$
+
+	/** Percentiles of the call durations that are reported when
+	 * the durations of the calls are recorded one by one.
+	 */
+	public static final double[] REPORTED_PERCENTILES = new double[] {
+		50., 90., 99., 99.9
+	};
+
+	/** Greatest number of raw durations of a run on which the robust
+	 * statistics are computed. When more durations are recorded, the
+	 * statistics are computed on a uniform random sample of them.
+	 * @see RobustStatistics
+	 */
+	public static final int STATISTICS_SAMPLE_NUMBER = 1 << 15;
+
+	/** Proportion of the lowest and of the highest durations that are
+	 * ignored by the trimmed mean.
+	 */
+	public static final double TRIMMED_MEAN_PROPORTION = .1;
+
+	/** Number of resamples of the bootstrap of the confidence
+	 * interval of the median.
+	 */
+	public static final int BOOTSTRAP_RESAMPLE_NUMBER = 1000;
+
+	/** Level of the confidence interval of the median.
+	 */
+	public static final double CONFIDENCE_LEVEL = .95;
+
+	/** Factor of the interquartile range that gives the fences
+	 * of Tukey, beyond which the durations are outliers.
+	 */
+	public static final double OUTLIER_FENCE_FACTOR = 1.5;
+
 //	/**
 //	 *  Delay for the insertion of a message into the black hole mailbox.
 //	 */
@@ -61,16 +237,6 @@ public class BenchConstants {
 //	 */
 //	public static final int RESETTING_RUN_NUMBER = 5000;
 //
-//	/** Number of runs when the bench should measure
-//	 * number of operations per second.
-//	 */
-//	public static final int PER_SECOND_BENCH_RUN_NUMBER = 5;
-//
-//	/** Sleeping duration when the bench should measure
-//	 * number of operations per second (in ms).
-//	 */
-//	public static final int PER_SECOND_BENCH_SLEEPING_DURATION = 2000;
-//	
 //	/** First point of the benchmarking intervals for messages.
 //	 */
 //	public static final int MESSAGE_INTERVAL_START = 0;
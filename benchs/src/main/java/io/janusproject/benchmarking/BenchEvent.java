@@ -0,0 +1,280 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/** Event that is sent by a bench to the process that has launched it.
+ * <p>
+ * The events are binary records that are written by {@link BenchEventChannel}:
+ * the type of the event, the names of the bench, the function and the run,
+ * the position of the run, the progression, and the measures of the run.
+ * The measures are equal to {@code -1} when they are not known.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public final class BenchEvent {
+
+	/** Magic number that starts a stream of events ("JBE1").
+	 */
+	public static final int MAGIC_NUMBER = 0x4A424531;
+
+	/** Byte that is sent to a bench for aborting it.
+	 */
+	public static final int ABORT = 1;
+
+	/** Type of an event.
+	 * 
+	 * @author $Author: sgalland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 2.0.0
+	 */
+	public enum Type {
+		/** A bench function is started. */
+		START_FUNCTION,
+		/** A run of a bench function is terminated. */
+		END_RUN,
+		/** All the repetitions of a run are terminated; the measures
+		 * are the statistics of the run, e.g. the average duration of
+		 * the calls or the average transit time of the messages.
+		 */
+		END_RANGE,
+		/** A bench function is terminated. */
+		END_FUNCTION;
+	}
+
+	private final Type type;
+	private final String benchName;
+	private final String functionName;
+	private final String runName;
+	private final int rangeIndex;
+	private final int rangeNumber;
+	private final int runIndex;
+	private final int runNumber;
+	private final float progression;
+	private final long calls;
+	private final long elapsedTime;
+	private final long callDuration;
+	private final double throughput;
+
+	/**
+	 * @param type is the type of the event.
+	 * @param benchName is the name of the bench.
+	 * @param functionName is the name of the bench function.
+	 * @param runName is the name of the run, or the empty string.
+	 * @param rangeIndex is the index of the run in the runs of the function.
+	 * @param rangeNumber is the number of runs of the function.
+	 * @param runIndex is the index of the repetition of the run.
+	 * @param runNumber is the number of repetitions of the run.
+	 * @param progression is the progression of the benchs, in percent.
+	 * @param calls is the number of measured calls.
+	 * @param elapsedTime is the measured time in nanoseconds.
+	 * @param callDuration is the duration of a call in nanoseconds.
+	 * @param throughput is the number of calls per second.
+	 */
+	public BenchEvent(Type type, String benchName, String functionName, String runName,
+			int rangeIndex, int rangeNumber, int runIndex, int runNumber, float progression,
+			long calls, long elapsedTime, long callDuration, double throughput) {
+		this.type = type;
+		this.benchName = benchName;
+		this.functionName = functionName;
+		this.runName = runName;
+		this.rangeIndex = rangeIndex;
+		this.rangeNumber = rangeNumber;
+		this.runIndex = runIndex;
+		this.runNumber = runNumber;
+		this.progression = progression;
+		this.calls = calls;
+		this.elapsedTime = elapsedTime;
+		this.callDuration = callDuration;
+		this.throughput = throughput;
+	}
+
+	/** Read an event.
+	 * 
+	 * @param input is the stream to read.
+	 * @return the event.
+	 * @throws IOException
+	 */
+	public static BenchEvent read(DataInputStream input) throws IOException {
+		int ordinal = input.readUnsignedByte();
+		Type[] types = Type.values();
+		if (ordinal>=types.length) {
+			throw new IOException(Integer.toString(ordinal));
+		}
+		return new BenchEvent(
+				types[ordinal],
+				input.readUTF(),
+				input.readUTF(),
+				input.readUTF(),
+				input.readInt(),
+				input.readInt(),
+				input.readInt(),
+				input.readInt(),
+				input.readFloat(),
+				input.readLong(),
+				input.readLong(),
+				input.readLong(),
+				input.readDouble());
+	}
+
+	/** Write this event.
+	 * 
+	 * @param output is the stream to write.
+	 * @throws IOException
+	 */
+	public void write(DataOutputStream output) throws IOException {
+		output.writeByte(this.type.ordinal());
+		output.writeUTF(this.benchName);
+		output.writeUTF(this.functionName);
+		output.writeUTF(this.runName);
+		output.writeInt(this.rangeIndex);
+		output.writeInt(this.rangeNumber);
+		output.writeInt(this.runIndex);
+		output.writeInt(this.runNumber);
+		output.writeFloat(this.progression);
+		output.writeLong(this.calls);
+		output.writeLong(this.elapsedTime);
+		output.writeLong(this.callDuration);
+		output.writeDouble(this.throughput);
+	}
+
+	/** Replies the type of the event.
+	 * 
+	 * @return the type.
+	 */
+	public Type getType() {
+		return this.type;
+	}
+
+	/** Replies the name of the bench.
+	 * 
+	 * @return the simple name of the bench class.
+	 */
+	public String getBenchName() {
+		return this.benchName;
+	}
+
+	/** Replies the name of the bench function.
+	 * 
+	 * @return the name of the function.
+	 */
+	public String getFunctionName() {
+		return this.functionName;
+	}
+
+	/** Replies the name of the run.
+	 * 
+	 * @return the name of the run, or the empty string.
+	 */
+	public String getRunName() {
+		return this.runName;
+	}
+
+	/** Replies the index of the run in the runs of the function.
+	 * 
+	 * @return the index of the run.
+	 */
+	public int getRangeIndex() {
+		return this.rangeIndex;
+	}
+
+	/** Replies the number of runs of the function.
+	 * 
+	 * @return the number of runs.
+	 */
+	public int getRangeNumber() {
+		return this.rangeNumber;
+	}
+
+	/** Replies the index of the repetition of the run.
+	 * 
+	 * @return the index of the repetition.
+	 */
+	public int getRunIndex() {
+		return this.runIndex;
+	}
+
+	/** Replies the number of repetitions of the run.
+	 * 
+	 * @return the number of repetitions.
+	 */
+	public int getRunNumber() {
+		return this.runNumber;
+	}
+
+	/** Replies the progression of the benchs.
+	 * 
+	 * @return the progression, in percent.
+	 */
+	public float getProgression() {
+		return this.progression;
+	}
+
+	/** Replies the number of measured calls.
+	 * 
+	 * @return the number of calls.
+	 */
+	public long getCalls() {
+		return this.calls;
+	}
+
+	/** Replies the measured time.
+	 * 
+	 * @return the time in nanoseconds.
+	 */
+	public long getElapsedTime() {
+		return this.elapsedTime;
+	}
+
+	/** Replies the duration of a call.
+	 * 
+	 * @return the duration in nanoseconds.
+	 */
+	public long getCallDuration() {
+		return this.callDuration;
+	}
+
+	/** Replies the throughput of the run.
+	 * 
+	 * @return the number of calls per second, or {@code -1} if the
+	 * run is not in throughput mode.
+	 */
+	public double getThroughput() {
+		return this.throughput;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return this.type+" "+this.benchName+"."+this.functionName+" "+this.runName; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+	}
+
+}
\ No newline at end of file
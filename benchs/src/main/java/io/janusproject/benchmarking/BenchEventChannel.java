@@ -0,0 +1,128 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/** Channel on which a forked bench sends its events to the process
+ * that has launched it, and receives the abort requests.
+ * <p>
+ * The channel is connected to the port on the local host that is given by
+ * the system property {@value BenchConstants#EVENT_PORT_PROPERTY}. The
+ * stream starts with {@link BenchEvent#MAGIC_NUMBER}, and it is followed by the
+ * {@link BenchEvent events}. The launching process may send the byte
+ * {@link BenchEvent#ABORT} for stopping the bench after the current run.
+ * <p>
+ * The errors of the channel are not stopping the bench: the events are
+ * no more sent.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+final class BenchEventChannel implements AutoCloseable {
+
+	private final Socket socket;
+	private DataOutputStream output;
+	private volatile boolean abortRequested = false;
+
+	private BenchEventChannel(Socket socket) throws IOException {
+		this.socket = socket;
+		this.output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		this.output.writeInt(BenchEvent.MAGIC_NUMBER);
+		this.output.flush();
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					InputStream input = BenchEventChannel.this.socket.getInputStream();
+					int request = input.read();
+					while (request>=0) {
+						if (request==BenchEvent.ABORT) {
+							BenchEventChannel.this.abortRequested = true;
+						}
+						request = input.read();
+					}
+				}
+				catch(IOException _) {
+					//
+				}
+			}
+		}, "Bench event channel"); //$NON-NLS-1$
+		reader.setDaemon(true);
+		reader.start();
+	}
+
+	/** Connect to the launching process.
+	 * 
+	 * @return the channel, or <code>null</code> if the bench was not launched
+	 * with an event port, or if the connection has failed.
+	 */
+	public static BenchEventChannel open() {
+		Integer port = Integer.getInteger(BenchConstants.EVENT_PORT_PROPERTY);
+		if (port!=null && port.intValue()>0) {
+			try {
+				return new BenchEventChannel(new Socket(InetAddress.getLoopbackAddress(), port.intValue()));
+			}
+			catch(IOException e) {
+				e.printStackTrace();
+			}
+		}
+		return null;
+	}
+
+	/** Replies if the launching process has requested to stop the bench.
+	 * 
+	 * @return <code>true</code> if the bench must be stopped.
+	 */
+	public boolean isAbortRequested() {
+		return this.abortRequested;
+	}
+
+	/** Send an event.
+	 * 
+	 * @param event is the event to send.
+	 */
+	public synchronized void send(BenchEvent event) {
+		if (this.output!=null) {
+			try {
+				event.write(this.output);
+				this.output.flush();
+			}
+			catch(IOException _) {
+				this.output = null;
+			}
+		}
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		this.output = null;
+		this.socket.close();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,103 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+
+/** A benchmarking function that is bound to its bench.
+ * <p>
+ * The function is resolved once to a method handle that does not
+ * need the access checks, the boxing and the argument arrays
+ * of the reflective invocations. The handle is not a constant for the
+ * JIT compiler, so the function is not inlined into the loop of calls;
+ * the cost of the invocation is measured by the calibration of {@link Bench},
+ * and compared to the cost of a reflective invocation.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+final class BenchFunction {
+
+	private static final MethodType TYPE = MethodType.methodType(void.class);
+
+	private final String name;
+
+	/** Handle of type <code>()void</code>, which is bound to the bench.
+	 */
+	private final MethodHandle handle;
+
+	/**
+	 * @param name is the name of the function.
+	 * @param handle is the handle to invoke, of type <code>()void</code>.
+	 */
+	private BenchFunction(String name, MethodHandle handle) {
+		this.name = name;
+		this.handle = handle;
+	}
+
+	/** Bind the given method to the given bench.
+	 * 
+	 * @param bench is the instance on which the method is invoked.
+	 * @param method is the method to bind. It must not have formal parameter.
+	 * @param name is the name of the function.
+	 * @return the function.
+	 * @throws IllegalAccessException if the method cannot be accessed.
+	 */
+	public static BenchFunction bind(Object bench, Method method, String name) throws IllegalAccessException {
+		method.setAccessible(true);
+		MethodHandle handle = MethodHandles.lookup().unreflect(method);
+		if (!Modifier.isStatic(method.getModifiers())) {
+			handle = handle.bindTo(bench);
+		}
+		return new BenchFunction(name, handle.asType(TYPE));
+	}
+
+	/** Replies the name of the function.
+	 * 
+	 * @return the name.
+	 */
+	public String getName() {
+		return this.name;
+	}
+
+	/** Invoke the function.
+	 * 
+	 * @throws Throwable
+	 */
+	public void invoke() throws Throwable {
+		this.handle.invokeExact();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String toString() {
+		return this.name;
+	}
+
+}
\ No newline at end of file
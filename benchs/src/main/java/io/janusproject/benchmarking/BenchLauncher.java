@@ -23,6 +23,9 @@ import java.io.File;
 import java.lang.reflect.Constructor;
 
 /** Run the benchs.
+ * <p>
+ * When the system property {@value BenchConstants#EVENT_PORT_PROPERTY} is set,
+ * the events of the benchs are sent to the launching process.
  * 
  * @author $Author: sgalland$
  * @version $FullVersion$
@@ -42,12 +45,14 @@ public class BenchLauncher {
 		float progression = Float.parseFloat(args[1]);
 		float progressionWindow = Float.parseFloat(args[2]);
 		float progressionPerClass = progressionWindow / (args.length - 3);
-		for(int i=3; i<args.length; ++i) {
+		BenchEventChannel channel = BenchEventChannel.open();
+		for(int i=3; i<args.length && (channel==null || !channel.isAbortRequested()); ++i) {
 			Class<?> type = Class.forName(args[i]);
 			if (Bench.class.isAssignableFrom(type)) {
 				Class<? extends Bench<?>> benchType = (Class<? extends Bench<?>>)type; 
 				Constructor<? extends Bench<?>> cons = benchType.getConstructor(File.class);
 				Bench<?> bench = cons.newInstance(output);
+				bench.setEventChannel(channel);
 				bench.runBenchs(progression, progressionPerClass);
 				bench = null;
 				for(int j=0; j<6; ++j) {
@@ -56,6 +61,9 @@ public class BenchLauncher {
 			}
 			progression += progressionPerClass;
 		}
+		if (channel!=null) {
+			channel.close();
+		}
 		System.exit(0);
 	}
 	
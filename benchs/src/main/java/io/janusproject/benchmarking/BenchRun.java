@@ -19,6 +19,14 @@
  */
 package io.janusproject.benchmarking;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
 /** This class describes a run of a bench.
  * 
  * @author $Author: sgalland$
@@ -29,12 +37,41 @@ package io.janusproject.benchmarking;
  */
 public class BenchRun {
 
+	private static final long STATISTIC_SEED = 7841L;
+
 	private String name;
 	private long durationPerCall = -1;
 	private long runDuration = -1;
 	private double callStandardDeviation = 0;
 	private float timeScalingFactor = 1f;
 	private long timeIncrement = 0;
+	private LatencyHistogram callHistogram = null;
+	private long[] samples = null;
+	private int sampleNumber = 0;
+	private long droppedSampleNumber = 0;
+	private long[] statisticSamples = null;
+	private int statisticSampleNumber = 0;
+	private long statisticDurationNumber = 0;
+	private int sampledNumber = 0;
+	private Random statisticRandom = null;
+	private RobustStatistics robustStatistics = null;
+	private int warmupBatches = 0;
+	private long warmupCalls = 0;
+	private int steadyStateBatch = -1;
+	private double throughput = -1;
+	private long throughputInterval = 0;
+	private final List<double[]> intervalThroughputs = new ArrayList<>();
+	private final Map<String,Object> parameters = new LinkedHashMap<>();
+	private long allocatedBytes = 0;
+	private boolean allocationCounted = true;
+	private long measuredCalls = 0;
+	private long gcCount = 0;
+	private long gcTime = 0;
+	private long measuredTime = 0;
+	private long threadCpuTime = 0;
+	private long processCpuTime = 0;
+	private long voluntaryContextSwitches = 0;
+	private long involuntaryContextSwitches = 0;
 	
 	/**
 	 * @param name
@@ -59,6 +96,51 @@ public class BenchRun {
 		this.name = name;
 	}
 
+	/** Replies the parameters of the benched layers for this run,
+	 * in the order of the axes of the parameter sweep.
+	 * 
+	 * @return the parameters.
+	 * @see BenchSweep
+	 */
+	public Map<String,Object> getParameters() {
+		return Collections.unmodifiableMap(this.parameters);
+	}
+
+	/** Replies the value of a parameter of the benched layers.
+	 * 
+	 * @param name is the name of the parameter.
+	 * @return the value, or <code>null</code> if the parameter is not set.
+	 */
+	public Object getParameter(String name) {
+		return this.parameters.get(name);
+	}
+
+	/** Replies the integer value of a parameter of the benched layers.
+	 * 
+	 * @param name is the name of the parameter.
+	 * @param defaultValue is the value to reply if the parameter is not set.
+	 * @return the value.
+	 */
+	public int getIntParameter(String name, int defaultValue) {
+		Object value = this.parameters.get(name);
+		if (value instanceof Number) {
+			return ((Number)value).intValue();
+		}
+		if (value!=null) {
+			return Integer.parseInt(value.toString());
+		}
+		return defaultValue;
+	}
+
+	/** Set the value of a parameter of the benched layers.
+	 * 
+	 * @param name is the name of the parameter.
+	 * @param value is the value of the parameter.
+	 */
+	public void setParameter(String name, Object value) {
+		this.parameters.put(name, value);
+	}
+
 	/** Replies the duration of the bench run with
 	 * all the tests.
 	 * @return the nano time, or {@code -1} if the
@@ -85,6 +167,385 @@ public class BenchRun {
 		return this.callStandardDeviation;
 	}
 
+	/** Replies the histogram of the durations of the calls, if
+	 * the durations were recorded call by call.
+	 * 
+	 * @return the histogram, or <code>null</code> if the calls were
+	 * not recorded one by one.
+	 */
+	public LatencyHistogram getCallHistogram() {
+		return this.callHistogram;
+	}
+
+	/** Record the duration of one call.
+	 * <p>
+	 * The duration is already scaled with the time scaling factor
+	 * and the time increment of this run.
+	 * 
+	 * @param duration is the duration of the call.
+	 */
+	protected void recordCallDuration(long duration) {
+		ensureCallHistogram();
+		this.callHistogram.recordValue(duration);
+		if (this.samples==null || this.sampleNumber>=this.samples.length) {
+			ensureSampleCapacity(this.sampleNumber + 1);
+		}
+		if (this.sampleNumber<this.samples.length) {
+			this.samples[this.sampleNumber++] = duration;
+		}
+		else {
+			++this.droppedSampleNumber;
+		}
+	}
+
+	/** Ensure that the histogram of the durations of the calls is allocated,
+	 * so that the first recorded call does not pay for its allocation.
+	 */
+	void ensureCallHistogram() {
+		if (this.callHistogram==null) {
+			this.callHistogram = new LatencyHistogram();
+		}
+	}
+
+	/** Ensure that the given number of raw durations may be kept without
+	 * allocation, in the limit of {@link BenchConstants#MAX_RAW_SAMPLE_NUMBER}.
+	 * 
+	 * @param capacity is the number of durations.
+	 */
+	void ensureSampleCapacity(int capacity) {
+		int size = Math.min(capacity, BenchConstants.MAX_RAW_SAMPLE_NUMBER);
+		if (this.samples==null) {
+			this.samples = new long[size];
+		}
+		else if (this.samples.length<size) {
+			this.samples = Arrays.copyOf(this.samples,
+					Math.min(BenchConstants.MAX_RAW_SAMPLE_NUMBER, Math.max(size, this.samples.length * 2)));
+		}
+	}
+
+	/** Replies the raw durations of the calls that were recorded since the
+	 * last invocation of this function, and forget them.
+	 * 
+	 * @return the durations in the order of the calls.
+	 */
+	long[] drainSamples() {
+		if (this.sampleNumber==0) {
+			return new long[0];
+		}
+		sampleStatistics();
+		long[] drained = Arrays.copyOf(this.samples, this.sampleNumber);
+		this.sampleNumber = 0;
+		this.sampledNumber = 0;
+		return drained;
+	}
+
+	/** Add the raw durations that are not yet sampled into the sample of the
+	 * robust statistics, with the reservoir sampling algorithm.
+	 */
+	private void sampleStatistics() {
+		if (this.sampledNumber>=this.sampleNumber) {
+			return;
+		}
+		if (this.statisticSamples==null) {
+			this.statisticSamples = new long[BenchConstants.STATISTICS_SAMPLE_NUMBER];
+			this.statisticRandom = new Random(STATISTIC_SEED);
+		}
+		for(int i=this.sampledNumber; i<this.sampleNumber; ++i) {
+			++this.statisticDurationNumber;
+			if (this.statisticSampleNumber<this.statisticSamples.length) {
+				this.statisticSamples[this.statisticSampleNumber++] = this.samples[i];
+			}
+			else {
+				long j = (long)(this.statisticRandom.nextDouble() * this.statisticDurationNumber);
+				if (j<this.statisticSamples.length) {
+					this.statisticSamples[(int)j] = this.samples[i];
+				}
+			}
+		}
+		this.sampledNumber = this.sampleNumber;
+		this.robustStatistics = null;
+	}
+
+	/** Replies the robust statistics on the raw durations of the calls.
+	 * <p>
+	 * The statistics are computed when this function is invoked, after
+	 * the measures of the calls.
+	 * 
+	 * @return the statistics, or <code>null</code> if the calls were not
+	 * recorded one by one.
+	 */
+	public RobustStatistics getRobustStatistics() {
+		sampleStatistics();
+		if (this.robustStatistics==null && this.statisticSampleNumber>0) {
+			this.robustStatistics = RobustStatistics.compute(this.statisticSamples,
+					this.statisticSampleNumber, this.statisticDurationNumber, this.statisticRandom);
+		}
+		return this.robustStatistics;
+	}
+
+	/** Replies the number of raw durations of calls that were not kept
+	 * because the limit {@link BenchConstants#MAX_RAW_SAMPLE_NUMBER} was reached.
+	 * These durations are recorded in the histogram of the calls.
+	 * 
+	 * @return the number of durations.
+	 */
+	public long getDroppedSampleNumber() {
+		return this.droppedSampleNumber;
+	}
+
+	/** Record the duration of several calls with the same duration.
+	 * <p>
+	 * The duration is already scaled with the time scaling factor
+	 * and the time increment of this run.
+	 * 
+	 * @param duration is the duration of the calls.
+	 * @param count is the number of calls.
+	 */
+	protected void recordCallDuration(long duration, long count) {
+		ensureCallHistogram();
+		this.callHistogram.recordValueWithCount(duration, count);
+	}
+
+	/** Replies the duration of one call at the given percentile.
+	 * 
+	 * @param percentile is the percentile, between {@code 0} and {@code 100}.
+	 * @return the nano time, or {@code -1} if the calls were not recorded
+	 * one by one.
+	 * @see BenchConstants#REPORTED_PERCENTILES
+	 */
+	public long getCallPercentileDuration(double percentile) {
+		LatencyHistogram histogram = getCallHistogram();
+		return histogram==null ? -1 : histogram.getValueAtPercentile(percentile);
+	}
+
+	/** Replies the duration of the slowest call.
+	 * 
+	 * @return the nano time, or {@code -1} if the calls were not recorded
+	 * one by one.
+	 */
+	public long getCallMaxDuration() {
+		LatencyHistogram histogram = getCallHistogram();
+		return histogram==null ? -1 : histogram.getMaxValue();
+	}
+
+	/** Replies the number of warmup batches that were run
+	 * before the measurements.
+	 * 
+	 * @return the number of warmup batches.
+	 */
+	public int getWarmupBatchNumber() {
+		return this.warmupBatches;
+	}
+
+	/** Replies the number of calls that were done during
+	 * the warmup.
+	 * 
+	 * @return the number of warmup calls.
+	 */
+	public long getWarmupCallNumber() {
+		return this.warmupCalls;
+	}
+
+	/** Replies the index of the warmup batch at which the steady
+	 * state was detected.
+	 * 
+	 * @return the number of warmup batches that were needed to reach the
+	 * steady state, or {@code -1} if the steady state was not detected.
+	 */
+	public int getSteadyStateBatch() {
+		return this.steadyStateBatch;
+	}
+
+	/** Set the description of the warmup.
+	 * 
+	 * @param batches is the number of warmup batches.
+	 * @param calls is the number of warmup calls.
+	 * @param steadyStateBatch is the number of batches needed to
+	 * reach the steady state, or {@code -1} if not reached.
+	 */
+	void setWarmup(int batches, long calls, int steadyStateBatch) {
+		this.warmupBatches = batches;
+		this.warmupCalls = calls;
+		this.steadyStateBatch = steadyStateBatch;
+	}
+
+	/** Replies the number of operations per second, when the
+	 * bench was run during a fixed time.
+	 * 
+	 * @return the number of operations per second, or {@code -1}
+	 * if the throughput is unknown.
+	 */
+	public double getThroughput() {
+		return this.throughput;
+	}
+
+	/** Set the number of operations per second.
+	 * 
+	 * @param throughput is the number of operations per second.
+	 */
+	void setThroughput(double throughput) {
+		this.throughput = throughput;
+	}
+
+	/** Replies the duration of the intervals on which the
+	 * numbers of operations per second are measured.
+	 * 
+	 * @return the nano time of an interval, or {@code 0} if
+	 * the throughput was not measured.
+	 */
+	public long getThroughputInterval() {
+		return this.throughputInterval;
+	}
+
+	/** Replies the numbers of operations per second that were
+	 * measured on each interval, for each run.
+	 * 
+	 * @return the numbers of operations per second; one array per run.
+	 */
+	public List<double[]> getIntervalThroughputs() {
+		return Collections.unmodifiableList(this.intervalThroughputs);
+	}
+
+	/** Add the numbers of operations that were measured on the
+	 * intervals of a run.
+	 * 
+	 * @param interval is the nano time of an interval.
+	 * @param calls are the numbers of operations on each interval.
+	 */
+	void addIntervalThroughputs(long interval, long[] calls) {
+		this.throughputInterval = interval;
+		double[] throughputs = new double[calls.length];
+		for(int i=0; i<calls.length; ++i) {
+			throughputs[i] = calls[i] * 1e9 / interval;
+		}
+		this.intervalThroughputs.add(throughputs);
+	}
+
+	/** Replies the average number of bytes that were allocated by
+	 * one call to the benchmarking function.
+	 * <p>
+	 * Only the allocations of the thread that is invoking the
+	 * benchmarking function are counted; the allocations of the
+	 * threads that are started or notified by the function are not.
+	 * 
+	 * @return the number of bytes, or {@code -1} if the allocations
+	 * were not counted.
+	 */
+	public double getAllocatedBytesPerCall() {
+		if (!this.allocationCounted || this.measuredCalls<=0) {
+			return -1;
+		}
+		return (double)this.allocatedBytes / this.measuredCalls;
+	}
+
+	/** Replies the number of garbage collections that occured during
+	 * the measured calls.
+	 * 
+	 * @return the number of collections.
+	 */
+	public long getGcCount() {
+		return this.gcCount;
+	}
+
+	/** Replies the cumulated time of the garbage collections that
+	 * occured during the measured calls.
+	 * 
+	 * @return the time in milliseconds.
+	 */
+	public long getGcTime() {
+		return this.gcTime;
+	}
+
+	/** Replies the average CPU time that was consumed by the thread that
+	 * is invoking the benchmarking function, for one call.
+	 * 
+	 * @return the nano time, or {@code -1} if the CPU time was not measured.
+	 */
+	public double getThreadCpuTimePerCall() {
+		if (this.threadCpuTime<0 || this.measuredCalls<=0) {
+			return -1;
+		}
+		return (double)this.threadCpuTime / this.measuredCalls;
+	}
+
+	/** Replies the ratio between the CPU time of the thread that is invoking
+	 * the benchmarking function and the elapsed time of the measured calls.
+	 * <p>
+	 * A ratio lower than one means that the thread was waiting, e.g. for
+	 * a lock, for an input or for a processor.
+	 * 
+	 * @return the ratio, or {@code -1} if the CPU time was not measured.
+	 */
+	public double getThreadCpuUsage() {
+		if (this.threadCpuTime<0 || this.measuredTime<=0) {
+			return -1;
+		}
+		return (double)this.threadCpuTime / this.measuredTime;
+	}
+
+	/** Replies the CPU time that was consumed by all the threads of the
+	 * process during the measured calls.
+	 * 
+	 * @return the nano time, or {@code -1} if the CPU time was not measured.
+	 */
+	public long getProcessCpuTime() {
+		return this.processCpuTime;
+	}
+
+	/** Replies the number of times the thread that is invoking the
+	 * benchmarking function gave up its processor during the measured calls.
+	 * 
+	 * @return the number of context switches, or {@code -1} if they were
+	 * not measured.
+	 */
+	public long getVoluntaryContextSwitches() {
+		return this.voluntaryContextSwitches;
+	}
+
+	/** Replies the number of times the thread that is invoking the
+	 * benchmarking function was preempted during the measured calls.
+	 * 
+	 * @return the number of context switches, or {@code -1} if they were
+	 * not measured.
+	 */
+	public long getInvoluntaryContextSwitches() {
+		return this.involuntaryContextSwitches;
+	}
+
+	private static long addDelta(long total, long start, long end) {
+		if (total<0 || start<0 || end<0) {
+			return -1;
+		}
+		return total + end - start;
+	}
+
+	/** Add the resources that were consumed by measured calls.
+	 * 
+	 * @param start is the snapshot taken before the calls.
+	 * @param end is the snapshot taken after the calls.
+	 * @param calls is the number of calls.
+	 */
+	void addResourceUsage(ResourceSnapshot start, ResourceSnapshot end, long calls) {
+		if (start.getAllocatedBytes()<0 || end.getAllocatedBytes()<0) {
+			this.allocationCounted = false;
+		}
+		else {
+			this.allocatedBytes += end.getAllocatedBytes() - start.getAllocatedBytes();
+		}
+		this.measuredCalls += calls;
+		this.gcCount += end.getGcCount() - start.getGcCount();
+		this.gcTime += end.getGcTime() - start.getGcTime();
+		this.measuredTime += end.getTime() - start.getTime();
+		this.threadCpuTime = addDelta(this.threadCpuTime,
+				start.getThreadCpuTime(), end.getThreadCpuTime());
+		this.processCpuTime = addDelta(this.processCpuTime,
+				start.getProcessCpuTime(), end.getProcessCpuTime());
+		this.voluntaryContextSwitches = addDelta(this.voluntaryContextSwitches,
+				start.getVoluntaryContextSwitches(), end.getVoluntaryContextSwitches());
+		this.involuntaryContextSwitches = addDelta(this.involuntaryContextSwitches,
+				start.getInvoluntaryContextSwitches(), end.getInvoluntaryContextSwitches());
+	}
+
 	/** Set the duration of the bench.
 	 * 
 	 * @param runDuration is the duration of the complete run.
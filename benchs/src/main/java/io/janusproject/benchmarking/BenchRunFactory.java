@@ -0,0 +1,43 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+/** Factory of the runs that are generated by a parameter sweep.
+ * 
+ * @param <R> is the type of the runs.
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ * @see BenchSweep
+ */
+public interface BenchRunFactory<R extends BenchRun> {
+
+	/** Create a run.
+	 * <p>
+	 * The parameters of the run are set by the sweep after the creation.
+	 * 
+	 * @param name is the name of the run.
+	 * @return the run.
+	 */
+	R newRun(String name);
+
+}
\ No newline at end of file
@@ -0,0 +1,96 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/** Generator of the runs of a parameter sweep.
+ * <p>
+ * One run is generated for each point of the cartesian product of
+ * the values of the axes. The last axis is varying first.
+ * The name of a run is the name of the bench function followed by
+ * the values of the parameters, e.g. <code>Publish[size=1024, peers=4]</code>,
+ * and the parameters are given to the run with
+ * {@link BenchRun#setParameter(String, Object)}.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public final class BenchSweep {
+
+	private BenchSweep() {
+		//
+	}
+
+	/** Generate the runs of a parameter sweep.
+	 * 
+	 * @param <R> is the type of the runs.
+	 * @param benchFunctionName is the name of the bench function.
+	 * @param factory is the factory of runs.
+	 * @param axes are the axes of the sweep. If there is no axis,
+	 * a single run without parameter is generated.
+	 * @return the runs.
+	 */
+	public static <R extends BenchRun> List<R> cartesianProduct(
+			String benchFunctionName, BenchRunFactory<R> factory, BenchAxis... axes) {
+		List<R> runs = new ArrayList<>();
+		if (axes.length==0) {
+			runs.add(factory.newRun(benchFunctionName));
+			return runs;
+		}
+		int[] indexes = new int[axes.length];
+		do {
+			StringBuilder name = new StringBuilder(benchFunctionName);
+			name.append('[');
+			for(int i=0; i<axes.length; ++i) {
+				if (i>0) {
+					name.append(", "); //$NON-NLS-1$
+				}
+				name.append(axes[i].getName());
+				name.append('=');
+				name.append(axes[i].getValues().get(indexes[i]));
+			}
+			name.append(']');
+			R run = factory.newRun(name.toString());
+			for(int i=0; i<axes.length; ++i) {
+				run.setParameter(axes[i].getName(), axes[i].getValues().get(indexes[i]));
+			}
+			runs.add(run);
+		}
+		while (next(indexes, axes));
+		return runs;
+	}
+
+	private static boolean next(int[] indexes, BenchAxis[] axes) {
+		for(int i=indexes.length-1; i>=0; --i) {
+			++indexes[i];
+			if (indexes[i]<axes[i].getValues().size()) {
+				return true;
+			}
+			indexes[i] = 0;
+		}
+		return false;
+	}
+
+}
\ No newline at end of file
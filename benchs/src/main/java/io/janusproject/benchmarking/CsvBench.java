@@ -24,12 +24,29 @@ import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
+import org.arakhne.afc.vmutil.locale.Locale;
+
 /** This abstract class describes a bench for the Janus kernel with
  * all the each run result is stored in a line of a CSV file.
+ * <p>
+ * The results of each bench function are also written in the JSON file
+ * <code>benchFunctionName.json</code>, which is not localized; and the raw
+ * durations of the calls, when they are recorded, in the binary file
+ * <code>benchFunctionName-samples.bin</code>.
+ * 
+ * @see JsonResultWriter
+ * @see SampleFileWriter
  * 
  * @param <R> is the type of the runs
  * @author $Author: sgalland$
@@ -43,6 +60,14 @@ public abstract class CsvBench<R extends BenchRun> extends Bench<R> {
 	private final Object[] headers;
 	private final String title;
 	private BufferedWriter writer;
+	private String benchFunctionName;
+	private List<String> parameterNames = Collections.emptyList();
+	private List<Object> columns = null;
+	private final Map<R,Integer> runIds = new IdentityHashMap<>();
+	private final List<R> identifiedRuns = new ArrayList<>();
+	private final Map<R,List<Object>> records = new IdentityHashMap<>();
+	private final Map<R,Integer> sampleBlocks = new IdentityHashMap<>();
+	private SampleFileWriter sampleWriter = null;
 
 	/**
 	 * @param directory is the directory that shold contains the CSV file.
@@ -66,6 +91,10 @@ public abstract class CsvBench<R extends BenchRun> extends Bench<R> {
 			this.writer.close();
 			this.writer = null;
 		}
+		if (this.sampleWriter!=null) {
+			this.sampleWriter.close();
+			this.sampleWriter = null;
+		}
 		super.dispose();
 	}
 	
@@ -80,14 +109,28 @@ public abstract class CsvBench<R extends BenchRun> extends Bench<R> {
 		File csvFile = new File(getOutputDirectory(), benchFunctionName+".csv"); //$NON-NLS-1$
 		csvFile.getParentFile().mkdirs();
 		this.writer = new BufferedWriter(new FileWriter(csvFile));
-		setRunRanges(determineRuns(benchFunctionName));
+		this.benchFunctionName = benchFunctionName;
+		this.columns = null;
+		clearRunIds();
+		Collection<R> runs = determineRuns(benchFunctionName);
+		setRunRanges(runs);
+		this.parameterNames = runs.isEmpty()
+				? Collections.<String>emptyList()
+				: new ArrayList<>(runs.iterator().next().getParameters().keySet());
 		Object[] headers = getCsvHeader();
 		if (headers!=null && headers.length>0) {
-			writeHeader(headers);
+			List<Object> columns = new ArrayList<>(Arrays.asList(headers));
+			addRunHeaders(columns);
+			this.columns = columns;
+			writeHeader(columns.toArray());
 		}
 	}
 	
 	/** Replies the headers of the CSV, column by column.
+	 * <p>
+	 * The headers of the columns that are written by
+	 * {@link #writeRunRecord(BenchRun, Object...)} are not
+	 * included.
 	 * 
 	 * @return the headers of the columns.
 	 */
@@ -95,6 +138,104 @@ public abstract class CsvBench<R extends BenchRun> extends Bench<R> {
 		return this.headers;
 	}
 	
+	/** Add the headers of the columns that are describing a run.
+	 * 
+	 * @param columns is the list to fill.
+	 * @see #writeRunRecord(BenchRun, Object...)
+	 */
+	protected void addRunHeaders(List<Object> columns) {
+		columns.add(Locale.getString(CsvBench.class, "COLUMN_ALLOCATED_BYTES_PER_CALL")); //$NON-NLS-1$
+		columns.add(Locale.getString(CsvBench.class, "COLUMN_GC_COUNT")); //$NON-NLS-1$
+		columns.add(Locale.getString(CsvBench.class, "COLUMN_GC_TIME")); //$NON-NLS-1$
+		columns.add(Locale.getString(CsvBench.class, "COLUMN_THREAD_CPU_PER_CALL")); //$NON-NLS-1$
+		columns.add(Locale.getString(CsvBench.class, "COLUMN_THREAD_CPU_USAGE")); //$NON-NLS-1$
+		columns.add(Locale.getString(CsvBench.class, "COLUMN_PROCESS_CPU_TIME")); //$NON-NLS-1$
+		columns.add(Locale.getString(CsvBench.class, "COLUMN_VOLUNTARY_CONTEXT_SWITCHES")); //$NON-NLS-1$
+		columns.add(Locale.getString(CsvBench.class, "COLUMN_INVOLUNTARY_CONTEXT_SWITCHES")); //$NON-NLS-1$
+		columns.addAll(this.parameterNames);
+		if (isThroughputMode()) {
+			columns.add(Locale.getString(CsvBench.class, "COLUMN_THROUGHPUT")); //$NON-NLS-1$
+		}
+		if (isCallRecording()) {
+			for(double percentile : BenchConstants.REPORTED_PERCENTILES) {
+				columns.add(Locale.getString(CsvBench.class, "COLUMN_CALL_PERCENTILE", formatPercentile(percentile))); //$NON-NLS-1$
+			}
+			columns.add(Locale.getString(CsvBench.class, "COLUMN_CALL_MAX")); //$NON-NLS-1$
+			columns.add(Locale.getString(CsvBench.class, "COLUMN_CALL_MEDIAN")); //$NON-NLS-1$
+			columns.add(Locale.getString(CsvBench.class, "COLUMN_CALL_MEDIAN_LOW", formatPercentile(BenchConstants.CONFIDENCE_LEVEL * 100.))); //$NON-NLS-1$
+			columns.add(Locale.getString(CsvBench.class, "COLUMN_CALL_MEDIAN_HIGH", formatPercentile(BenchConstants.CONFIDENCE_LEVEL * 100.))); //$NON-NLS-1$
+			columns.add(Locale.getString(CsvBench.class, "COLUMN_CALL_MAD")); //$NON-NLS-1$
+			columns.add(Locale.getString(CsvBench.class, "COLUMN_CALL_TRIMMED_MEAN")); //$NON-NLS-1$
+			columns.add(Locale.getString(CsvBench.class, "COLUMN_LOW_OUTLIERS")); //$NON-NLS-1$
+			columns.add(Locale.getString(CsvBench.class, "COLUMN_HIGH_OUTLIERS")); //$NON-NLS-1$
+		}
+		if (getWarmupBatchNumber()>0) {
+			columns.add(Locale.getString(CsvBench.class, "COLUMN_WARMUP_CALLS")); //$NON-NLS-1$
+			columns.add(Locale.getString(CsvBench.class, "COLUMN_STEADY_STATE_BATCH")); //$NON-NLS-1$
+		}
+	}
+
+	/** Add the values of the columns that are describing a run.
+	 * 
+	 * @param run is the run to describe.
+	 * @param columns is the list to fill.
+	 * @see #addRunHeaders(List)
+	 */
+	protected void addRunColumns(R run, List<Object> columns) {
+		columns.add(run.getAllocatedBytesPerCall());
+		columns.add(run.getGcCount());
+		columns.add(run.getGcTime());
+		columns.add(run.getThreadCpuTimePerCall());
+		columns.add(run.getThreadCpuUsage());
+		columns.add(run.getProcessCpuTime());
+		columns.add(run.getVoluntaryContextSwitches());
+		columns.add(run.getInvoluntaryContextSwitches());
+		for(String parameter : this.parameterNames) {
+			columns.add(run.getParameter(parameter));
+		}
+		if (isThroughputMode()) {
+			columns.add(run.getThroughput());
+		}
+		if (isCallRecording()) {
+			for(double percentile : BenchConstants.REPORTED_PERCENTILES) {
+				columns.add(run.getCallPercentileDuration(percentile));
+			}
+			columns.add(run.getCallMaxDuration());
+			RobustStatistics statistics = run.getRobustStatistics();
+			if (statistics!=null) {
+				columns.add(statistics.getMedian());
+				columns.add(statistics.getMedianLowerBound());
+				columns.add(statistics.getMedianUpperBound());
+				columns.add(statistics.getMedianAbsoluteDeviation());
+				columns.add(statistics.getTrimmedMean());
+				columns.add(statistics.getLowOutlierNumber());
+				columns.add(statistics.getHighOutlierNumber());
+			}
+			else {
+				for(int i=0; i<7; ++i) {
+					columns.add(Double.NaN);
+				}
+			}
+		}
+		if (getWarmupBatchNumber()>0) {
+			columns.add(run.getWarmupCallNumber());
+			columns.add(run.getSteadyStateBatch());
+		}
+	}
+
+	/** Format a percentile for the headers of the columns, e.g.
+	 * <code>50</code> or <code>99.9</code>.
+	 * 
+	 * @param percentile is the percentile.
+	 * @return the text of the percentile.
+	 */
+	protected static String formatPercentile(double percentile) {
+		if (percentile==Math.rint(percentile)) {
+			return Long.toString((long)percentile);
+		}
+		return Double.toString(percentile);
+	}
+	
 	/** {@inheritDoc}
 	 */
 	@Override
@@ -118,6 +259,29 @@ public abstract class CsvBench<R extends BenchRun> extends Bench<R> {
 	 */
 	protected abstract Collection<R> determineRuns(String benchFunctionName);
 
+	/** Replies the axes of the parameter sweep of the given bench function.
+	 * <p>
+	 * The implementations of {@link #determineRuns(String)} may give these
+	 * axes to {@link BenchSweep#cartesianProduct(String, BenchRunFactory, BenchAxis...)}
+	 * for generating one run per point of the sweep. The values of the parameters
+	 * are written in one column per axis.
+	 * 
+	 * @param benchFunctionName is the name of the bench function.
+	 * @return the axes; by default none.
+	 */
+	protected BenchAxis[] getSweepAxes(String benchFunctionName) {
+		return new BenchAxis[0];
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onEndBenchCalls(R run) throws Exception {
+		writeSamples(run);
+		super.onEndBenchCalls(run);
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -127,8 +291,133 @@ public abstract class CsvBench<R extends BenchRun> extends Bench<R> {
 			this.writer.close();
 			this.writer = null;
 		}
+		if (this.benchFunctionName!=null) {
+			if (isThroughputMode()) {
+				writeIntervalThroughputs(this.benchFunctionName);
+			}
+			writeJsonResults(this.benchFunctionName);
+		}
+		this.benchFunctionName = null;
+		this.columns = null;
+		clearRunIds();
 		super.onEndDeclaredBenchFunction();
 	}
+
+	private void clearRunIds() {
+		this.runIds.clear();
+		this.identifiedRuns.clear();
+		this.records.clear();
+		this.sampleBlocks.clear();
+	}
+
+	/** Replies the identifier of the given run in the JSON results and
+	 * in the file of the raw durations.
+	 * 
+	 * @param run is the run.
+	 * @return the identifier.
+	 */
+	private int getRunId(R run) {
+		Integer id = this.runIds.get(run);
+		if (id==null) {
+			id = this.identifiedRuns.size();
+			this.runIds.put(run, id);
+			this.identifiedRuns.add(run);
+		}
+		return id;
+	}
+
+	/** Write the raw durations of the calls that were recorded by the given
+	 * run in the file <code>benchFunctionName-samples.bin</code>.
+	 * 
+	 * @param run is the run.
+	 * @throws IOException
+	 * @see SampleFileWriter
+	 */
+	private void writeSamples(R run) throws IOException {
+		long[] samples = run.drainSamples();
+		if (samples.length>0 && this.benchFunctionName!=null) {
+			if (this.sampleWriter==null) {
+				this.sampleWriter = new SampleFileWriter(
+						new File(getOutputDirectory(), this.benchFunctionName+"-samples.bin")); //$NON-NLS-1$
+			}
+			int id = getRunId(run);
+			Integer block = this.sampleBlocks.get(run);
+			int blockIndex = block==null ? 0 : block.intValue();
+			this.sampleWriter.writeBlock(id, blockIndex, samples);
+			this.sampleBlocks.put(run, blockIndex + 1);
+		}
+	}
+
+	/** Write the results of the terminated runs in the JSON file
+	 * <code>benchFunctionName.json</code>.
+	 * 
+	 * @param benchFunctionName is the name of the bench function.
+	 * @throws IOException
+	 * @see JsonResultWriter
+	 */
+	private void writeJsonResults(String benchFunctionName) throws IOException {
+		// The durations may be computed when the records are written, e.g. the transit times
+		for(R run : getTerminatedRuns()) {
+			writeSamples(run);
+		}
+		String sampleFile = null;
+		if (this.sampleWriter!=null) {
+			sampleFile = benchFunctionName+"-samples.bin"; //$NON-NLS-1$
+			this.sampleWriter.close();
+			this.sampleWriter = null;
+		}
+		for(R run : getTerminatedRuns()) {
+			getRunId(run);
+		}
+		File jsonFile = new File(getOutputDirectory(), benchFunctionName+".json"); //$NON-NLS-1$
+		try (JsonResultWriter w = new JsonResultWriter(jsonFile)) {
+			w.write(this, benchFunctionName, this.title, this.columns,
+					this.identifiedRuns, this.records, sampleFile);
+		}
+	}
+	
+	/** Write the numbers of operations per second that were measured
+	 * on each interval of the terminated runs in the CSV file
+	 * <code>benchFunctionName-intervals.csv</code>.
+	 * 
+	 * @param benchFunctionName is the name of the bench function.
+	 * @throws IOException
+	 */
+	private void writeIntervalThroughputs(String benchFunctionName) throws IOException {
+		File csvFile = new File(getOutputDirectory(), benchFunctionName+"-intervals.csv"); //$NON-NLS-1$
+		try(BufferedWriter w = new BufferedWriter(new FileWriter(csvFile))) {
+			w.write("#"); //$NON-NLS-1$
+			w.write(Locale.getString(CsvBench.class, "COLUMN_RUN")); //$NON-NLS-1$
+			w.write("\t"); //$NON-NLS-1$
+			w.write(Locale.getString(CsvBench.class, "COLUMN_RUN_INDEX")); //$NON-NLS-1$
+			w.write("\t"); //$NON-NLS-1$
+			w.write(Locale.getString(CsvBench.class, "COLUMN_INTERVAL_END")); //$NON-NLS-1$
+			w.write("\t"); //$NON-NLS-1$
+			w.write(Locale.getString(CsvBench.class, "COLUMN_THROUGHPUT")); //$NON-NLS-1$
+			w.write("\n"); //$NON-NLS-1$
+			// The same run may be terminated several times
+			Set<R> runs = Collections.newSetFromMap(new IdentityHashMap<R,Boolean>());
+			for(R run : getTerminatedRuns()) {
+				if (runs.add(run)) {
+					double interval = run.getThroughputInterval() / 1e6;
+					int runIndex = 0;
+					for(double[] throughputs : run.getIntervalThroughputs()) {
+						for(int i=0; i<throughputs.length; ++i) {
+							w.write(run.toString());
+							w.write("\t"); //$NON-NLS-1$
+							w.write(Integer.toString(runIndex));
+							w.write("\t"); //$NON-NLS-1$
+							w.write(Double.toString((i+1)*interval));
+							w.write("\t"); //$NON-NLS-1$
+							w.write(Double.toString(throughputs[i]));
+							w.write("\n"); //$NON-NLS-1$
+						}
+						++runIndex;
+					}
+				}
+			}
+		}
+	}
 	
 	/** Write a record line in the CSV.
 	 * @param columns
@@ -145,6 +434,22 @@ public abstract class CsvBench<R extends BenchRun> extends Bench<R> {
 		this.writer.flush();
 	}
 	
+	/** Write a record line in the CSV for the given run.
+	 * The given columns are followed by the columns that are
+	 * describing the run, e.g. the allocations, the garbage collections,
+	 * the CPU times and the percentiles of the call durations.
+	 * 
+	 * @param run is the run to write.
+	 * @param columns are the first columns of the record.
+	 * @throws IOException
+	 */
+	protected void writeRunRecord(R run, Object... columns) throws IOException {
+		List<Object> record = new ArrayList<>(Arrays.asList(columns));
+		addRunColumns(run, record);
+		this.records.put(run, record);
+		writeRecord(record.toArray());
+	}
+	
 	/** Write a header line in the CSV.
 	 * @param columns
 	 * @throws IOException
@@ -0,0 +1,146 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.io.File;
+import java.util.Iterator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/** JMH benchmark that is running one function of a {@link Bench}.
+ * <p>
+ * The lifecycle of the bench is mapped to the JMH trial:
+ * {@link Bench#initialize()}, {@link Bench#onStartDeclaredBenchFunction(String)},
+ * {@link Bench#onStartRunInMany(BenchRun)} and {@link Bench#onStartBenchCalls(BenchRun)}
+ * are invoked by the setup; {@link Bench#onEndBenchCalls(BenchRun)},
+ * {@link Bench#onEndRunOnMany(int, BenchRun)}, {@link Bench#onEndDeclaredBenchFunction()}
+ * and {@link Bench#dispose()} are invoked by the teardown.
+ * <p>
+ * The bench is created in a scratch directory; the results are written
+ * by {@link JmhBenchLauncher} in the process that launched JMH.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+@State(Scope.Benchmark)
+public class JmhBench {
+
+	/** Qualified name of the bench class. */
+	@Param("")
+	public String benchType;
+
+	/** Name of the benchmarking function, without the "bench" prefix. */
+	@Param("")
+	public String functionName;
+
+	/** Index of the run in the runs of the function. */
+	@Param("0")
+	public int runIndex;
+
+	/** Directory in which the bench may write its files. */
+	@Param("")
+	public String scratchDirectory;
+
+	private Bench<BenchRun> bench;
+	private BenchRun run;
+	private BenchFunction function;
+
+	/**
+	 */
+	public JmhBench() {
+		//
+	}
+
+	/** Create and initialize the bench, and prepare the run.
+	 * 
+	 * @throws Exception
+	 */
+	@SuppressWarnings("unchecked")
+	@Setup(Level.Trial)
+	public void setUp() throws Exception {
+		Class<?> type = Class.forName(this.benchType);
+		this.bench = (Bench<BenchRun>)type.getConstructor(File.class).newInstance(
+				new File(this.scratchDirectory));
+		this.bench.initialize();
+		for(BenchFunction f : this.bench.getBenchFunctions()) {
+			if (f.getName().equals(this.functionName)) {
+				this.function = f;
+				break;
+			}
+		}
+		if (this.function==null) {
+			throw new NoSuchMethodException(this.functionName);
+		}
+		this.bench.onStartDeclaredBenchFunction(this.functionName);
+		Iterator<BenchRun> runs = this.bench.getRunRanges().iterator();
+		for(int i=0; i<this.runIndex && runs.hasNext(); ++i) {
+			runs.next();
+		}
+		if (!runs.hasNext()) {
+			throw new IndexOutOfBoundsException(Integer.toString(this.runIndex));
+		}
+		this.run = runs.next();
+		this.bench.setCurrentRun(this.run);
+		this.bench.onStartRunInMany(this.run);
+		this.bench.onStartBenchCalls(this.run);
+		if (BenchConstants.INITIALIZATION_WAITING_TIME>0) {
+			Thread.sleep(BenchConstants.INITIALIZATION_WAITING_TIME);
+		}
+	}
+
+	/** Close the run and dispose the bench.
+	 * 
+	 * @throws Exception
+	 */
+	@TearDown(Level.Trial)
+	public void tearDown() throws Exception {
+		if (this.bench!=null) {
+			if (this.run!=null) {
+				this.bench.onEndBenchCalls(this.run);
+				this.bench.onEndRunOnMany(1, this.run);
+				this.bench.setCurrentRun(null);
+			}
+			this.bench.onEndDeclaredBenchFunction();
+			this.bench.dispose();
+		}
+		this.bench = null;
+		this.run = null;
+		this.function = null;
+	}
+
+	/** Invoke the benchmarking function.
+	 * 
+	 * @throws Throwable
+	 */
+	@Benchmark
+	public void call() throws Throwable {
+		this.function.invoke();
+	}
+
+}
\ No newline at end of file
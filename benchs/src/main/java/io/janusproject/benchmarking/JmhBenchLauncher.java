@@ -0,0 +1,225 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.io.File;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Constructor;
+import java.nio.file.Files;
+import java.util.AbstractMap.SimpleEntry;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+import org.arakhne.afc.vmutil.locale.Locale;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.results.BenchmarkResult;
+import org.openjdk.jmh.results.BenchmarkResultMetaData;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.TimeValue;
+import org.openjdk.jmh.util.Statistics;
+
+/** Run the benchs with the JMH engine.
+ * <p>
+ * Each run of each benchmarking function is executed by JMH
+ * with {@link JmhBench}, in forked virtual machines.
+ * The JMH results are converted into the durations of the runs,
+ * and written with the same layout as {@link BenchLauncher}. The duration
+ * of a run is the measurement time that is reported by JMH for all the forks.
+ * The bench of the launching process is {@link Bench#isReportingOnly() reporting only}:
+ * the resources of the calls, e.g. the network peers, are allocated by the forks.
+ * <p>
+ * The JMH mode is given by the system property {@value #MODE_PROPERTY}:
+ * <code>sample</code> (default), <code>avgt</code> or <code>thrpt</code>.
+ * The benchs that are measuring the transit time of events in place of
+ * the duration of the calls, e.g. the remote host benchs, are not
+ * supported by this engine.
+ * <p>
+ * Command line: <code>output benchType...</code>
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public class JmhBenchLauncher {
+
+	/** Name of the system property that contains the JMH mode.
+	 */
+	public static final String MODE_PROPERTY = "JMH_MODE"; //$NON-NLS-1$
+
+	/**
+	 * @param args
+	 * @throws Exception
+	 */
+	@SuppressWarnings("unchecked")
+	public static void main(String[] args) throws Exception {
+		File output = new File(args[0]);
+		Mode mode = Mode.deepValueOf(System.getProperty(MODE_PROPERTY, Mode.SampleTime.shortLabel()));
+		File scratch = Files.createTempDirectory("janusJmh").toFile(); //$NON-NLS-1$
+		for(int i=1; i<args.length; ++i) {
+			Class<?> type = Class.forName(args[i]);
+			if (Bench.class.isAssignableFrom(type)) {
+				Class<? extends Bench<BenchRun>> benchType = (Class<? extends Bench<BenchRun>>)type;
+				Constructor<? extends Bench<BenchRun>> cons = benchType.getConstructor(File.class);
+				Bench<BenchRun> bench = cons.newInstance(output);
+				runBenchs(bench, mode, scratch);
+				bench = null;
+			}
+		}
+		System.exit(0);
+	}
+
+	private static void runBenchs(Bench<BenchRun> bench, Mode mode, File scratch) throws Exception {
+		Logger logger = Logger.getAnonymousLogger();
+		String benchName = bench.getClass().getSimpleName();
+		// The network resources are allocated by the forked trials only
+		bench.setReportingOnly(true);
+		bench.initialize();
+		bench.setCallRecording(mode==Mode.SampleTime);
+		for(BenchFunction function : bench.getBenchFunctions()) {
+			String groupName = function.getName();
+			logger.info(Locale.getString("START_GROUP", benchName, groupName, mode.shortLabel())); //$NON-NLS-1$
+			try {
+				bench.clearRuns();
+				bench.onStartDeclaredBenchFunction(groupName);
+				int runIndex = 0;
+				for(BenchRun run : bench.getRunRanges()) {
+					logger.info(Locale.getString("START_BENCH", benchName, groupName, run.toString())); //$NON-NLS-1$
+					long startTime = System.nanoTime();
+					RunResult result = new Runner(buildOptions(bench, groupName, runIndex, mode, scratch)).runSingle();
+					long elapsedTime = System.nanoTime() - startTime;
+					fillRun(run, mode, result, elapsedTime);
+					bench.onEndBenchCalls(run);
+					++runIndex;
+				}
+			}
+			catch(Throwable e) {
+				bench.logError(logger, groupName, e);
+			}
+			bench.onEndDeclaredBenchFunction();
+			bench.clearRuns();
+			logger.info(Locale.getString("END_GROUP", benchName, groupName)); //$NON-NLS-1$
+		}
+		bench.dispose();
+	}
+
+	private static Options buildOptions(Bench<?> bench, String functionName, int runIndex, Mode mode, File scratch) {
+		ChainedOptionsBuilder builder = new OptionsBuilder()
+			.include(JmhBench.class.getName().replaceAll("\\.", "\\\\.")+"\\.call$") //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+			.param("benchType", bench.getClass().getName()) //$NON-NLS-1$
+			.param("functionName", functionName) //$NON-NLS-1$
+			.param("runIndex", Integer.toString(runIndex)) //$NON-NLS-1$
+			.param("scratchDirectory", scratch.getAbsolutePath()) //$NON-NLS-1$
+			.mode(mode)
+			.timeUnit(mode==Mode.Throughput ? TimeUnit.SECONDS : TimeUnit.NANOSECONDS)
+			.forks(BenchConstants.JMH_FORK_NUMBER)
+			.warmupIterations(BenchConstants.JMH_WARMUP_ITERATION_NUMBER)
+			.warmupTime(TimeValue.milliseconds(BenchConstants.JMH_ITERATION_DURATION))
+			.measurementIterations(BenchConstants.JMH_MEASUREMENT_ITERATION_NUMBER)
+			.measurementTime(TimeValue.milliseconds(BenchConstants.JMH_ITERATION_DURATION))
+			.shouldFailOnError(true);
+		List<String> jvmArgs = new ArrayList<>();
+		jvmArgs.add("-Xmx"+BenchConstants.MAX_MEMORY+"m"); //$NON-NLS-1$ //$NON-NLS-2$
+		for(Entry<String,String> property : getBenchProperties(bench.getClass())) {
+			jvmArgs.add("-D"+property.getKey()+"="+property.getValue()); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		String[] array = new String[jvmArgs.size()];
+		jvmArgs.toArray(array);
+		return builder.jvmArgsAppend(array).build();
+	}
+
+	private static List<Entry<String,String>> getBenchProperties(Class<?> benchType) {
+		List<Entry<String,String>> properties = new ArrayList<>();
+		Class<?> type = benchType;
+		while (type!=null && !Object.class.equals(type)) {
+			for(Annotation a : type.getDeclaredAnnotations()) {
+				if (PropertyBench.class.isAssignableFrom(a.annotationType())) {
+					for(String name : ((PropertyBench)a).names()) {
+						String value = System.getProperty(name);
+						if (value!=null) {
+							properties.add(new SimpleEntry<>(name, value));
+						}
+					}
+				}
+			}
+			type = type.getSuperclass();
+		}
+		return properties;
+	}
+
+	/** Replies the duration of the measurement iterations of all the forks.
+	 * 
+	 * @param result is the result of JMH.
+	 * @param elapsedTime is the nano time of the execution of JMH, which is
+	 * replied if the duration is not reported by JMH.
+	 * @return the duration in nanoseconds.
+	 */
+	private static long getMeasurementDuration(RunResult result, long elapsedTime) {
+		long duration = 0;
+		Collection<BenchmarkResult> forks = result.getBenchmarkResults();
+		if (forks!=null) {
+			for(BenchmarkResult fork : forks) {
+				BenchmarkResultMetaData metadata = fork.getMetadata();
+				if (metadata==null) {
+					return elapsedTime;
+				}
+				duration += metadata.getStopTime() - metadata.getMeasurementTime();
+			}
+		}
+		return duration>0 ? TimeUnit.MILLISECONDS.toNanos(duration) : elapsedTime;
+	}
+
+	private static void fillRun(BenchRun run, Mode mode, RunResult runResult, long elapsedTime) {
+		Result<?> result = runResult.getPrimaryResult();
+		Statistics statistics = result.getStatistics();
+		double callAverage;
+		double standardDeviation;
+		if (mode==Mode.Throughput) {
+			// ops/s to ns/op
+			callAverage = 1e9 / statistics.getMean();
+			standardDeviation = callAverage * statistics.getStandardDeviation() / statistics.getMean();
+		}
+		else {
+			callAverage = statistics.getMean();
+			standardDeviation = statistics.getStandardDeviation();
+		}
+		if (mode==Mode.SampleTime) {
+			Iterator<Entry<Double,Long>> samples = statistics.getRawData();
+			while (samples.hasNext()) {
+				Entry<Double,Long> sample = samples.next();
+				run.recordCallDuration(Math.round(sample.getKey()), sample.getValue());
+			}
+		}
+		run.setDurations(getMeasurementDuration(runResult, elapsedTime), (long)callAverage, standardDeviation);
+		run.setThroughput(mode==Mode.Throughput ? statistics.getMean() : 1e9 / callAverage);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,283 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+import com.google.gson.stream.JsonWriter;
+
+/** Writer of the results of a bench function in a JSON file.
+ * <p>
+ * In opposite to the CSV files, the keys of the JSON file are not localized.
+ * The file contains the environment of the virtual machine, the settings of the
+ * bench, and for each run, its parameters, its measures and the record that
+ * was written in the CSV file. The raw durations of the calls are written
+ * in a separate binary file, see {@link SampleFileWriter}.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+class JsonResultWriter implements AutoCloseable {
+
+	/** Version of the format.
+	 */
+	public static final int VERSION = 1;
+
+	private final JsonWriter writer;
+
+	/**
+	 * @param file is the file to create.
+	 * @throws IOException
+	 */
+	public JsonResultWriter(File file) throws IOException {
+		this.writer = new JsonWriter(new BufferedWriter(new FileWriter(file)));
+		this.writer.setIndent("\t"); //$NON-NLS-1$
+	}
+
+	/** Write the results of a bench function.
+	 * 
+	 * @param bench is the bench.
+	 * @param functionName is the name of the bench function.
+	 * @param title is the title of the bench.
+	 * @param columns are the headers of the columns of the CSV file.
+	 * @param runs are the terminated runs, in the order of their identifiers.
+	 * @param records are the records of the runs in the CSV file.
+	 * @param sampleFile is the name of the file of the raw durations, or <code>null</code>.
+	 * @throws IOException
+	 */
+	public <R extends BenchRun> void write(Bench<R> bench, String functionName, String title,
+			List<Object> columns, List<R> runs, Map<R,List<Object>> records,
+			String sampleFile) throws IOException {
+		JsonWriter w = this.writer;
+		w.beginObject();
+		w.name("format").value(VERSION); //$NON-NLS-1$
+		w.name("bench").value(bench.getClass().getName()); //$NON-NLS-1$
+		w.name("function").value(functionName); //$NON-NLS-1$
+		w.name("title").value(title); //$NON-NLS-1$
+		w.name("date").value(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssZ").format(new Date())); //$NON-NLS-1$ //$NON-NLS-2$
+		writeEnvironment(bench);
+		writeSettings(bench);
+		w.name("columns").beginArray(); //$NON-NLS-1$
+		if (columns!=null) {
+			for(Object column : columns) {
+				value(column);
+			}
+		}
+		w.endArray();
+		w.name("samples").value(sampleFile); //$NON-NLS-1$
+		w.name("runs").beginArray(); //$NON-NLS-1$
+		for(int i=0; i<runs.size(); ++i) {
+			writeRun(i, runs.get(i), records.get(runs.get(i)));
+		}
+		w.endArray();
+		w.endObject();
+	}
+
+	private void writeEnvironment(Bench<?> bench) throws IOException {
+		JsonWriter w = this.writer;
+		w.name("environment").beginObject(); //$NON-NLS-1$
+		w.name("javaVersion").value(System.getProperty("java.version")); //$NON-NLS-1$ //$NON-NLS-2$
+		w.name("javaVendor").value(System.getProperty("java.vendor")); //$NON-NLS-1$ //$NON-NLS-2$
+		w.name("vmName").value(System.getProperty("java.vm.name")); //$NON-NLS-1$ //$NON-NLS-2$
+		w.name("vmVersion").value(System.getProperty("java.vm.version")); //$NON-NLS-1$ //$NON-NLS-2$
+		w.name("vmArguments").beginArray(); //$NON-NLS-1$
+		for(String argument : ManagementFactory.getRuntimeMXBean().getInputArguments()) {
+			w.value(argument);
+		}
+		w.endArray();
+		w.name("osName").value(System.getProperty("os.name")); //$NON-NLS-1$ //$NON-NLS-2$
+		w.name("osArch").value(System.getProperty("os.arch")); //$NON-NLS-1$ //$NON-NLS-2$
+		w.name("osVersion").value(System.getProperty("os.version")); //$NON-NLS-1$ //$NON-NLS-2$
+		w.name("availableProcessors").value(Runtime.getRuntime().availableProcessors()); //$NON-NLS-1$
+		w.name("maxMemory").value(Runtime.getRuntime().maxMemory()); //$NON-NLS-1$
+		w.name("systemLoadAverage"); //$NON-NLS-1$
+		value(bench.getSystemLoadAverage());
+		w.name("allocationCounted").value(AllocationCounter.isSupported()); //$NON-NLS-1$
+		w.name("jei").beginObject(); //$NON-NLS-1$
+		w.name("base"); //$NON-NLS-1$
+		score(BenchConstants.JEI_BASE_SCORE_PROPERTY);
+		w.name("cpu"); //$NON-NLS-1$
+		score(BenchConstants.JEI_CPU_SCORE_PROPERTY);
+		w.name("memory"); //$NON-NLS-1$
+		score(BenchConstants.JEI_MEMORY_SCORE_PROPERTY);
+		w.name("disk"); //$NON-NLS-1$
+		score(BenchConstants.JEI_DISK_SCORE_PROPERTY);
+		w.endObject();
+		w.endObject();
+	}
+
+	private void writeSettings(Bench<?> bench) throws IOException {
+		JsonWriter w = this.writer;
+		w.name("settings").beginObject(); //$NON-NLS-1$
+		w.name("calls").value(bench.getNumberOfCalls()); //$NON-NLS-1$
+		w.name("runs").value(bench.getNumberOfRuns()); //$NON-NLS-1$
+		w.name("warmupBatches").value(bench.getWarmupBatchNumber()); //$NON-NLS-1$
+		w.name("warmupBatchSize").value(bench.getWarmupBatchSize()); //$NON-NLS-1$
+		w.name("steadyStateThreshold").value(bench.getSteadyStateThreshold()); //$NON-NLS-1$
+		w.name("callRecording").value(bench.isCallRecording()); //$NON-NLS-1$
+		w.name("callOverhead").value(bench.getCallOverhead()); //$NON-NLS-1$
+		w.name("throughputMode").value(bench.isThroughputMode()); //$NON-NLS-1$
+		w.endObject();
+	}
+
+	private void writeRun(int id, BenchRun run, List<Object> record) throws IOException {
+		JsonWriter w = this.writer;
+		w.beginObject();
+		w.name("id").value(id); //$NON-NLS-1$
+		w.name("name").value(run.getName()); //$NON-NLS-1$
+		w.name("parameters").beginObject(); //$NON-NLS-1$
+		for(Entry<String,Object> parameter : run.getParameters().entrySet()) {
+			w.name(parameter.getKey());
+			value(parameter.getValue());
+		}
+		w.endObject();
+		w.name("runDuration").value(run.getRunDuration()); //$NON-NLS-1$
+		w.name("callAverageDuration").value(run.getCallAverageDuration()); //$NON-NLS-1$
+		w.name("callStandardDeviation"); //$NON-NLS-1$
+		value(run.getCallStandardDeviation());
+		w.name("throughput"); //$NON-NLS-1$
+		value(run.getThroughput());
+		LatencyHistogram histogram = run.getCallHistogram();
+		if (histogram!=null && histogram.getTotalCount()>0) {
+			w.name("recordedCalls").value(histogram.getTotalCount()); //$NON-NLS-1$
+			w.name("percentiles").beginObject(); //$NON-NLS-1$
+			for(double percentile : BenchConstants.REPORTED_PERCENTILES) {
+				w.name(Double.toString(percentile)).value(histogram.getValueAtPercentile(percentile));
+			}
+			w.endObject();
+			w.name("minDuration").value(histogram.getMinValue()); //$NON-NLS-1$
+			w.name("maxDuration").value(histogram.getMaxValue()); //$NON-NLS-1$
+		}
+		RobustStatistics statistics = run.getRobustStatistics();
+		if (statistics!=null) {
+			w.name("robustStatistics").beginObject(); //$NON-NLS-1$
+			w.name("durations").value(statistics.getDurationNumber()); //$NON-NLS-1$
+			w.name("sampledDurations").value(statistics.getSampleNumber()); //$NON-NLS-1$
+			w.name("median"); //$NON-NLS-1$
+			value(statistics.getMedian());
+			w.name("medianLowerBound"); //$NON-NLS-1$
+			value(statistics.getMedianLowerBound());
+			w.name("medianUpperBound"); //$NON-NLS-1$
+			value(statistics.getMedianUpperBound());
+			w.name("confidenceLevel").value(BenchConstants.CONFIDENCE_LEVEL); //$NON-NLS-1$
+			w.name("medianAbsoluteDeviation"); //$NON-NLS-1$
+			value(statistics.getMedianAbsoluteDeviation());
+			w.name("trimmedMean"); //$NON-NLS-1$
+			value(statistics.getTrimmedMean());
+			w.name("lowOutliers").value(statistics.getLowOutlierNumber()); //$NON-NLS-1$
+			w.name("highOutliers").value(statistics.getHighOutlierNumber()); //$NON-NLS-1$
+			w.endObject();
+		}
+		w.name("droppedSamples").value(run.getDroppedSampleNumber()); //$NON-NLS-1$
+		w.name("warmupCalls").value(run.getWarmupCallNumber()); //$NON-NLS-1$
+		w.name("steadyStateBatch").value(run.getSteadyStateBatch()); //$NON-NLS-1$
+		w.name("allocatedBytesPerCall"); //$NON-NLS-1$
+		value(run.getAllocatedBytesPerCall());
+		w.name("gcCount").value(run.getGcCount()); //$NON-NLS-1$
+		w.name("gcTime").value(run.getGcTime()); //$NON-NLS-1$
+		w.name("threadCpuTimePerCall"); //$NON-NLS-1$
+		value(run.getThreadCpuTimePerCall());
+		w.name("threadCpuUsage"); //$NON-NLS-1$
+		value(run.getThreadCpuUsage());
+		w.name("processCpuTime").value(run.getProcessCpuTime()); //$NON-NLS-1$
+		w.name("voluntaryContextSwitches").value(run.getVoluntaryContextSwitches()); //$NON-NLS-1$
+		w.name("involuntaryContextSwitches").value(run.getInvoluntaryContextSwitches()); //$NON-NLS-1$
+		if (run.getThroughputInterval()>0) {
+			w.name("throughputInterval").value(run.getThroughputInterval()); //$NON-NLS-1$
+			w.name("intervalThroughputs").beginArray(); //$NON-NLS-1$
+			for(double[] throughputs : run.getIntervalThroughputs()) {
+				w.beginArray();
+				for(double throughput : throughputs) {
+					value(throughput);
+				}
+				w.endArray();
+			}
+			w.endArray();
+		}
+		if (record!=null) {
+			w.name("record").beginArray(); //$NON-NLS-1$
+			for(Object value : record) {
+				value(value);
+			}
+			w.endArray();
+		}
+		w.endObject();
+	}
+
+	/** Write the score of the JEI that is given by a system property.
+	 */
+	private void score(String property) throws IOException {
+		String score = System.getProperty(property);
+		Float value = null;
+		if (score!=null) {
+			try {
+				value = Float.valueOf(score);
+			}
+			catch(NumberFormatException _) {
+				//
+			}
+		}
+		value(value);
+	}
+
+	/** Write a value; the numbers that are not finite are written as <code>null</code>.
+	 */
+	private void value(Object value) throws IOException {
+		if (value==null) {
+			this.writer.nullValue();
+		}
+		else if (value instanceof Boolean) {
+			this.writer.value(((Boolean)value).booleanValue());
+		}
+		else if (value instanceof Number) {
+			double v = ((Number)value).doubleValue();
+			if (Double.isNaN(v) || Double.isInfinite(v)) {
+				this.writer.nullValue();
+			}
+			else if (value instanceof Double || value instanceof Float) {
+				this.writer.value(v);
+			}
+			else {
+				this.writer.value(((Number)value).longValue());
+			}
+		}
+		else {
+			this.writer.value(value.toString());
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.writer.close();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,216 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.util.Arrays;
+
+/** Histogram of durations with a log-linear bucket layout.
+ * <p>
+ * The values lower than {@value #SUB_BUCKET_COUNT} are recorded exactly.
+ * The greater values are recorded in buckets that are covering ranges
+ * of power of two, each of them splitted into {@value #HALF_SUB_BUCKET_COUNT}
+ * linear sub-buckets. The relative error on a reported value is
+ * lower than <code>1/{@value #HALF_SUB_BUCKET_COUNT}</code>.
+ * <p>
+ * All the buckets are allocated when the histogram is created; the recording
+ * of a value is allocation-free and it is done in constant time.
+ * This histogram is not thread-safe.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 8;
+
+	/** Number of sub-buckets in the first bucket.
+	 */
+	public static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+
+	/** Number of sub-buckets in the other buckets.
+	 */
+	public static final int HALF_SUB_BUCKET_COUNT = SUB_BUCKET_COUNT >> 1;
+
+	private static final int BUCKET_COUNT = indexOf(Long.MAX_VALUE) + 1;
+
+	private final long[] counts = new long[BUCKET_COUNT];
+	private long totalCount = 0;
+	private long sum = 0;
+	private double sumOfSquares = 0;
+	private long min = Long.MAX_VALUE;
+	private long max = 0;
+
+	/**
+	 */
+	public LatencyHistogram() {
+		//
+	}
+
+	private static int indexOf(long value) {
+		if (value<SUB_BUCKET_COUNT) {
+			return (int)value;
+		}
+		int exponent = 63 - Long.numberOfLeadingZeros(value) - (SUB_BUCKET_BITS - 1);
+		return exponent * HALF_SUB_BUCKET_COUNT + (int)(value >>> exponent);
+	}
+
+	private static long highestValueAt(int index) {
+		if (index<SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int exponent = index / HALF_SUB_BUCKET_COUNT - 1;
+		long subBucket = index - exponent * HALF_SUB_BUCKET_COUNT;
+		long value = ((subBucket + 1) << exponent) - 1;
+		return value<0 ? Long.MAX_VALUE : value;
+	}
+
+	/** Record a value in the histogram.
+	 * Negative values are recorded as zero.
+	 * 
+	 * @param value is the value to record.
+	 */
+	public void recordValue(long value) {
+		recordValueWithCount(value, 1);
+	}
+
+	/** Record a value several times in the histogram.
+	 * Negative values are recorded as zero.
+	 * 
+	 * @param value is the value to record.
+	 * @param count is the number of times the value was observed.
+	 */
+	public void recordValueWithCount(long value, long count) {
+		if (count<=0) {
+			return;
+		}
+		long v = Math.max(0, value);
+		this.counts[indexOf(v)] += count;
+		this.totalCount += count;
+		this.sum += v * count;
+		this.sumOfSquares += (double)v * v * count;
+		if (v<this.min) {
+			this.min = v;
+		}
+		if (v>this.max) {
+			this.max = v;
+		}
+	}
+
+	/** Add the values of the given histogram into this histogram.
+	 * 
+	 * @param histogram is the histogram to add.
+	 */
+	public void add(LatencyHistogram histogram) {
+		if (histogram==null || histogram.totalCount==0) {
+			return;
+		}
+		for(int i=0; i<BUCKET_COUNT; ++i) {
+			this.counts[i] += histogram.counts[i];
+		}
+		this.totalCount += histogram.totalCount;
+		this.sum += histogram.sum;
+		this.sumOfSquares += histogram.sumOfSquares;
+		this.min = Math.min(this.min, histogram.min);
+		this.max = Math.max(this.max, histogram.max);
+	}
+
+	/** Remove all the recorded values.
+	 */
+	public void reset() {
+		Arrays.fill(this.counts, 0);
+		this.totalCount = 0;
+		this.sum = 0;
+		this.sumOfSquares = 0;
+		this.min = Long.MAX_VALUE;
+		this.max = 0;
+	}
+
+	/** Replies the number of recorded values.
+	 * 
+	 * @return the number of recorded values.
+	 */
+	public long getTotalCount() {
+		return this.totalCount;
+	}
+
+	/** Replies the highest recorded value.
+	 * 
+	 * @return the highest value, or {@code -1} if no value was recorded.
+	 */
+	public long getMaxValue() {
+		return this.totalCount==0 ? -1 : this.max;
+	}
+
+	/** Replies the lowest recorded value.
+	 * 
+	 * @return the lowest value, or {@code -1} if no value was recorded.
+	 */
+	public long getMinValue() {
+		return this.totalCount==0 ? -1 : this.min;
+	}
+
+	/** Replies the average of the recorded values.
+	 * 
+	 * @return the average value, or {@link Double#NaN} if no value was recorded.
+	 */
+	public double getMean() {
+		return this.totalCount==0 ? Double.NaN : (double)this.sum / this.totalCount;
+	}
+
+	/** Replies the standard deviation of the recorded values.
+	 * 
+	 * @return the standard deviation, or {@link Double#NaN} if no value was recorded.
+	 */
+	public double getStandardDeviation() {
+		if (this.totalCount==0) {
+			return Double.NaN;
+		}
+		double mean = (double)this.sum / this.totalCount;
+		return Math.sqrt(Math.max(0., this.sumOfSquares / this.totalCount - mean * mean));
+	}
+
+	/** Replies the value at the given percentile.
+	 * <p>
+	 * The replied value is the highest value that is equivalent to
+	 * the recorded values in the bucket of the percentile.
+	 * 
+	 * @param percentile is the percentile, between {@code 0} and {@code 100}.
+	 * @return the value, or {@code -1} if no value was recorded.
+	 */
+	public long getValueAtPercentile(double percentile) {
+		if (this.totalCount==0) {
+			return -1;
+		}
+		double p = Math.min(100., Math.max(0., percentile));
+		long countAtPercentile = Math.max(1, (long)Math.ceil(p / 100. * this.totalCount));
+		long cumulated = 0;
+		for(int i=0; i<BUCKET_COUNT; ++i) {
+			cumulated += this.counts[i];
+			if (cumulated>=countAtPercentile) {
+				return Math.min(highestValueAt(i), this.max);
+			}
+		}
+		return this.max;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,121 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.util.concurrent.locks.LockSupport;
+
+/** Scheduler of the operations of an open-loop load generator.
+ * <p>
+ * The operations are scheduled at a fixed rate from the start of the
+ * scheduler, whatever the durations of the previous operations. When an
+ * operation is late, the next ones are not shifted: they are run as soon
+ * as possible until the schedule is caught up. The latencies that are
+ * computed from the intended times replied by {@link #awaitNext()} are
+ * thus including the time spent by the operations waiting for a stalled
+ * system, which is ignored by a closed-loop generator (coordinated omission).
+ * <p>
+ * This scheduler is not thread-safe.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public class OpenLoopScheduler {
+
+	/** Remaining time under which the scheduler is spinning
+	 * instead of parking the thread (in ns).
+	 */
+	private static final long SPIN_THRESHOLD = 50000;
+
+	private final double rate;
+	private final double period;
+	private long startTime;
+	private long count;
+	private long lateCount;
+
+	/**
+	 * @param rate is the number of operations per second.
+	 */
+	public OpenLoopScheduler(double rate) {
+		if (rate<=0) {
+			throw new IllegalArgumentException(Double.toString(rate));
+		}
+		this.rate = rate;
+		this.period = 1e9 / rate;
+		start();
+	}
+
+	/** Start the schedule at the current time.
+	 */
+	public void start() {
+		this.startTime = System.nanoTime();
+		this.count = 0;
+		this.lateCount = 0;
+	}
+
+	/** Replies the number of operations per second.
+	 * 
+	 * @return the rate.
+	 */
+	public double getRate() {
+		return this.rate;
+	}
+
+	/** Replies the number of operations that were scheduled.
+	 * 
+	 * @return the number of operations.
+	 */
+	public long getScheduledCount() {
+		return this.count;
+	}
+
+	/** Replies the number of operations that were run after
+	 * their intended times.
+	 * 
+	 * @return the number of late operations.
+	 */
+	public long getLateCount() {
+		return this.lateCount;
+	}
+
+	/** Wait until the intended time of the next operation.
+	 * 
+	 * @return the intended nano time of the operation, that
+	 * may be in the past if the operation is late.
+	 */
+	public long awaitNext() {
+		long intendedTime = this.startTime + (long)(this.count * this.period);
+		++this.count;
+		long remaining = intendedTime - System.nanoTime();
+		if (remaining<0) {
+			++this.lateCount;
+		}
+		while (remaining>0) {
+			if (remaining>SPIN_THRESHOLD) {
+				LockSupport.parkNanos(remaining - SPIN_THRESHOLD);
+			}
+			remaining = intendedTime - System.nanoTime();
+		}
+		return intendedTime;
+	}
+
+}
\ No newline at end of file
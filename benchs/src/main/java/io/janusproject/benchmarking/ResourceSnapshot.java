@@ -0,0 +1,227 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.lang.management.ThreadMXBean;
+
+/** Snapshot of the resources that were consumed by the virtual machine
+ * and by the current thread.
+ * <p>
+ * The difference between two snapshots gives the resources that were
+ * consumed by the code run between them:
+ * <ul>
+ * <li>the bytes allocated by the current thread, see {@link AllocationCounter};</li>
+ * <li>the number of garbage collections and their cumulated time, for all
+ * the collectors of the virtual machine;</li>
+ * <li>the CPU time of the current thread and of the whole process;</li>
+ * <li>on Linux, the voluntary and involuntary context switches of the current
+ * thread, read from <code>/proc/thread-self/status</code>.</li>
+ * </ul>
+ * Comparing the CPU time with the elapsed time shows if a slowdown is
+ * caused by more work or by waiting, e.g. for a lock, for the network or
+ * for a processor.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public final class ResourceSnapshot {
+
+	private static final File THREAD_STATUS = new File("/proc/thread-self/status"); //$NON-NLS-1$
+	private static final String VOLUNTARY_SWITCHES = "voluntary_ctxt_switches:"; //$NON-NLS-1$
+	private static final String INVOLUNTARY_SWITCHES = "nonvoluntary_ctxt_switches:"; //$NON-NLS-1$
+
+	private static final ThreadMXBean THREAD_BEAN = getThreadBean();
+
+	private final long time;
+	private final long allocatedBytes;
+	private final long gcCount;
+	private final long gcTime;
+	private final long threadCpuTime;
+	private final long processCpuTime;
+	private long voluntaryContextSwitches = -1;
+	private long involuntaryContextSwitches = -1;
+
+	private ResourceSnapshot(long time, long allocatedBytes, long gcCount, long gcTime,
+			long threadCpuTime, long processCpuTime) {
+		this.time = time;
+		this.allocatedBytes = allocatedBytes;
+		this.gcCount = gcCount;
+		this.gcTime = gcTime;
+		this.threadCpuTime = threadCpuTime;
+		this.processCpuTime = processCpuTime;
+	}
+
+	private static ThreadMXBean getThreadBean() {
+		try {
+			ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+			if (bean.isCurrentThreadCpuTimeSupported()) {
+				if (!bean.isThreadCpuTimeEnabled()) {
+					bean.setThreadCpuTimeEnabled(true);
+				}
+				return bean;
+			}
+		}
+		catch(Throwable _) {
+			//
+		}
+		return null;
+	}
+
+	/** Take a snapshot of the consumed resources.
+	 * 
+	 * @return the snapshot.
+	 */
+	public static ResourceSnapshot take() {
+		return take(ManagementFactory.getOperatingSystemMXBean());
+	}
+
+	/** Take a snapshot of the consumed resources.
+	 * 
+	 * @param osBean is the bean that is providing the CPU time of the process.
+	 * @return the snapshot.
+	 */
+	public static ResourceSnapshot take(OperatingSystemMXBean osBean) {
+		long count = 0;
+		long gcTime = 0;
+		for(GarbageCollectorMXBean bean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			// -1 for the collectors that do not provide the value
+			count += Math.max(0, bean.getCollectionCount());
+			gcTime += Math.max(0, bean.getCollectionTime());
+		}
+		long processCpuTime = -1;
+		if (osBean instanceof com.sun.management.OperatingSystemMXBean) {
+			processCpuTime = ((com.sun.management.OperatingSystemMXBean)osBean).getProcessCpuTime();
+		}
+		ResourceSnapshot snapshot = new ResourceSnapshot(
+				System.nanoTime(),
+				AllocationCounter.getAllocatedBytes(),
+				count, gcTime,
+				THREAD_BEAN==null ? -1 : THREAD_BEAN.getCurrentThreadCpuTime(),
+				processCpuTime);
+		if (THREAD_STATUS.canRead()) {
+			snapshot.readContextSwitches();
+		}
+		return snapshot;
+	}
+
+	private void readContextSwitches() {
+		try (BufferedReader reader = new BufferedReader(new FileReader(THREAD_STATUS))) {
+			String line = reader.readLine();
+			while (line!=null) {
+				if (line.startsWith(VOLUNTARY_SWITCHES)) {
+					this.voluntaryContextSwitches = Long.parseLong(
+							line.substring(VOLUNTARY_SWITCHES.length()).trim());
+				}
+				else if (line.startsWith(INVOLUNTARY_SWITCHES)) {
+					this.involuntaryContextSwitches = Long.parseLong(
+							line.substring(INVOLUNTARY_SWITCHES.length()).trim());
+				}
+				line = reader.readLine();
+			}
+		}
+		catch(IOException | NumberFormatException _) {
+			this.voluntaryContextSwitches = -1;
+			this.involuntaryContextSwitches = -1;
+		}
+	}
+
+	/** Replies the time at which the snapshot was taken.
+	 * 
+	 * @return the value of {@link System#nanoTime()}.
+	 */
+	public long getTime() {
+		return this.time;
+	}
+
+	/** Replies the number of bytes that were allocated by the thread
+	 * that has taken the snapshot, since its start.
+	 * 
+	 * @return the number of bytes, or {@code -1} if the allocations
+	 * are not counted.
+	 */
+	public long getAllocatedBytes() {
+		return this.allocatedBytes;
+	}
+
+	/** Replies the number of garbage collections since the start of
+	 * the virtual machine.
+	 * 
+	 * @return the number of collections.
+	 */
+	public long getGcCount() {
+		return this.gcCount;
+	}
+
+	/** Replies the cumulated time of the garbage collections since the
+	 * start of the virtual machine.
+	 * 
+	 * @return the time in milliseconds.
+	 */
+	public long getGcTime() {
+		return this.gcTime;
+	}
+
+	/** Replies the CPU time of the thread that has taken the snapshot.
+	 * 
+	 * @return the nano time, or {@code -1} if it is not measured.
+	 */
+	public long getThreadCpuTime() {
+		return this.threadCpuTime;
+	}
+
+	/** Replies the CPU time of the process, for all its threads.
+	 * 
+	 * @return the nano time, or {@code -1} if it is not measured.
+	 */
+	public long getProcessCpuTime() {
+		return this.processCpuTime;
+	}
+
+	/** Replies the number of times the thread that has taken the snapshot
+	 * gave up its processor, e.g. for waiting a lock or an input.
+	 * 
+	 * @return the number of context switches, or {@code -1} if it is not
+	 * measured.
+	 */
+	public long getVoluntaryContextSwitches() {
+		return this.voluntaryContextSwitches;
+	}
+
+	/** Replies the number of times the thread that has taken the snapshot
+	 * was preempted by the scheduler.
+	 * 
+	 * @return the number of context switches, or {@code -1} if it is not
+	 * measured.
+	 */
+	public long getInvoluntaryContextSwitches() {
+		return this.involuntaryContextSwitches;
+	}
+
+}
\ No newline at end of file
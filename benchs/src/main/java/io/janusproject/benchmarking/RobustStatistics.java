@@ -0,0 +1,166 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** Robust statistics on the raw durations of the calls of a run.
+ * <p>
+ * Unlike the average and the standard deviation, these statistics are
+ * not dominated by a few very long calls, e.g. during a garbage collection
+ * or a reconnection of a socket: the median, the median absolute deviation,
+ * the trimmed mean, the bootstrap confidence interval of the median, and
+ * the numbers of outliers beyond the fences of Tukey.
+ * <p>
+ * When more than {@link BenchConstants#STATISTICS_SAMPLE_NUMBER} durations
+ * were recorded, the statistics are computed on a uniform random sample of
+ * them, and the numbers of outliers are estimated from this sample.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public final class RobustStatistics {
+
+	private final long durationNumber;
+	private final int sampleNumber;
+	private final double median;
+	private final double medianAbsoluteDeviation;
+	private final double trimmedMean;
+	private final double medianLowerBound;
+	private final double medianUpperBound;
+	private final long lowOutlierNumber;
+	private final long highOutlierNumber;
+
+	private RobustStatistics(long durationNumber, double[] sorted, Random random) {
+		this.durationNumber = durationNumber;
+		this.sampleNumber = sorted.length;
+		this.median = Statistics.median(sorted);
+		this.medianAbsoluteDeviation = Statistics.medianAbsoluteDeviation(sorted);
+		this.trimmedMean = Statistics.trimmedMean(sorted, BenchConstants.TRIMMED_MEAN_PROPORTION);
+		double[] interval = Statistics.bootstrapMedianInterval(sorted,
+				BenchConstants.BOOTSTRAP_RESAMPLE_NUMBER, BenchConstants.CONFIDENCE_LEVEL, random);
+		this.medianLowerBound = interval[0];
+		this.medianUpperBound = interval[1];
+		int[] outliers = Statistics.tukeyOutliers(sorted, BenchConstants.OUTLIER_FENCE_FACTOR);
+		double scale = (double)durationNumber / sorted.length;
+		this.lowOutlierNumber = Math.round(outliers[0] * scale);
+		this.highOutlierNumber = Math.round(outliers[1] * scale);
+	}
+
+	/** Compute the statistics.
+	 * 
+	 * @param samples are the durations, or a uniform random sample of them.
+	 * @param size is the number of values in <var>samples</var>.
+	 * @param durationNumber is the number of recorded durations.
+	 * @param random is the random number generator of the bootstrap.
+	 * @return the statistics, or <code>null</code> if there is no duration.
+	 */
+	static RobustStatistics compute(long[] samples, int size, long durationNumber, Random random) {
+		if (size<=0) {
+			return null;
+		}
+		double[] sorted = new double[size];
+		for(int i=0; i<size; ++i) {
+			sorted[i] = samples[i];
+		}
+		Arrays.sort(sorted);
+		return new RobustStatistics(durationNumber, sorted, random);
+	}
+
+	/** Replies the number of recorded durations.
+	 * 
+	 * @return the number of durations.
+	 */
+	public long getDurationNumber() {
+		return this.durationNumber;
+	}
+
+	/** Replies the number of durations on which the statistics are computed.
+	 * 
+	 * @return the number of durations in the sample.
+	 */
+	public int getSampleNumber() {
+		return this.sampleNumber;
+	}
+
+	/** Replies the median of the durations.
+	 * 
+	 * @return the median in nanoseconds.
+	 */
+	public double getMedian() {
+		return this.median;
+	}
+
+	/** Replies the median absolute deviation of the durations.
+	 * 
+	 * @return the deviation in nanoseconds.
+	 */
+	public double getMedianAbsoluteDeviation() {
+		return this.medianAbsoluteDeviation;
+	}
+
+	/** Replies the mean of the durations without the
+	 * {@link BenchConstants#TRIMMED_MEAN_PROPORTION lowest and highest} ones.
+	 * 
+	 * @return the trimmed mean in nanoseconds.
+	 */
+	public double getTrimmedMean() {
+		return this.trimmedMean;
+	}
+
+	/** Replies the lower bound of the confidence interval of the median.
+	 * 
+	 * @return the lower bound in nanoseconds.
+	 * @see BenchConstants#CONFIDENCE_LEVEL
+	 */
+	public double getMedianLowerBound() {
+		return this.medianLowerBound;
+	}
+
+	/** Replies the upper bound of the confidence interval of the median.
+	 * 
+	 * @return the upper bound in nanoseconds.
+	 * @see BenchConstants#CONFIDENCE_LEVEL
+	 */
+	public double getMedianUpperBound() {
+		return this.medianUpperBound;
+	}
+
+	/** Replies the number of durations that are lower than the lower fence of Tukey.
+	 * 
+	 * @return the number of low outliers.
+	 */
+	public long getLowOutlierNumber() {
+		return this.lowOutlierNumber;
+	}
+
+	/** Replies the number of durations that are greater than the upper fence of Tukey.
+	 * 
+	 * @return the number of high outliers.
+	 */
+	public long getHighOutlierNumber() {
+		return this.highOutlierNumber;
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,104 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+/** Writer of the raw durations of the calls in a binary file.
+ * <p>
+ * The file is a sequence of big-endian values, as written by {@link DataOutputStream}:
+ * <ul>
+ * <li>the header: the magic number {@value #MAGIC_NUMBER} (<code>JBS1</code>) and
+ * the version {@value #VERSION}, as two <code>int</code>;</li>
+ * <li>blocks of durations. Each block starts with the identifier of the run as
+ * given in the JSON results, the index of the block in the blocks of the run and
+ * the number of durations, as three <code>int</code>. The durations of the block
+ * follow, in nanoseconds, as <code>long</code>.</li>
+ * </ul>
+ * The durations of a block are contiguous, so that they may be loaded as one
+ * column of a table without parsing.
+ * <p>
+ * The constants of the format are public for the readers of the file;
+ * the writer is used by {@link CsvBench} only.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public class SampleFileWriter implements AutoCloseable {
+
+	/** Magic number at the start of the file.
+	 */
+	public static final int MAGIC_NUMBER = 0x4A425331;
+
+	/** Version of the format.
+	 */
+	public static final int VERSION = 1;
+
+	private final DataOutputStream output;
+	private long sampleNumber = 0;
+
+	/**
+	 * @param file is the file to create.
+	 * @throws IOException
+	 */
+	SampleFileWriter(File file) throws IOException {
+		this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+		this.output.writeInt(MAGIC_NUMBER);
+		this.output.writeInt(VERSION);
+	}
+
+	/** Write a block of durations.
+	 * 
+	 * @param runId is the identifier of the run.
+	 * @param blockIndex is the index of the block in the blocks of the run.
+	 * @param samples are the durations.
+	 * @throws IOException
+	 */
+	void writeBlock(int runId, int blockIndex, long[] samples) throws IOException {
+		this.output.writeInt(runId);
+		this.output.writeInt(blockIndex);
+		this.output.writeInt(samples.length);
+		for(long sample : samples) {
+			this.output.writeLong(sample);
+		}
+		this.sampleNumber += samples.length;
+	}
+
+	/** Replies the number of durations that were written.
+	 * 
+	 * @return the number of durations.
+	 */
+	long getSampleNumber() {
+		return this.sampleNumber;
+	}
+
+	@Override
+	public void close() throws IOException {
+		this.output.close();
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,350 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/** Statistical functions that are used for comparing the results of benchs.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public final class Statistics {
+
+	/** Greatest number of values of a sample that are resampled by
+	 * the bootstrap. The greater samples are randomly reduced to this
+	 * number of values before the bootstrap.
+	 */
+	public static final int MAX_BOOTSTRAP_SAMPLE_SIZE = 10000;
+
+	private Statistics() {
+		//
+	}
+
+	/** Replies the value at the given percentile of sorted values,
+	 * with a linear interpolation between the closest ranks.
+	 * 
+	 * @param sorted are the values, in increasing order.
+	 * @param percentile is the percentile, between {@code 0} and {@code 100}.
+	 * @return the value, or {@link Double#NaN} if there is no value.
+	 */
+	public static double percentile(double[] sorted, double percentile) {
+		if (sorted.length==0) {
+			return Double.NaN;
+		}
+		double position = Math.min(100., Math.max(0., percentile)) / 100. * (sorted.length - 1);
+		int lower = (int)Math.floor(position);
+		int upper = Math.min(sorted.length - 1, lower + 1);
+		return sorted[lower] + (position - lower) * (sorted[upper] - sorted[lower]);
+	}
+
+	/** Replies the median of sorted values.
+	 * 
+	 * @param sorted are the values, in increasing order.
+	 * @return the median, or {@link Double#NaN} if there is no value.
+	 */
+	public static double median(double[] sorted) {
+		return percentile(sorted, 50.);
+	}
+
+	/** Replies the mean of sorted values in which a proportion of the
+	 * lowest and of the highest values are ignored.
+	 * 
+	 * @param sorted are the values, in increasing order.
+	 * @param proportion is the proportion of the values that are ignored
+	 * at each end, between {@code 0} and {@code 0.5}.
+	 * @return the trimmed mean, or {@link Double#NaN} if there is no value.
+	 */
+	public static double trimmedMean(double[] sorted, double proportion) {
+		if (sorted.length==0) {
+			return Double.NaN;
+		}
+		int trimmed = (int)Math.floor(sorted.length * Math.min(.5, Math.max(0., proportion)));
+		if (2 * trimmed>=sorted.length) {
+			return median(sorted);
+		}
+		double sum = 0.;
+		for(int i=trimmed; i<sorted.length-trimmed; ++i) {
+			sum += sorted[i];
+		}
+		return sum / (sorted.length - 2 * trimmed);
+	}
+
+	/** Replies the median absolute deviation of sorted values,
+	 * i.e. the median of the distances to the median.
+	 * The deviation is not scaled to be a consistent estimator of the
+	 * standard deviation.
+	 * 
+	 * @param sorted are the values, in increasing order.
+	 * @return the deviation, or {@link Double#NaN} if there is no value.
+	 */
+	public static double medianAbsoluteDeviation(double[] sorted) {
+		if (sorted.length==0) {
+			return Double.NaN;
+		}
+		double median = median(sorted);
+		double[] deviations = new double[sorted.length];
+		for(int i=0; i<sorted.length; ++i) {
+			deviations[i] = Math.abs(sorted[i] - median);
+		}
+		Arrays.sort(deviations);
+		return median(deviations);
+	}
+
+	/** Replies the number of values that are lower than the lower fence of
+	 * Tukey, <code>Q1 - factor * (Q3 - Q1)</code>, and the number of values
+	 * that are greater than the upper fence, <code>Q3 + factor * (Q3 - Q1)</code>.
+	 * 
+	 * @param sorted are the values, in increasing order.
+	 * @param factor is the factor of the interquartile range, usually {@code 1.5}.
+	 * @return the numbers of the low and of the high outliers.
+	 */
+	public static int[] tukeyOutliers(double[] sorted, double factor) {
+		int[] outliers = new int[2];
+		if (sorted.length>0) {
+			double q1 = percentile(sorted, 25.);
+			double q3 = percentile(sorted, 75.);
+			double lowFence = q1 - factor * (q3 - q1);
+			double highFence = q3 + factor * (q3 - q1);
+			for(int i=0; i<sorted.length && sorted[i]<lowFence; ++i) {
+				++outliers[0];
+			}
+			for(int i=sorted.length-1; i>=0 && sorted[i]>highFence; --i) {
+				++outliers[1];
+			}
+		}
+		return outliers;
+	}
+
+	/** Replies the confidence interval of the median of values,
+	 * estimated by a percentile bootstrap.
+	 * 
+	 * @param values are the values.
+	 * @param resamples is the number of bootstrap resamples.
+	 * @param confidence is the confidence level, between {@code 0} and {@code 1}.
+	 * @param random is the random number generator.
+	 * @return the lower and the upper bounds of the interval, or <code>null</code>
+	 * if there is no value.
+	 */
+	public static double[] bootstrapMedianInterval(double[] values, int resamples,
+			double confidence, Random random) {
+		if (values.length==0 || resamples<=0) {
+			return null;
+		}
+		double[] a = reduce(values, random);
+		double[] buffer = new double[a.length];
+		double[] medians = new double[resamples];
+		for(int r=0; r<resamples; ++r) {
+			medians[r] = resampleMedian(a, buffer, random);
+		}
+		Arrays.sort(medians);
+		double alpha = (1. - confidence) / 2.;
+		return new double[] {
+			percentile(medians, alpha * 100.),
+			percentile(medians, (1. - alpha) * 100.)
+		};
+	}
+
+	/** Replies the two-sided p-value of the Mann-Whitney U test.
+	 * <p>
+	 * The null hypothesis is that the values of the two samples are
+	 * coming from the same distribution. The normal approximation of
+	 * the U statistic is used, with the correction of the ties and the
+	 * continuity correction; it is not accurate for samples with less
+	 * than eight values.
+	 * 
+	 * @param a are the values of the first sample.
+	 * @param b are the values of the second sample.
+	 * @return the p-value, or {@link Double#NaN} if a sample is empty.
+	 */
+	public static double mannWhitneyPValue(double[] a, double[] b) {
+		int n1 = a.length;
+		int n2 = b.length;
+		if (n1==0 || n2==0) {
+			return Double.NaN;
+		}
+		int n = n1 + n2;
+		double[] sortedA = a.clone();
+		double[] sortedB = b.clone();
+		Arrays.sort(sortedA);
+		Arrays.sort(sortedB);
+		// Merge the sorted samples; the tied values are given their average rank
+		double rankSumA = 0.;
+		double tieCorrection = 0.;
+		int i = 0;
+		int j = 0;
+		int position = 0;
+		while (i<n1 || j<n2) {
+			double value = (j>=n2 || (i<n1 && sortedA[i]<=sortedB[j])) ? sortedA[i] : sortedB[j];
+			int countA = 0;
+			while (i<n1 && sortedA[i]==value) {
+				++i;
+				++countA;
+			}
+			int countB = 0;
+			while (j<n2 && sortedB[j]==value) {
+				++j;
+				++countB;
+			}
+			double t = countA + countB;
+			rankSumA += countA * (position + (t + 1.) / 2.);
+			tieCorrection += t * t * t - t;
+			position += countA + countB;
+		}
+		double u = rankSumA - n1 * (n1 + 1.) / 2.;
+		double mean = n1 * (double)n2 / 2.;
+		double variance = n1 * (double)n2 / 12. * ((n + 1.) - tieCorrection / ((double)n * (n - 1.)));
+		if (variance<=0.) {
+			return 1.;
+		}
+		double z = (Math.abs(u - mean) - .5) / Math.sqrt(variance);
+		if (z<=0.) {
+			return 1.;
+		}
+		return Math.min(1., 2. * (1. - normalCdf(z)));
+	}
+
+	/** Replies the cumulative distribution function of the standard
+	 * normal distribution.
+	 * 
+	 * @param z is the value.
+	 * @return the probability to have a value lower than or equal to <var>z</var>.
+	 */
+	public static double normalCdf(double z) {
+		return .5 * (1. + erf(z / Math.sqrt(2.)));
+	}
+
+	/** Error function, with the approximation 7.1.26 of Abramowitz and Stegun
+	 * (the absolute error is lower than <code>1.5e-7</code>).
+	 */
+	private static double erf(double x) {
+		double t = 1. / (1. + .3275911 * Math.abs(x));
+		double y = 1. - t * (.254829592 + t * (-.284496736 + t * (1.421413741
+				+ t * (-1.453152027 + t * 1.061405429)))) * Math.exp(-x * x);
+		return x>=0. ? y : -y;
+	}
+
+	/** Replies the confidence interval of the relative change of the median
+	 * between two samples, estimated by a percentile bootstrap.
+	 * <p>
+	 * The change is <code>median(candidate) / median(baseline) - 1</code>.
+	 * 
+	 * @param baseline are the values of the reference sample.
+	 * @param candidate are the values of the compared sample.
+	 * @param resamples is the number of bootstrap resamples.
+	 * @param confidence is the confidence level, between {@code 0} and {@code 1}.
+	 * @param random is the random number generator.
+	 * @return the lower and the upper bounds of the interval, or <code>null</code>
+	 * if a sample is empty.
+	 */
+	public static double[] bootstrapMedianChange(double[] baseline, double[] candidate,
+			int resamples, double confidence, Random random) {
+		if (baseline.length==0 || candidate.length==0 || resamples<=0) {
+			return null;
+		}
+		double[] a = reduce(baseline, random);
+		double[] b = reduce(candidate, random);
+		double[] bufferA = new double[a.length];
+		double[] bufferB = new double[b.length];
+		double[] changes = new double[resamples];
+		for(int r=0; r<resamples; ++r) {
+			double medianA = resampleMedian(a, bufferA, random);
+			double medianB = resampleMedian(b, bufferB, random);
+			changes[r] = medianB / medianA - 1.;
+		}
+		Arrays.sort(changes);
+		double alpha = (1. - confidence) / 2.;
+		return new double[] {
+			percentile(changes, alpha * 100.),
+			percentile(changes, (1. - alpha) * 100.)
+		};
+	}
+
+	private static double[] reduce(double[] values, Random random) {
+		if (values.length<=MAX_BOOTSTRAP_SAMPLE_SIZE) {
+			return values;
+		}
+		// Partial Fisher-Yates shuffle on a copy of the values
+		double[] copy = values.clone();
+		for(int i=0; i<MAX_BOOTSTRAP_SAMPLE_SIZE; ++i) {
+			int j = i + random.nextInt(copy.length - i);
+			double v = copy[i];
+			copy[i] = copy[j];
+			copy[j] = v;
+		}
+		return Arrays.copyOf(copy, MAX_BOOTSTRAP_SAMPLE_SIZE);
+	}
+
+	private static double resampleMedian(double[] values, double[] buffer, Random random) {
+		for(int i=0; i<buffer.length; ++i) {
+			buffer[i] = values[random.nextInt(values.length)];
+		}
+		// The median is selected without sorting the whole resample
+		int middle = (buffer.length - 1) / 2;
+		double lower = select(buffer, middle);
+		if (buffer.length % 2!=0) {
+			return lower;
+		}
+		double upper = buffer[middle + 1];
+		for(int i=middle+2; i<buffer.length; ++i) {
+			upper = Math.min(upper, buffer[i]);
+		}
+		return (lower + upper) / 2.;
+	}
+
+	/** Move the k-th smallest value at the index k, the lower values before
+	 * it and the greater values after it (quickselect of Hoare).
+	 */
+	private static double select(double[] values, int k) {
+		int left = 0;
+		int right = values.length - 1;
+		while (left<right) {
+			double pivot = values[(left + right) >>> 1];
+			int i = left;
+			int j = right;
+			while (i<=j) {
+				while (values[i]<pivot) ++i;
+				while (values[j]>pivot) --j;
+				if (i<=j) {
+					double v = values[i];
+					values[i] = values[j];
+					values[j] = v;
+					++i;
+					--j;
+				}
+			}
+			if (k<=j) {
+				right = j;
+			}
+			else if (k>=i) {
+				left = i;
+			}
+			else {
+				break;
+			}
+		}
+		return values[k];
+	}
+
+}
\ No newline at end of file
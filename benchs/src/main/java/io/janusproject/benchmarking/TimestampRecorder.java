@@ -0,0 +1,186 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.benchmarking;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** Recorder of pairs of nano times, e.g. the sending and arrival
+ * times of messages.
+ * <p>
+ * Each pair is stored with the time at which it should have started,
+ * e.g. the intended sending time of a message that was emitted late
+ * by an open-loop generator. By default, it is the start of the pair.
+ * <p>
+ * The pairs are stored in a ring of primitive values that is allocated
+ * when the recorder is created: the recording is lock-free and
+ * allocation-free, and the memory is bounded. When the ring is full,
+ * the oldest pairs are overwritten.
+ * <p>
+ * Several threads may record pairs concurrently. The recorded pairs
+ * are consistent for the readers when all the recording threads are
+ * finished, i.e. when the bench has received all the awaited events.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public class TimestampRecorder {
+
+	/** Number of times that are stored per pair. */
+	private static final int STRIDE = 3;
+
+	private final long[] times;
+	private final int mask;
+	private final AtomicLong claimed = new AtomicLong();
+	private final AtomicLong committed = new AtomicLong();
+
+	/**
+	 * @param capacity is the maximal number of pairs that are stored;
+	 * it is rounded up to a power of two.
+	 */
+	public TimestampRecorder(int capacity) {
+		if (capacity<=0 || capacity>(1<<29)) {
+			throw new IllegalArgumentException(Integer.toString(capacity));
+		}
+		int size = Integer.highestOneBit(capacity);
+		if (size<capacity) {
+			size <<= 1;
+		}
+		this.mask = size - 1;
+		this.times = new long[size * STRIDE];
+	}
+
+	/** Record a pair of times.
+	 * 
+	 * @param start is the first time of the pair, e.g. the sending time.
+	 * @param end is the second time of the pair, e.g. the arrival time.
+	 */
+	public void record(long start, long end) {
+		record(start, start, end);
+	}
+
+	/** Record a pair of times that should have started at the given time.
+	 * 
+	 * @param intendedStart is the time at which the pair should have started,
+	 * e.g. the intended sending time.
+	 * @param start is the first time of the pair, e.g. the sending time.
+	 * @param end is the second time of the pair, e.g. the arrival time.
+	 */
+	public void record(long intendedStart, long start, long end) {
+		int slot = (int)(this.claimed.getAndIncrement() & this.mask) * STRIDE;
+		this.times[slot] = start;
+		this.times[slot+1] = end;
+		this.times[slot+2] = intendedStart;
+		this.committed.incrementAndGet();
+	}
+
+	/** Replies the maximal number of pairs that are stored.
+	 * 
+	 * @return the capacity.
+	 */
+	public int getCapacity() {
+		return this.mask + 1;
+	}
+
+	/** Replies the number of pairs that were recorded,
+	 * including the overwritten pairs.
+	 * 
+	 * @return the number of recorded pairs.
+	 */
+	public long getRecordedCount() {
+		return this.committed.get();
+	}
+
+	/** Replies the number of pairs that were overwritten
+	 * because the ring was full.
+	 * 
+	 * @return the number of lost pairs.
+	 */
+	public long getOverwrittenCount() {
+		return Math.max(0, this.committed.get() - getCapacity());
+	}
+
+	/** Replies the number of pairs that are stored.
+	 * 
+	 * @return the number of available pairs.
+	 */
+	public int size() {
+		return (int)Math.min(this.committed.get(), getCapacity());
+	}
+
+	private int slot(int index) {
+		long count = this.committed.get();
+		long oldest = Math.max(0, count - getCapacity());
+		if (index<0 || index>=count-oldest) {
+			throw new IndexOutOfBoundsException(Integer.toString(index));
+		}
+		return (int)((oldest + index) & this.mask) * STRIDE;
+	}
+
+	/** Replies the first time of a stored pair.
+	 * 
+	 * @param index is the index of the pair, from the oldest stored pair.
+	 * @return the first time of the pair.
+	 */
+	public long getStart(int index) {
+		return this.times[slot(index)];
+	}
+
+	/** Replies the second time of a stored pair.
+	 * 
+	 * @param index is the index of the pair, from the oldest stored pair.
+	 * @return the second time of the pair.
+	 */
+	public long getEnd(int index) {
+		return this.times[slot(index)+1];
+	}
+
+	/** Replies the time at which a stored pair should have started.
+	 * 
+	 * @param index is the index of the pair, from the oldest stored pair.
+	 * @return the intended first time of the pair.
+	 */
+	public long getIntendedStart(int index) {
+		return this.times[slot(index)+2];
+	}
+
+	/** Replies the delay between the intended start and the start of a stored pair.
+	 * 
+	 * @param index is the index of the pair, from the oldest stored pair.
+	 * @return the first time minus the intended first time of the pair.
+	 */
+	public long getDelay(int index) {
+		int slot = slot(index);
+		return this.times[slot] - this.times[slot+2];
+	}
+
+	/** Replies the difference between the times of a stored pair.
+	 * 
+	 * @param index is the index of the pair, from the oldest stored pair.
+	 * @return the second time minus the first time of the pair.
+	 */
+	public long getDuration(int index) {
+		int slot = slot(index);
+		return this.times[slot+1] - this.times[slot];
+	}
+
+}
\ No newline at end of file
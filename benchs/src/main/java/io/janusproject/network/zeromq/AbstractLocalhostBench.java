@@ -20,8 +20,12 @@
 package io.janusproject.network.zeromq;
 
 import io.janusproject.JanusConfig;
+import io.janusproject.benchmarking.BenchConstants;
 import io.janusproject.benchmarking.BenchRun;
+import io.janusproject.benchmarking.BenchRunFactory;
+import io.janusproject.benchmarking.BenchSweep;
 import io.janusproject.benchmarking.CsvBench;
+import io.janusproject.kernel.DistributedSpace;
 import io.janusproject.kernel.Network;
 import io.sarl.lang.core.Event;
 import io.sarl.lang.core.Scope;
@@ -32,8 +36,9 @@ import io.sarl.util.Scopes;
 import java.io.File;
 import java.io.IOException;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.logging.Logger;
 
 import org.arakhne.afc.vmutil.locale.Locale;
 
@@ -43,6 +48,10 @@ import com.google.inject.Injector;
 import com.google.inject.Module;
 
 /** Abstract implementation of a benchmarking tool for the ZeroMQ layer on a single host.
+ * <p>
+ * The function <code>Publish</code> measures the durations of the publications
+ * by the source. The function <code>Delivery</code> measures the one-way transit
+ * times of the events from the source to the target.
  * 
  * @author $Author: sgalland$
  * @version $FullVersion$
@@ -74,6 +83,25 @@ public abstract class AbstractLocalhostBench extends CsvBench<BenchRun> {
 
 	/** Default event to send. */
 	protected Event defaultEvent;
+
+	/** Name of the bench function that is measuring the transit
+	 * times of the events from the source to the target.
+	 */
+	private static final String DELIVERY = "Delivery"; //$NON-NLS-1$
+
+	/** Number of runs of the bench function that is measuring
+	 * the transit times; one event is sent per run.
+	 */
+	private static final int DELIVERY_RUN_NUMBER = 200;
+
+	/** Indicates if the current run is warming up. */
+	private volatile boolean warmingUp = false;
+
+	/** Warmup messages that are delivered to the targets. */
+	private final WarmupTraffic warmupTraffic = new WarmupTraffic();
+
+	/** Indicates if the target is subscribing to the source. */
+	private boolean targetConnected = false;
 	
 	/**
 	 * @param directory - the directory that shold contains the CSV file.
@@ -91,8 +119,29 @@ public abstract class AbstractLocalhostBench extends CsvBench<BenchRun> {
 	}
 
 	@Override
-	protected Collection<BenchRun> determineRuns(String benchFunctionName) {
-		return Collections.singleton(new BenchRun(benchFunctionName));
+	protected Collection<BenchRun> determineRuns(final String benchFunctionName) {
+		return BenchSweep.cartesianProduct(benchFunctionName,
+				new BenchRunFactory<BenchRun>() {
+					@Override
+					public BenchRun newRun(String name) {
+						return createRun(benchFunctionName, name);
+					}
+				},
+				getSweepAxes(benchFunctionName));
+	}
+
+	/** Create a run of the given bench function.
+	 * 
+	 * @param benchFunctionName is the name of the bench function.
+	 * @param runName is the name of the run.
+	 * @return the run.
+	 */
+	protected BenchRun createRun(String benchFunctionName, String runName) {
+		if (DELIVERY.equals(benchFunctionName)) {
+			// One-way transit times: no scaling
+			return new RemoteBenchRun(runName, 1f);
+		}
+		return new BenchRun(runName);
 	}
 	
 	/** Replies the injection module to use.
@@ -105,18 +154,6 @@ public abstract class AbstractLocalhostBench extends CsvBench<BenchRun> {
 	public void initialize() throws Exception {
 		super.initialize();
 		
-		System.setProperty(JanusConfig.PUB_URI, ZMQConstants.LOCALHOST_SOURCE_PEER);
-		Injector injector = Guice.createInjector(getInjectionModule());
-		
-		this.networkSource = injector.getInstance(Network.class);
-
-		System.setProperty(JanusConfig.PUB_URI, ZMQConstants.LOCALHOST_TARGET_PEER);
-		injector = Guice.createInjector(
-				new BenchmarkingModule(
-						JavaBinaryEventSerializer.class,
-						PlainTextEncrypter.class));
-		this.networkTarget = injector.getInstance(Network.class);
-
 		this.scope = Scopes.allParticipants();
 		this.contextId = UUID.randomUUID();
 		this.id = UUID.randomUUID();
@@ -126,23 +163,184 @@ public abstract class AbstractLocalhostBench extends CsvBench<BenchRun> {
 				OpenEventSpaceSpecification.class);
 		this.defaultEvent = NoEvent.INSTANCE;
 
-		this.networkTarget.startAsync();
-		this.networkSource.startAsync();
-		
-		this.networkSource.awaitRunning();
-		this.networkTarget.awaitRunning();
-		
-		this.networkSource.connectPeer(ZMQConstants.LOCALHOST_TARGET_PEER);
+		if (!isReportingOnly()) {
+			System.setProperty(JanusConfig.PUB_URI, ZMQConstants.LOCALHOST_SOURCE_PEER);
+			Injector injector = Guice.createInjector(getInjectionModule());
+			
+			this.networkSource = injector.getInstance(Network.class);
+
+			System.setProperty(JanusConfig.PUB_URI, ZMQConstants.LOCALHOST_TARGET_PEER);
+			injector = Guice.createInjector(getInjectionModule());
+			this.networkTarget = injector.getInstance(Network.class);
+
+			this.networkTarget.startAsync();
+			this.networkSource.startAsync();
+			
+			this.networkSource.awaitRunning();
+			this.networkTarget.awaitRunning();
+			
+			this.networkSource.connectPeer(ZMQConstants.LOCALHOST_TARGET_PEER);
+			
+			this.networkTarget.register(new DSpace());
+		}
 		
 		setNumberOfCalls(1); // Call the "bench" functions once time
 		setNumberOfRuns(2); // Generate multi rows in the CSV
+		setCallRecording(true); // Report the percentiles of the call durations
+		setSteadyStateThreshold(BenchConstants.DEFAULT_STEADY_STATE_THRESHOLD); // Warm up until the JIT is stable, when the warmup is enabled
+	}
+
+	@Override
+	public void onStartDeclaredBenchFunction(String benchFunctionName) throws Exception {
+		setNumberOfRuns(DELIVERY.equals(benchFunctionName) ? DELIVERY_RUN_NUMBER : 2);
+		if (DELIVERY.equals(benchFunctionName)) {
+			// One event per run
+			setForcedCounts(false);
+		}
+		if (isTargetSubscribing(benchFunctionName) && !isReportingOnly()) {
+			// The target is subscribing to the source only when the events
+			// must be delivered, for not loading the other bench functions
+			this.networkTarget.connectPeer(ZMQConstants.LOCALHOST_SOURCE_PEER);
+			this.targetConnected = true;
+		}
+		super.onStartDeclaredBenchFunction(benchFunctionName);
+	}
+
+	/** Replies if the target must subscribe to the source during
+	 * the given bench function. Without subscriber, the events that
+	 * are published by the source are dropped.
+	 * 
+	 * @param benchFunctionName is the name of the bench function.
+	 * @return <code>true</code> if the events must be delivered to the target.
+	 */
+	protected boolean isTargetSubscribing(String benchFunctionName) {
+		return DELIVERY.equals(benchFunctionName);
+	}
+
+	@Override
+	protected void addRunHeaders(List<Object> columns) {
+		super.addRunHeaders(columns);
+		Collection<BenchRun> runs = getRunRanges();
+		if (!runs.isEmpty() && runs.iterator().next() instanceof RemoteBenchRun) {
+			columns.add(Locale.getString(AbstractLocalhostBench.class, "COLUMN_LOST_MESSAGES")); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	protected void addRunColumns(BenchRun run, List<Object> columns) {
+		super.addRunColumns(run, columns);
+		if (run instanceof RemoteBenchRun) {
+			columns.add(((RemoteBenchRun)run).getLostEventNumber());
+		}
+	}
+
+	@Override
+	public void onStartBenchCalls(BenchRun run) throws Exception {
+		super.onStartBenchCalls(run);
+		if (run instanceof RemoteBenchRun) {
+			// The recorder of the transit times must not be allocated during the measures
+			((RemoteBenchRun)run).prepareEvents((long)getNumberOfCalls() * getReceiverNumber(run));
+		}
+	}
+
+	/** Replies the number of peers that are receiving each event
+	 * that is published during the given run.
+	 * 
+	 * @param run is the run.
+	 * @return the number of receivers.
+	 */
+	protected int getReceiverNumber(BenchRun run) {
+		return 1;
+	}
+
+	/** Replies if the current run is warming up.
+	 * 
+	 * @return <code>true</code> if the calls are warmup calls.
+	 */
+	protected boolean isWarmingUp() {
+		return this.warmingUp;
+	}
+
+	@Override
+	public void onStartWarmup(BenchRun run) throws Exception {
+		super.onStartWarmup(run);
+		this.warmingUp = true;
+	}
+
+	@Override
+	public void onEndWarmup(BenchRun run) throws Exception {
+		// The first measured message must not be queued behind the warmup messages
+		long lost = this.warmupTraffic.await(ZMQConstants.NETWORK_TIMEOUT);
+		if (lost>0) {
+			Logger.getAnonymousLogger().warning(
+					Locale.getString(AbstractLocalhostBench.class, "LOST_WARMUP_MESSAGES", run.getName(), lost)); //$NON-NLS-1$
+		}
+		this.warmingUp = false;
+		super.onEndWarmup(run);
+	}
+
+	/** Count the warmup messages that are sent to the targets.
+	 * 
+	 * @param count is the number of expected receptions of the messages.
+	 */
+	protected void addWarmupMessages(int count) {
+		this.warmupTraffic.sent(count);
+	}
+
+	@Override
+	public void onEndBenchCalls(BenchRun run) throws Exception {
+		if (run instanceof RemoteBenchRun && !isReportingOnly()) {
+			// Wait until all the messages of the calls were arrived
+			long lost = ((RemoteBenchRun)run).awaitEvents(ZMQConstants.NETWORK_TIMEOUT);
+			if (lost>0) {
+				Logger.getAnonymousLogger().warning(
+						Locale.getString(AbstractLocalhostBench.class, "LOST_MESSAGES", run.getName(), lost)); //$NON-NLS-1$
+			}
+		}
+		super.onEndBenchCalls(run);
+	}
+
+	/** Create the event that is published by the function <code>Delivery</code>.
+	 * 
+	 * @param warmup indicates if the event is sent during the warmup of a run.
+	 * @return the event.
+	 */
+	protected RemoteBenchEvent createDeliveryEvent(boolean warmup) {
+		return new RemoteBenchEvent(warmup);
+	}
+
+	/** Publish an event and measure its transit time until
+	 * it is received by the target.
+	 * 
+	 * @throws Exception
+	 */
+	public void benchDelivery() throws Exception {
+		boolean warmup = this.warmingUp;
+		if (!warmup) {
+			((RemoteBenchRun)getCurrentRun()).incrementEventCounter();
+		}
+		else {
+			addWarmupMessages(1);
+		}
+		this.networkSource.publish(this.spaceId, this.scope, createDeliveryEvent(warmup));
+	}
+
+	private void onReceived(long receivingTime, RemoteBenchEvent event) {
+		BenchRun run = getCurrentRun();
+		if (event.isWarmup()) {
+			this.warmupTraffic.received();
+		}
+		else if (run instanceof RemoteBenchRun) {
+			event.setArrivalTime(receivingTime);
+			((RemoteBenchRun)run).decrementEventCounter(event);
+		}
 	}
 
 	@Override
 	public void onEndDeclaredBenchFunction() throws Exception {
 		int i=0;
 		for(BenchRun r : getTerminatedRuns()) {
-			writeRecord(
+			writeRunRecord(r,
 				i,
 				r.getName(),
 				r.getRunDuration(),
@@ -151,13 +349,22 @@ public abstract class AbstractLocalhostBench extends CsvBench<BenchRun> {
 				getSystemLoadAverage());
 			++i;
 		}
+		if (this.targetConnected) {
+			this.networkTarget.disconnectPeer(ZMQConstants.LOCALHOST_SOURCE_PEER);
+			this.targetConnected = false;
+		}
 		super.onEndDeclaredBenchFunction();
 	}
 	
 	@Override
 	public void dispose() throws Exception {
-		this.networkSource.stopAsync();
-		this.networkTarget.stopAsync();
+		this.targetConnected = false;
+		if (this.networkSource!=null) {
+			this.networkSource.stopAsync();
+		}
+		if (this.networkTarget!=null) {
+			this.networkTarget.stopAsync();
+		}
 		this.networkSource = this.networkTarget = null;
 		this.defaultEvent = null;
 		this.spaceId = null;
@@ -165,5 +372,36 @@ public abstract class AbstractLocalhostBench extends CsvBench<BenchRun> {
 		this.contextId = this.id = null;
 		super.dispose();
 	}
-	
+
+	/**
+	 * @author $Author: sgalland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 2.0.0
+	 */
+	public class DSpace implements DistributedSpace {
+
+		/**
+		 */
+		public DSpace() {
+			//
+		}
+
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public SpaceID getID() {
+			return AbstractLocalhostBench.this.spaceId;
+		}
+
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public void recv(Scope<?> scope, Event envelope) {
+			if (envelope instanceof RemoteBenchEvent) {
+				onReceived(System.nanoTime(), (RemoteBenchEvent)envelope);
+			}
+		}
+
+	} /* class DSpace */
+
 }
\ No newline at end of file
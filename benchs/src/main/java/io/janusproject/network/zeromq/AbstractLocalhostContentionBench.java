@@ -0,0 +1,331 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.network.zeromq;
+
+import io.janusproject.benchmarking.BenchAxis;
+import io.janusproject.benchmarking.BenchConstants;
+import io.janusproject.benchmarking.BenchRun;
+import io.janusproject.benchmarking.LatencyHistogram;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.arakhne.afc.vmutil.locale.Locale;
+
+/** Abstract implementation of a benchmarking tool for the ZeroMQ layer on localhost,
+ * with several threads that are publishing through the same network.
+ * <p>
+ * Each call to the function <code>ConcurrentPublish</code> starts the producer
+ * threads together; each thread publishes {@link ZMQConstants#CONTENTION_PUBLISH_NUMBER}
+ * events and records the duration of each publication. The function is run for
+ * 1, 2, 4... threads, up to the number of available processors, and
+ * {@link ZMQConstants#CONTENTION_RUN_NUMBER} times for each number of threads.
+ * Each of these runs is a distinct run range, so that the statistics of a run
+ * are not merged with the ones of the previous runs.
+ * The aggregate throughput and the durations of the publications are written in
+ * the CSV file; the durations per thread are written in
+ * <code>ConcurrentPublish-threads.csv</code>.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public abstract class AbstractLocalhostContentionBench extends AbstractLocalhostBench {
+
+	/** Name of the bench function with several producers.
+	 */
+	private static final String CONCURRENT_PUBLISH = "ConcurrentPublish"; //$NON-NLS-1$
+
+	/** Name of the axis of the runs for a same number of threads. */
+	private static final String RUN_AXIS = "run"; //$NON-NLS-1$
+
+	private ExecutorService executor = null;
+	private int executorSize = 0;
+
+	/**
+	 * @param directory - the directory that shold contains the CSV file.
+	 * @param title - the title of the benchmarks.
+	 * @throws IOException
+	 */
+	public AbstractLocalhostContentionBench(File directory, String title) throws IOException {
+		super(directory, title);
+	}
+
+	/** Replies the numbers of producer threads: the powers of two
+	 * lower than the number of available processors, and the number
+	 * of available processors.
+	 * 
+	 * @return the numbers of threads.
+	 */
+	private static Object[] getThreadNumbers() {
+		int processors = Runtime.getRuntime().availableProcessors();
+		List<Object> threads = new ArrayList<>();
+		for(int n=1; n<processors; n*=2) {
+			threads.add(n);
+		}
+		threads.add(processors);
+		return threads.toArray();
+	}
+
+	/** Replies the indexes of the runs for a same number of threads.
+	 * 
+	 * @return the indexes of the runs.
+	 */
+	private static Object[] getRunIndexes() {
+		Object[] indexes = new Object[ZMQConstants.CONTENTION_RUN_NUMBER];
+		for(int i=0; i<indexes.length; ++i) {
+			indexes[i] = i;
+		}
+		return indexes;
+	}
+
+	@Override
+	protected BenchAxis[] getSweepAxes(String benchFunctionName) {
+		if (CONCURRENT_PUBLISH.equals(benchFunctionName)) {
+			return new BenchAxis[] {
+				BenchAxis.values(ConcurrentBenchRun.THREAD_PARAMETER, getThreadNumbers()),
+				BenchAxis.values(RUN_AXIS, getRunIndexes())
+			};
+		}
+		return super.getSweepAxes(benchFunctionName);
+	}
+
+	@Override
+	protected BenchRun createRun(String benchFunctionName, String runName) {
+		if (CONCURRENT_PUBLISH.equals(benchFunctionName)) {
+			return new ConcurrentBenchRun(runName);
+		}
+		return super.createRun(benchFunctionName, runName);
+	}
+
+	@Override
+	public void onStartDeclaredBenchFunction(String benchFunctionName) throws Exception {
+		if (CONCURRENT_PUBLISH.equals(benchFunctionName)) {
+			// A call is a burst of publications from all the threads
+			setWarmup(BenchConstants.DEFAULT_WARMUP_BATCH_NUMBER, 1);
+			setForcedCounts(false);
+		}
+		else {
+			setWarmup(BenchConstants.DEFAULT_WARMUP_BATCH_NUMBER, BenchConstants.DEFAULT_WARMUP_BATCH_SIZE);
+		}
+		super.onStartDeclaredBenchFunction(benchFunctionName);
+		if (CONCURRENT_PUBLISH.equals(benchFunctionName)) {
+			// The same run object is used by all the repetitions of a run range,
+			// which would merge their histograms; the runs are given by the sweep
+			setNumberOfRuns(1);
+		}
+	}
+
+	@Override
+	protected void addRunHeaders(List<Object> columns) {
+		super.addRunHeaders(columns);
+		Collection<BenchRun> runs = getRunRanges();
+		if (!runs.isEmpty() && runs.iterator().next() instanceof ConcurrentBenchRun) {
+			columns.add(Locale.getString(AbstractLocalhostContentionBench.class, "COLUMN_AGGREGATE_THROUGHPUT")); //$NON-NLS-1$
+			columns.add(Locale.getString(AbstractLocalhostContentionBench.class, "COLUMN_BEST_THREAD_P99")); //$NON-NLS-1$
+			columns.add(Locale.getString(AbstractLocalhostContentionBench.class, "COLUMN_WORST_THREAD_P99")); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	protected void addRunColumns(BenchRun run, List<Object> columns) {
+		super.addRunColumns(run, columns);
+		if (run instanceof ConcurrentBenchRun) {
+			ConcurrentBenchRun concurrentRun = (ConcurrentBenchRun)run;
+			long best = Long.MAX_VALUE;
+			long worst = -1;
+			for(int i=0; i<concurrentRun.getThreadNumber(); ++i) {
+				long p99 = concurrentRun.getThreadHistogram(i).getValueAtPercentile(99.);
+				best = Math.min(best, p99);
+				worst = Math.max(worst, p99);
+			}
+			columns.add(concurrentRun.getAggregateThroughput());
+			columns.add(worst<0 ? -1 : best);
+			columns.add(worst);
+		}
+	}
+
+	/** Start the producer threads together, and wait until each of
+	 * them has published {@link ZMQConstants#CONTENTION_PUBLISH_NUMBER} events.
+	 * 
+	 * @throws Exception
+	 */
+	public void benchConcurrentPublish() throws Exception {
+		ConcurrentBenchRun run = (ConcurrentBenchRun)getCurrentRun();
+		boolean warmup = isWarmingUp();
+		int threads = run.getThreadNumber();
+		ExecutorService service = getExecutor(threads);
+		CountDownLatch startSignal = new CountDownLatch(1);
+		List<Future<Void>> producers = new ArrayList<>(threads);
+		for(int i=0; i<threads; ++i) {
+			// The warmup durations are discarded
+			LatencyHistogram histogram = warmup ? new LatencyHistogram() : run.getThreadHistogram(i);
+			producers.add(service.submit(new Producer(startSignal, histogram)));
+		}
+		long startTime = System.nanoTime();
+		startSignal.countDown();
+		for(Future<Void> producer : producers) {
+			producer.get();
+		}
+		long duration = System.nanoTime() - startTime;
+		if (!warmup) {
+			run.addBurst((long)threads * ZMQConstants.CONTENTION_PUBLISH_NUMBER, duration);
+		}
+	}
+
+	private ExecutorService getExecutor(int threads) {
+		if (this.executor==null || this.executorSize!=threads) {
+			shutdownExecutor();
+			this.executor = Executors.newFixedThreadPool(threads);
+			this.executorSize = threads;
+		}
+		return this.executor;
+	}
+
+	private void shutdownExecutor() {
+		if (this.executor!=null) {
+			this.executor.shutdownNow();
+			this.executor = null;
+			this.executorSize = 0;
+		}
+	}
+
+	@Override
+	public void onEndDeclaredBenchFunction() throws Exception {
+		shutdownExecutor();
+		List<ConcurrentBenchRun> runs = new ArrayList<>();
+		// The same run may be terminated several times
+		Set<BenchRun> terminatedRuns = Collections.newSetFromMap(new IdentityHashMap<BenchRun,Boolean>());
+		for(BenchRun run : getTerminatedRuns()) {
+			if (run instanceof ConcurrentBenchRun && terminatedRuns.add(run)) {
+				runs.add((ConcurrentBenchRun)run);
+			}
+		}
+		if (!runs.isEmpty()) {
+			writeThreadDurations(runs);
+		}
+		super.onEndDeclaredBenchFunction();
+	}
+
+	/** Write the durations of the publications per thread in the CSV file
+	 * <code>ConcurrentPublish-threads.csv</code>.
+	 * 
+	 * @param runs are the runs to write.
+	 * @throws IOException
+	 */
+	private void writeThreadDurations(List<ConcurrentBenchRun> runs) throws IOException {
+		File csvFile = new File(getOutputDirectory(), CONCURRENT_PUBLISH+"-threads.csv"); //$NON-NLS-1$
+		try(BufferedWriter w = new BufferedWriter(new FileWriter(csvFile))) {
+			w.write("#"); //$NON-NLS-1$
+			w.write(Locale.getString(AbstractLocalhostContentionBench.class, "COLUMN_RUN")); //$NON-NLS-1$
+			w.write("\t"); //$NON-NLS-1$
+			w.write(Locale.getString(AbstractLocalhostContentionBench.class, "COLUMN_THREAD")); //$NON-NLS-1$
+			w.write("\t"); //$NON-NLS-1$
+			w.write(Locale.getString(AbstractLocalhostContentionBench.class, "COLUMN_PUBLICATIONS")); //$NON-NLS-1$
+			w.write("\t"); //$NON-NLS-1$
+			w.write(Locale.getString(AbstractLocalhostContentionBench.class, "COLUMN_AVERAGE")); //$NON-NLS-1$
+			for(double percentile : BenchConstants.REPORTED_PERCENTILES) {
+				w.write("\t"); //$NON-NLS-1$
+				w.write(Locale.getString(AbstractLocalhostContentionBench.class, "COLUMN_PERCENTILE", formatPercentile(percentile))); //$NON-NLS-1$
+			}
+			w.write("\t"); //$NON-NLS-1$
+			w.write(Locale.getString(AbstractLocalhostContentionBench.class, "COLUMN_MAX")); //$NON-NLS-1$
+			w.write("\n"); //$NON-NLS-1$
+			for(ConcurrentBenchRun run : runs) {
+				for(int i=0; i<run.getThreadNumber(); ++i) {
+					LatencyHistogram histogram = run.getThreadHistogram(i);
+					w.write(run.getName());
+					w.write("\t"); //$NON-NLS-1$
+					w.write(Integer.toString(i));
+					w.write("\t"); //$NON-NLS-1$
+					w.write(Long.toString(histogram.getTotalCount()));
+					w.write("\t"); //$NON-NLS-1$
+					w.write(Double.toString(histogram.getMean()));
+					for(double percentile : BenchConstants.REPORTED_PERCENTILES) {
+						w.write("\t"); //$NON-NLS-1$
+						w.write(Long.toString(histogram.getValueAtPercentile(percentile)));
+					}
+					w.write("\t"); //$NON-NLS-1$
+					w.write(Long.toString(histogram.getMaxValue()));
+					w.write("\n"); //$NON-NLS-1$
+				}
+			}
+		}
+	}
+
+	@Override
+	public void dispose() throws Exception {
+		shutdownExecutor();
+		super.dispose();
+	}
+
+	/** Producer thread.
+	 * 
+	 * @author $Author: sgalland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 2.0.0
+	 */
+	private class Producer implements Callable<Void> {
+
+		private final CountDownLatch startSignal;
+		private final LatencyHistogram histogram;
+
+		/**
+		 * @param startSignal is the signal that is starting all the producers together.
+		 * @param histogram is the histogram to fill.
+		 */
+		public Producer(CountDownLatch startSignal, LatencyHistogram histogram) {
+			this.startSignal = startSignal;
+			this.histogram = histogram;
+		}
+
+		@SuppressWarnings("synthetic-access")
+		@Override
+		public Void call() throws Exception {
+			AbstractLocalhostContentionBench bench = AbstractLocalhostContentionBench.this;
+			this.startSignal.await();
+			for(int i=0; i<ZMQConstants.CONTENTION_PUBLISH_NUMBER; ++i) {
+				long startTime = System.nanoTime();
+				bench.networkSource.publish(bench.spaceId, bench.scope, bench.defaultEvent);
+				this.histogram.recordValue(System.nanoTime() - startTime);
+			}
+			return null;
+		}
+
+	} /* class Producer */
+
+}
\ No newline at end of file
@@ -0,0 +1,264 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.network.zeromq;
+
+import io.janusproject.JanusConfig;
+import io.janusproject.benchmarking.BenchAxis;
+import io.janusproject.benchmarking.BenchRun;
+import io.janusproject.kernel.Network;
+
+import io.sarl.lang.core.Event;
+import io.sarl.lang.core.Scope;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.arakhne.afc.vmutil.locale.Locale;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+/** Abstract implementation of a benchmarking tool for the ZeroMQ layer on localhost,
+ * with one source that is publishing to several target peers.
+ * <p>
+ * The targets are started on the localhost ports from
+ * {@link ZMQConstants#LOCALHOST_FANOUT_BASE_PORT}, and they are all subscribing
+ * to the source. The function <code>FanoutPublish</code> measures the durations of
+ * the publications, and the function <code>FanoutDelivery</code> measures the
+ * transit times from the source to each target. Both are run for each number of
+ * targets in {@link ZMQConstants#FANOUT_PEER_NUMBERS}.
+ * <p>
+ * A publisher drops the messages until the subscriptions of a new target are
+ * established. Before the calls, a {@link ProbeEvent} is therefore published until
+ * every target has received it.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public abstract class AbstractLocalhostFanoutBench extends AbstractLocalhostBench {
+
+	/** Name of the bench function that is measuring the publications.
+	 */
+	private static final String FANOUT_PUBLISH = "FanoutPublish"; //$NON-NLS-1$
+
+	/** Name of the bench function that is measuring the transit times.
+	 */
+	private static final String FANOUT_DELIVERY = "FanoutDelivery"; //$NON-NLS-1$
+
+	/** Name of the axis of the numbers of targets. */
+	private static final String PEER_AXIS = "peers"; //$NON-NLS-1$
+
+	/** Number of runs of the bench function that is measuring
+	 * the transit times; one event is sent per run.
+	 */
+	private static final int FANOUT_DELIVERY_RUN_NUMBER = 50;
+
+	/** Target peers. */
+	private final List<Network> targets = new ArrayList<>();
+
+	/** Spaces of the target peers, in the same order as the peers. */
+	private final List<TargetSpace> targetSpaces = new ArrayList<>();
+
+	/**
+	 * @param directory - the directory that shold contains the CSV file.
+	 * @param title - the title of the benchmarks.
+	 * @throws IOException
+	 */
+	public AbstractLocalhostFanoutBench(File directory, String title) throws IOException {
+		super(directory, title);
+	}
+
+	@Override
+	protected BenchAxis[] getSweepAxes(String benchFunctionName) {
+		if (FANOUT_PUBLISH.equals(benchFunctionName) || FANOUT_DELIVERY.equals(benchFunctionName)) {
+			return new BenchAxis[] {
+				BenchAxis.values(PEER_AXIS, (Object[])ZMQConstants.FANOUT_PEER_NUMBERS)
+			};
+		}
+		return super.getSweepAxes(benchFunctionName);
+	}
+
+	@Override
+	protected BenchRun createRun(String benchFunctionName, String runName) {
+		if (FANOUT_DELIVERY.equals(benchFunctionName)) {
+			// One-way transit times: no scaling
+			return new RemoteBenchRun(runName, 1f);
+		}
+		return super.createRun(benchFunctionName, runName);
+	}
+
+	@Override
+	public void onStartDeclaredBenchFunction(String benchFunctionName) throws Exception {
+		super.onStartDeclaredBenchFunction(benchFunctionName);
+		if (FANOUT_DELIVERY.equals(benchFunctionName)) {
+			setNumberOfRuns(FANOUT_DELIVERY_RUN_NUMBER);
+			setForcedCounts(false);
+		}
+	}
+
+	@Override
+	public void onStartBenchCalls(BenchRun run) throws Exception {
+		super.onStartBenchCalls(run);
+		setTargetNumber(run.getIntParameter(PEER_AXIS, 0));
+	}
+
+	@Override
+	protected int getReceiverNumber(BenchRun run) {
+		return run.getIntParameter(PEER_AXIS, 0);
+	}
+
+	/** Start or stop target peers until the given number of them is running.
+	 * 
+	 * @param count is the number of target peers.
+	 * @throws Exception
+	 */
+	private void setTargetNumber(int count) throws Exception {
+		while (this.targets.size()>count) {
+			Network target = this.targets.remove(this.targets.size()-1);
+			this.targetSpaces.remove(this.targetSpaces.size()-1);
+			target.stopAsync();
+			target.awaitTerminated();
+		}
+		while (this.targets.size()<count) {
+			int port = ZMQConstants.LOCALHOST_FANOUT_BASE_PORT + this.targets.size();
+			// The publishing URI must not leak into the benchs that are run next
+			String previousUri = System.getProperty(JanusConfig.PUB_URI);
+			Network target;
+			try {
+				System.setProperty(JanusConfig.PUB_URI, "tcp://localhost:"+port); //$NON-NLS-1$
+				Injector injector = Guice.createInjector(getInjectionModule());
+				target = injector.getInstance(Network.class);
+			}
+			finally {
+				if (previousUri==null) {
+					System.clearProperty(JanusConfig.PUB_URI);
+				}
+				else {
+					System.setProperty(JanusConfig.PUB_URI, previousUri);
+				}
+			}
+			target.startAsync();
+			target.awaitRunning();
+			TargetSpace space = new TargetSpace();
+			target.register(space);
+			target.connectPeer(ZMQConstants.LOCALHOST_SOURCE_PEER);
+			this.targets.add(target);
+			this.targetSpaces.add(space);
+		}
+		awaitSubscriptions();
+	}
+
+	/** Publish probes until every target peer has received one of them.
+	 * 
+	 * @throws Exception
+	 */
+	private void awaitSubscriptions() throws Exception {
+		long end = System.currentTimeMillis() + ZMQConstants.NETWORK_TIMEOUT;
+		while (!isProbed()) {
+			if (System.currentTimeMillis()>=end) {
+				throw new IOException(Locale.getString(AbstractLocalhostFanoutBench.class, "SUBSCRIPTION_TIMEOUT")); //$NON-NLS-1$
+			}
+			this.networkSource.publish(this.spaceId, this.scope, new ProbeEvent());
+			Thread.sleep(ZMQConstants.SUBSCRIPTION_PROBE_INTERVAL);
+		}
+	}
+
+	private boolean isProbed() {
+		for(TargetSpace space : this.targetSpaces) {
+			if (!space.probed) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/** Publish the default event to all the target peers.
+	 * 
+	 * @throws Exception
+	 */
+	public void benchFanoutPublish() throws Exception {
+		this.networkSource.publish(this.spaceId, this.scope, this.defaultEvent);
+	}
+
+	/** Publish an event and measure its transit time until
+	 * it is received by each target peer.
+	 * 
+	 * @throws Exception
+	 */
+	public void benchFanoutDelivery() throws Exception {
+		boolean warmup = isWarmingUp();
+		if (!warmup) {
+			((RemoteBenchRun)getCurrentRun()).incrementEventCounter(this.targets.size());
+		}
+		else {
+			addWarmupMessages(this.targets.size());
+		}
+		this.networkSource.publish(this.spaceId, this.scope, new RemoteBenchEvent(warmup));
+	}
+
+	@Override
+	public void onEndDeclaredBenchFunction() throws Exception {
+		setTargetNumber(0);
+		super.onEndDeclaredBenchFunction();
+	}
+
+	@Override
+	public void dispose() throws Exception {
+		setTargetNumber(0);
+		super.dispose();
+	}
+
+	/** Space of a target peer, which is receiving the probes.
+	 * 
+	 * @author $Author: sgalland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 2.0.0
+	 */
+	private class TargetSpace extends DSpace {
+
+		/** Indicates if the target has received a probe. */
+		volatile boolean probed = false;
+
+		/**
+		 */
+		public TargetSpace() {
+			//
+		}
+
+		@Override
+		public void recv(Scope<?> scope, Event envelope) {
+			if (envelope instanceof ProbeEvent) {
+				this.probed = true;
+			}
+			else {
+				super.recv(scope, envelope);
+			}
+		}
+
+	} /* class TargetSpace */
+
+}
\ No newline at end of file
@@ -0,0 +1,92 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.network.zeromq;
+
+import io.janusproject.benchmarking.BenchConstants;
+
+import java.io.File;
+import java.io.IOException;
+
+/** Abstract implementation of a benchmarking tool for the ZeroMQ layer on localhost,
+ * with a source that is publishing to a target that is not replying.
+ * <p>
+ * In addition to the functions of {@link AbstractLocalhostBench}, the function
+ * <code>SustainedPublish</code> measures the number of published messages per
+ * second during {@link BenchConstants#PER_SECOND_BENCH_DURATION} ms.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public abstract class AbstractLocalhostMonodirBench extends AbstractLocalhostBench {
+
+	/** Name of the bench function that is measuring the sustained
+	 * number of published messages per second.
+	 */
+	private static final String SUSTAINED_PUBLISH = "SustainedPublish"; //$NON-NLS-1$
+
+	/**
+	 * @param directory - the directory that shold contains the CSV file.
+	 * @param title - the title of the benchmarks.
+	 * @throws IOException
+	 */
+	public AbstractLocalhostMonodirBench(File directory, String title) throws IOException {
+		super(directory, title);
+	}
+
+	@Override
+	public void onStartDeclaredBenchFunction(String benchFunctionName) throws Exception {
+		// The mode must be known before the CSV headers are written
+		if (SUSTAINED_PUBLISH.equals(benchFunctionName)) {
+			setThroughputMode(
+					BenchConstants.PER_SECOND_BENCH_DURATION,
+					BenchConstants.PER_SECOND_BENCH_INTERVAL);
+		}
+		else {
+			setThroughputMode(0, 0);
+		}
+		super.onStartDeclaredBenchFunction(benchFunctionName);
+		if (SUSTAINED_PUBLISH.equals(benchFunctionName)) {
+			setNumberOfRuns(BenchConstants.PER_SECOND_BENCH_RUN_NUMBER);
+			// A run lasts for a fixed time
+			setForcedCounts(false);
+		}
+	}
+
+	@Override
+	protected boolean isTargetSubscribing(String benchFunctionName) {
+		// The high-water mark is reached only when the events are delivered
+		return SUSTAINED_PUBLISH.equals(benchFunctionName) || super.isTargetSubscribing(benchFunctionName);
+	}
+
+	/** Publish the default event as many times as possible during
+	 * {@link BenchConstants#PER_SECOND_BENCH_DURATION} ms.
+	 * The number of published messages per second is measured on each
+	 * interval, including when the high-water mark of the socket is reached.
+	 * 
+	 * @throws Exception
+	 */
+	public void benchSustainedPublish() throws Exception {
+		this.networkSource.publish(this.spaceId, this.scope, this.defaultEvent);
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,116 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.network.zeromq;
+
+import io.janusproject.benchmarking.BenchAxis;
+import io.janusproject.benchmarking.BenchRun;
+
+import java.io.File;
+import java.io.IOException;
+
+/** Abstract implementation of a benchmarking tool for the ZeroMQ layer on localhost,
+ * with events that are carrying generated payloads.
+ * <p>
+ * The functions <code>Publish</code> and <code>Delivery</code> are run for each
+ * shape of payload ({@link PayloadEvent.Shape}) and each size in
+ * {@link ZMQConstants#PAYLOAD_SIZES}; both of them are publishing the payload.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public abstract class AbstractLocalhostPayloadBench extends AbstractLocalhostBench {
+
+	/** Name of the axis of the payload shapes. */
+	private static final String SHAPE_AXIS = "shape"; //$NON-NLS-1$
+
+	/** Name of the axis of the payload sizes. */
+	private static final String SIZE_AXIS = "size"; //$NON-NLS-1$
+
+	/** Name of the bench function that is measuring the transit times.
+	 */
+	private static final String DELIVERY = "Delivery"; //$NON-NLS-1$
+
+	/** Number of runs of the bench function that is measuring
+	 * the transit times; one event is sent per run.
+	 */
+	private static final int PAYLOAD_DELIVERY_RUN_NUMBER = 50;
+
+	/**
+	 * @param directory - the directory that shold contains the CSV file.
+	 * @param title - the title of the benchmarks.
+	 * @throws IOException
+	 */
+	public AbstractLocalhostPayloadBench(File directory, String title) throws IOException {
+		super(directory, title);
+	}
+
+	@Override
+	protected BenchAxis[] getSweepAxes(String benchFunctionName) {
+		if ("Publish".equals(benchFunctionName) || DELIVERY.equals(benchFunctionName)) { //$NON-NLS-1$
+			return new BenchAxis[] {
+				BenchAxis.values(SHAPE_AXIS, (Object[])PayloadEvent.Shape.values()),
+				BenchAxis.values(SIZE_AXIS, (Object[])ZMQConstants.PAYLOAD_SIZES)
+			};
+		}
+		return super.getSweepAxes(benchFunctionName);
+	}
+
+	@Override
+	public void onStartDeclaredBenchFunction(String benchFunctionName) throws Exception {
+		super.onStartDeclaredBenchFunction(benchFunctionName);
+		if (DELIVERY.equals(benchFunctionName)) {
+			setNumberOfRuns(PAYLOAD_DELIVERY_RUN_NUMBER);
+		}
+	}
+
+	@Override
+	public void onStartBenchCalls(BenchRun run) throws Exception {
+		super.onStartBenchCalls(run);
+		// The payload is generated out of the measurements
+		Object shape = run.getParameter(SHAPE_AXIS);
+		if (shape instanceof PayloadEvent.Shape) {
+			this.defaultEvent = new PayloadEvent(
+					(PayloadEvent.Shape)shape,
+					run.getIntParameter(SIZE_AXIS, 0));
+		}
+		else {
+			this.defaultEvent = NoEvent.INSTANCE;
+		}
+	}
+
+	@Override
+	protected RemoteBenchEvent createDeliveryEvent(boolean warmup) {
+		if (this.defaultEvent instanceof PayloadEvent) {
+			return new PayloadEvent((PayloadEvent)this.defaultEvent, warmup);
+		}
+		return super.createDeliveryEvent(warmup);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void benchPublish() throws Exception {
+		this.networkSource.publish(this.spaceId, this.scope, this.defaultEvent);
+	}
+
+}
\ No newline at end of file
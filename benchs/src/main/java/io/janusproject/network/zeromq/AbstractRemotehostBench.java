@@ -20,7 +20,12 @@
 package io.janusproject.network.zeromq;
 
 import io.janusproject.JanusConfig;
+import io.janusproject.benchmarking.BenchAxis;
+import io.janusproject.benchmarking.BenchRunFactory;
+import io.janusproject.benchmarking.BenchSweep;
 import io.janusproject.benchmarking.CsvBench;
+import io.janusproject.benchmarking.ExclusiveBench;
+import io.janusproject.benchmarking.OpenLoopScheduler;
 import io.janusproject.benchmarking.PropertyBench;
 import io.janusproject.kernel.DistributedSpace;
 import io.janusproject.kernel.Network;
@@ -31,12 +36,20 @@ import io.sarl.lang.core.SpaceID;
 import io.sarl.util.OpenEventSpaceSpecification;
 import io.sarl.util.Scopes;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
+import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
 
+import org.arakhne.afc.vmutil.VMCommandLine;
 import org.arakhne.afc.vmutil.locale.Locale;
 
 import com.google.inject.Guice;
@@ -46,8 +59,25 @@ import com.google.inject.Module;
 
 /** Abstract implementation of a benchmarking tool for the ZeroMQ layer on two hosts.
  * <p>
- * It is assumed that the {@link Replier} is launched with the correct command-line
- * parameters.
+ * The property <code>REMOTE_HOST</code> is the URI of the {@link Replier}, which
+ * is assumed to be launched with the correct command-line parameters. The round
+ * trips may also be measured on one host: when the property is
+ * {@value ZMQConstants#REPLIER_FORK}, the bench starts the replier in a forked
+ * virtual machine; when it is {@value ZMQConstants#REPLIER_IN_PROCESS}, the bench
+ * starts the replier in the virtual machine of the bench, with a network layer
+ * that is distinct from the one of the bench. In both cases, the replier
+ * uses the serializer and the encrypter of the bench, and it is listening on
+ * {@link ZMQConstants#LOCALHOST_REPLIER_PEER}.
+ * <p>
+ * The function <code>Publish</code> is a closed-loop generator: a message is sent
+ * when the previous call returns. The function <code>PublishOpenLoop</code> is an
+ * open-loop generator: the messages are sent at the rates of
+ * {@link ZMQConstants#OPEN_LOOP_RATES}, and the transit times are computed from
+ * the intended sending times. The function <code>PublishWindowed</code> is a
+ * pipelined generator: at most {@link ZMQConstants#WINDOW_SIZES} messages are
+ * in flight, and a new message is sent each time a reply is received. The
+ * throughput of the round trips is written with their durations for each size
+ * of the window.
  * 
  * @author $Author: sgalland$
  * @version $FullVersion$
@@ -56,6 +86,7 @@ import com.google.inject.Module;
  * @since 2.0.0
  */
 @PropertyBench(names={"REMOTE_HOST"})
+@ExclusiveBench
 public abstract class AbstractRemotehostBench extends CsvBench<RemoteBenchRun> {
 
 	/** Sender. */
@@ -65,6 +96,60 @@ public abstract class AbstractRemotehostBench extends CsvBench<RemoteBenchRun> {
 	/** Identifier of the space. */
 	private SpaceID spaceId;
 
+	/** Replier that is started in this virtual machine. */
+	private Replier localReplier;
+
+	/** Virtual machine in which the replier is started. */
+	private Process replierProcess;
+
+	/** Indicates if the current run is warming up. */
+	private volatile boolean warmingUp = false;
+
+	/** Warmup messages that are echoed by the replier. */
+	private final WarmupTraffic warmupTraffic = new WarmupTraffic();
+
+	/** Permits of the messages that may be sent by the pipelined generator,
+	 * or <code>null</code> if the messages in flight are not bounded.
+	 */
+	private volatile Semaphore window = null;
+
+	/** Identifier of the last burst of the pipelined generator.
+	 * Only the replies of this burst release the permits of the window.
+	 */
+	private volatile int windowBurst = 0;
+
+	/** Indicates if the current bench function is the pipelined generator. */
+	private boolean windowed = false;
+
+	/** Indicates if the current bench function is sending bursts of messages. */
+	private boolean burst = false;
+
+	/** Warmup batches of the closed-loop bench functions. */
+	private int closedLoopWarmupBatchNumber;
+
+	/** Size of the warmup batches of the closed-loop bench functions. */
+	private int closedLoopWarmupBatchSize;
+
+	/** Number of runs of the closed-loop bench functions. */
+	private int closedLoopRunNumber;
+
+	/** Name of the bench function that is the open-loop generator.
+	 */
+	private static final String OPEN_LOOP = "PublishOpenLoop"; //$NON-NLS-1$
+
+	/** Name of the axis of the rates of the open-loop generator. */
+	private static final String RATE_AXIS = "rate"; //$NON-NLS-1$
+
+	/** Name of the bench function that is the pipelined generator.
+	 */
+	private static final String WINDOWED = "PublishWindowed"; //$NON-NLS-1$
+
+	/** Name of the axis of the numbers of messages in flight. */
+	private static final String WINDOW_AXIS = "window"; //$NON-NLS-1$
+
+	/** Number of runs of the closed-loop bench functions. */
+	private static final int RUN_NUMBER = 200;
+
 	/**
 	 * @param directory - the directory that shold contains the CSV file.
 	 * @param title - the title of the benchmarks.
@@ -75,12 +160,20 @@ public abstract class AbstractRemotehostBench extends CsvBench<RemoteBenchRun> {
 				Locale.getString("COLUMN_ROW_INDEX"), //$NON-NLS-1$
 				Locale.getString("COLUMN_DURATION"), //$NON-NLS-1$
 				Locale.getString("COLUMN_STANDARD_DEVIATION"), //$NON-NLS-1$
-				Locale.getString("COLUMN_OS_LOAD_AVERAGE")); //$NON-NLS-1$
+				Locale.getString("COLUMN_OS_LOAD_AVERAGE"), //$NON-NLS-1$
+				Locale.getString("COLUMN_LOST_MESSAGES")); //$NON-NLS-1$
 	}
 
 	@Override
 	protected Collection<RemoteBenchRun> determineRuns(String benchFunctionName) {
-		return Collections.singleton(new RemoteBenchRun(benchFunctionName));
+		return BenchSweep.cartesianProduct(benchFunctionName,
+				new BenchRunFactory<RemoteBenchRun>() {
+					@Override
+					public RemoteBenchRun newRun(String name) {
+						return new RemoteBenchRun(name);
+					}
+				},
+				getSweepAxes(benchFunctionName));
 	}
 
 	/** Replies the injection module to use.
@@ -93,58 +186,245 @@ public abstract class AbstractRemotehostBench extends CsvBench<RemoteBenchRun> {
 	public void initialize() throws Exception {
 		super.initialize();
 
-		System.setProperty(JanusConfig.PUB_URI, ZMQConstants.LOCALHOST_SOURCE_PEER);
-		Injector injector = Guice.createInjector(getInjectionModule());
-
-		this.network = injector.getInstance(Network.class);
-
 		this.spaceId = new SpaceID(
 				UUID.fromString(JanusConfig.getProperty(JanusConfig.DEFAULT_CONTEXT_ID)),
 				UUID.fromString(JanusConfig.getProperty(JanusConfig.DEFAULT_SPACE_ID)),
 				OpenEventSpaceSpecification.class);
 
-		this.network.startAsync();
+		if (!isReportingOnly()) {
+			System.setProperty(JanusConfig.PUB_URI, ZMQConstants.LOCALHOST_SOURCE_PEER);
+			Injector injector = Guice.createInjector(getInjectionModule());
 
-		this.network.awaitRunning();
+			this.network = injector.getInstance(Network.class);
 
-		this.network.connectPeer(System.getProperty("REMOTE_HOST")); //$NON-NLS-1$
+			this.network.startAsync();
 
-		this.network.register(new DSpace());
+			this.network.awaitRunning();
+
+			String remoteHost = System.getProperty("REMOTE_HOST"); //$NON-NLS-1$
+			if (ZMQConstants.REPLIER_IN_PROCESS.equalsIgnoreCase(remoteHost)) {
+				this.localReplier = Replier.start(getInjectionModule(),
+						ZMQConstants.LOCALHOST_REPLIER_PEER, ZMQConstants.LOCALHOST_SOURCE_PEER, true);
+				remoteHost = ZMQConstants.LOCALHOST_REPLIER_PEER;
+			}
+			else if (ZMQConstants.REPLIER_FORK.equalsIgnoreCase(remoteHost)) {
+				this.replierProcess = forkReplier(getInjectionModule());
+				remoteHost = ZMQConstants.LOCALHOST_REPLIER_PEER;
+			}
+
+			this.network.connectPeer(remoteHost);
+
+			this.network.register(new DSpace());
+		}
 
 		setNumberOfCalls(1); // Call the "bench" functions once time
-		setNumberOfRuns(200); // Generate multi rows in the CSV
+		setNumberOfRuns(RUN_NUMBER); // Generate multi rows in the CSV
+		setCallRecording(true); // Report the percentiles of the message durations
+	}
+
+	@Override
+	protected BenchAxis[] getSweepAxes(String benchFunctionName) {
+		if (OPEN_LOOP.equals(benchFunctionName)) {
+			return new BenchAxis[] {
+				BenchAxis.values(RATE_AXIS, (Object[])ZMQConstants.OPEN_LOOP_RATES)
+			};
+		}
+		if (WINDOWED.equals(benchFunctionName)) {
+			return new BenchAxis[] {
+				BenchAxis.values(WINDOW_AXIS, (Object[])ZMQConstants.WINDOW_SIZES)
+			};
+		}
+		return super.getSweepAxes(benchFunctionName);
+	}
+
+	@Override
+	public void onStartDeclaredBenchFunction(String benchFunctionName) throws Exception {
+		// The configuration must be known before the CSV headers are written
+		boolean burstFunction = OPEN_LOOP.equals(benchFunctionName) || WINDOWED.equals(benchFunctionName);
+		if (burstFunction && !this.burst) {
+			// Save the configuration of the closed-loop functions, which may be given by a subclass
+			this.closedLoopWarmupBatchNumber = getWarmupBatchNumber();
+			this.closedLoopWarmupBatchSize = getWarmupBatchSize();
+			this.closedLoopRunNumber = getNumberOfRuns();
+		}
+		else if (!burstFunction && this.burst) {
+			setWarmup(this.closedLoopWarmupBatchNumber, this.closedLoopWarmupBatchSize);
+			setNumberOfRuns(this.closedLoopRunNumber);
+		}
+		this.burst = burstFunction;
+		// Each call is a burst of a fixed size or duration
+		setForcedCounts(!burstFunction);
+		if (OPEN_LOOP.equals(benchFunctionName)) {
+			// Each call is a burst of messages that starts with its own warmup
+			setWarmup(0, 0);
+			setNumberOfRuns(ZMQConstants.OPEN_LOOP_RUN_NUMBER);
+		}
+		else if (WINDOWED.equals(benchFunctionName)) {
+			// Each call is a burst of messages that starts with its own warmup
+			setWarmup(0, 0);
+			setNumberOfRuns(ZMQConstants.WINDOW_RUN_NUMBER);
+		}
+		this.windowed = WINDOWED.equals(benchFunctionName);
+		super.onStartDeclaredBenchFunction(benchFunctionName);
+	}
+
+	@Override
+	protected void addRunHeaders(List<Object> columns) {
+		super.addRunHeaders(columns);
+		if (this.windowed) {
+			columns.add(Locale.getString(AbstractRemotehostBench.class, "COLUMN_MESSAGE_THROUGHPUT")); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	protected void addRunColumns(RemoteBenchRun run, List<Object> columns) {
+		super.addRunColumns(run, columns);
+		if (this.windowed) {
+			columns.add(run.getMessageThroughput());
+		}
+	}
+
+	@Override
+	public void onStartBenchCalls(RemoteBenchRun run) throws Exception {
+		super.onStartBenchCalls(run);
+		// The recorder of the transit times must not be allocated during the measures
+		run.prepareEvents((long)getNumberOfCalls() * getMeasuredMessageNumber(run));
+	}
+
+	/** Replies the number of measured messages that are sent by a call
+	 * of the current bench function.
+	 * 
+	 * @param run is the current run.
+	 * @return the number of messages.
+	 */
+	private long getMeasuredMessageNumber(RemoteBenchRun run) {
+		if (this.windowed) {
+			return ZMQConstants.WINDOW_MESSAGE_NUMBER;
+		}
+		if (this.burst) {
+			long rate = run.getIntParameter(RATE_AXIS, ZMQConstants.OPEN_LOOP_RATES[0]);
+			return rate * (ZMQConstants.OPEN_LOOP_DURATION - ZMQConstants.OPEN_LOOP_WARMUP_DURATION) / 1000;
+		}
+		return 1;
+	}
+
+	@Override
+	public void onStartWarmup(RemoteBenchRun run) throws Exception {
+		super.onStartWarmup(run);
+		this.warmingUp = true;
+	}
+
+	@Override
+	public void onEndWarmup(RemoteBenchRun run) throws Exception {
+		// The first measured message must not be queued behind the warmup messages
+		long lost = this.warmupTraffic.await(ZMQConstants.NETWORK_TIMEOUT);
+		if (lost>0) {
+			Logger.getAnonymousLogger().warning(
+					Locale.getString(AbstractRemotehostBench.class, "LOST_WARMUP_MESSAGES", run.getName(), lost)); //$NON-NLS-1$
+		}
+		this.warmingUp = false;
+		super.onEndWarmup(run);
 	}
 
 	@Override
-	public void onEndRunOnMany(int nbRuns, RemoteBenchRun run) throws Exception {
-		// Wait until all the messages were arrived
-		long startTime = System.currentTimeMillis();
-		while ((System.currentTimeMillis()-startTime)<=ZMQConstants.NETWORK_TIMEOUT
-				&& run.isWaitingEvent()) {
-			Thread.yield();
+	public void onEndBenchCalls(RemoteBenchRun run) throws Exception {
+		if (!isReportingOnly()) {
+			// Wait until all the messages of the calls were arrived
+			long lost = run.awaitEvents(ZMQConstants.NETWORK_TIMEOUT);
+			if (lost>0) {
+				Logger.getAnonymousLogger().warning(
+						Locale.getString(AbstractRemotehostBench.class, "LOST_MESSAGES", run.getName(), lost)); //$NON-NLS-1$
+			}
 		}
-		super.onEndRunOnMany(nbRuns, run);
+		super.onEndBenchCalls(run);
 	}
 
 	@Override
 	public void onEndDeclaredBenchFunction() throws Exception {
 		int i=0;
 		for(RemoteBenchRun r : getTerminatedRuns()) {
-			writeRecord(
+			writeRunRecord(r,
 					i,
 					r.getCallAverageDuration(),
 					r.getCallStandardDeviation(),
-					getSystemLoadAverage());
+					getSystemLoadAverage(),
+					r.getLostEventNumber());
 			++i;
 		}
 		super.onEndDeclaredBenchFunction();
 	}
 
+	/** Start the replier in a forked virtual machine, and wait until it is started.
+	 * 
+	 * @param module is the injection module of the bench.
+	 * @return the process of the virtual machine.
+	 * @throws Exception
+	 */
+	private static Process forkReplier(Module module) throws Exception {
+		if (!(module instanceof BenchmarkingModule)) {
+			throw new IllegalArgumentException(Locale.getString(AbstractRemotehostBench.class, "UNSUPPORTED_MODULE", module)); //$NON-NLS-1$
+		}
+		BenchmarkingModule m = (BenchmarkingModule)module;
+		List<String> cmd = new ArrayList<>();
+		cmd.add(VMCommandLine.getVMBinary());
+		cmd.add("-classpath"); //$NON-NLS-1$
+		cmd.add(System.getProperty("java.class.path")); //$NON-NLS-1$
+		cmd.add(Replier.class.getName());
+		cmd.add(JavaBinaryEventSerializer.class.equals(m.getSerializerType()) ? "--java" : "--gson"); //$NON-NLS-1$ //$NON-NLS-2$
+		cmd.add(PlainTextEncrypter.class.equals(m.getEncrypterType()) ? "--plain" : "--aes"); //$NON-NLS-1$ //$NON-NLS-2$
+		cmd.add("--uri"); //$NON-NLS-1$
+		cmd.add(ZMQConstants.LOCALHOST_REPLIER_PEER);
+		cmd.add("--peer"); //$NON-NLS-1$
+		cmd.add(ZMQConstants.LOCALHOST_SOURCE_PEER);
+		cmd.add("--quiet"); //$NON-NLS-1$
+		final Process process = new ProcessBuilder(cmd).redirectErrorStream(true).start();
+		final CountDownLatch ready = new CountDownLatch(1);
+		final Logger logger = Logger.getAnonymousLogger();
+		Thread reader = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try (BufferedReader r = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+					String line = r.readLine();
+					while (line!=null) {
+						if (Replier.READY.equals(line)) {
+							ready.countDown();
+						}
+						else {
+							logger.info(Locale.getString(AbstractRemotehostBench.class, "REPLIER_OUTPUT", line)); //$NON-NLS-1$
+						}
+						line = r.readLine();
+					}
+				}
+				catch(IOException _) {
+					//
+				}
+			}
+		}, "Replier output"); //$NON-NLS-1$
+		reader.setDaemon(true);
+		reader.start();
+		if (!ready.await(ZMQConstants.REPLIER_STARTUP_TIMEOUT, TimeUnit.MILLISECONDS)) {
+			process.destroy();
+			throw new IOException(Locale.getString(AbstractRemotehostBench.class, "REPLIER_NOT_STARTED")); //$NON-NLS-1$
+		}
+		return process;
+	}
+
 	@Override
 	public void dispose() throws Exception {
-		this.network.stopAsync();
-		this.network = null;
+		if (this.network!=null) {
+			this.network.stopAsync();
+			this.network = null;
+		}
 		this.spaceId = null;
+		if (this.localReplier!=null) {
+			this.localReplier.stop();
+			this.localReplier = null;
+		}
+		if (this.replierProcess!=null) {
+			this.replierProcess.destroy();
+			this.replierProcess.waitFor();
+			this.replierProcess = null;
+		}
 		super.dispose();
 	}
 
@@ -153,14 +433,63 @@ public abstract class AbstractRemotehostBench extends CsvBench<RemoteBenchRun> {
 	 * @throws Exception
 	 */
 	protected void send() throws Exception {
-		getCurrentRun().incrementEventCounter();
-		Event event = new RemoteBenchEvent();
+		boolean warmup = this.warmingUp;
+		if (!warmup) {
+			getCurrentRun().incrementEventCounter();
+		}
+		else {
+			this.warmupTraffic.sent(1);
+		}
+		Event event = new RemoteBenchEvent(warmup);
+		this.network.publish(this.spaceId, Scopes.allParticipants(), event);
+	}
+
+	/** Send a message over the network that should have been sent
+	 * at the given time.
+	 * 
+	 * @param warmup indicates if the transit time of the message is not measured.
+	 * @param intendedSendingTime is the nano time at which the message should have been sent.
+	 * @throws Exception
+	 */
+	protected void send(boolean warmup, long intendedSendingTime) throws Exception {
+		send(warmup, intendedSendingTime, 0);
+	}
+
+	/** Send a message of a burst over the network that should have been sent
+	 * at the given time.
+	 * 
+	 * @param warmup indicates if the transit time of the message is not measured.
+	 * @param intendedSendingTime is the nano time at which the message should have been sent.
+	 * @param burst is the identifier of the burst of messages.
+	 * @throws Exception
+	 */
+	protected void send(boolean warmup, long intendedSendingTime, int burst) throws Exception {
+		if (!warmup) {
+			getCurrentRun().incrementEventCounter();
+		}
+		else {
+			this.warmupTraffic.sent(1);
+		}
+		Event event = new RemoteBenchEvent(warmup, intendedSendingTime, burst);
 		this.network.publish(this.spaceId, Scopes.allParticipants(), event);
 	}
 
 	private void onReceived(long receivingTime, RemoteBenchEvent event) {
-		event.setArrivalTime(receivingTime);
-		getCurrentRun().decrementEventCounter(event);
+		// There is no current run between the run ranges
+		RemoteBenchRun run = getCurrentRun();
+		if (event.isWarmup()) {
+			this.warmupTraffic.received();
+		}
+		else if (run!=null) {
+			event.setArrivalTime(receivingTime);
+			run.decrementEventCounter(event);
+		}
+		// The replies of the previous bursts, including the late warmup ones,
+		// must not release the permits of the current window.
+		Semaphore w = this.window;
+		if (w!=null && event.getBurst()==this.windowBurst) {
+			w.release();
+		}
 	}
 
 	/**
@@ -170,6 +499,65 @@ public abstract class AbstractRemotehostBench extends CsvBench<RemoteBenchRun> {
 		send();
 	}
 
+	/** Send a burst of messages at the rate of the current run
+	 * during {@link ZMQConstants#OPEN_LOOP_DURATION} ms.
+	 * 
+	 * @throws Exception
+	 */
+	public void benchPublishOpenLoop() throws Exception {
+		OpenLoopScheduler scheduler = new OpenLoopScheduler(
+				getCurrentRun().getIntParameter(RATE_AXIS, ZMQConstants.OPEN_LOOP_RATES[0]));
+		long warmupCount = (long)(scheduler.getRate() * ZMQConstants.OPEN_LOOP_WARMUP_DURATION / 1000.);
+		long count = (long)(scheduler.getRate() * ZMQConstants.OPEN_LOOP_DURATION / 1000.);
+		scheduler.start();
+		for(long i=0; i<count; ++i) {
+			long intendedSendingTime = scheduler.awaitNext();
+			send(i<warmupCount, intendedSendingTime);
+		}
+	}
+
+	/** Send a burst of {@link ZMQConstants#WINDOW_MESSAGE_NUMBER} messages
+	 * with at most the size of the window of the current run in flight,
+	 * and wait until all the replies are received.
+	 * <p>
+	 * The transit time of a message is computed from the time at which
+	 * the window has accepted it. The throughput is computed on the
+	 * measured messages, from the sending of the first of them to the
+	 * reception of the last reply.
+	 * 
+	 * @throws Exception
+	 */
+	public void benchPublishWindowed() throws Exception {
+		RemoteBenchRun run = getCurrentRun();
+		int size = run.getIntParameter(WINDOW_AXIS, ZMQConstants.WINDOW_SIZES[0]);
+		Semaphore w = new Semaphore(size);
+		int burstId = ++this.windowBurst;
+		this.window = w;
+		try {
+			int warmupCount = ZMQConstants.WINDOW_WARMUP_MESSAGE_NUMBER;
+			int count = warmupCount + ZMQConstants.WINDOW_MESSAGE_NUMBER;
+			long startTime = System.nanoTime();
+			for(int i=0; i<count; ++i) {
+				if (!w.tryAcquire(ZMQConstants.NETWORK_TIMEOUT, TimeUnit.MILLISECONDS)) {
+					throw new IOException(Locale.getString(AbstractRemotehostBench.class, "WINDOW_TIMEOUT", run.getName())); //$NON-NLS-1$
+				}
+				long sendingTime = System.nanoTime();
+				if (i==warmupCount) {
+					startTime = sendingTime;
+				}
+				send(i<warmupCount, sendingTime, burstId);
+			}
+			// Wait for the replies of the messages in flight
+			if (!w.tryAcquire(size, ZMQConstants.NETWORK_TIMEOUT, TimeUnit.MILLISECONDS)) {
+				throw new IOException(Locale.getString(AbstractRemotehostBench.class, "WINDOW_TIMEOUT", run.getName())); //$NON-NLS-1$
+			}
+			run.addBurst(ZMQConstants.WINDOW_MESSAGE_NUMBER, System.nanoTime() - startTime);
+		}
+		finally {
+			this.window = null;
+		}
+	}
+
 	/**
 	 * @author $Author: sgalland$
 	 * @version $FullVersion$
@@ -30,6 +30,10 @@ import com.google.inject.name.Names;
 
 /** Module that provides the network layer based on the ZeroMQ library
  * for benchmarking.
+ * <p>
+ * The network layer may be replaced, e.g. by the {@link LoopbackNetwork}
+ * for measuring the cost of the serializer and the encrypter without
+ * the cost of the transport.
  * 
  * @author $Author: sgalland$
  * @version $FullVersion$
@@ -40,6 +44,7 @@ class BenchmarkingModule extends AbstractModule {
 
 	private final Class<? extends EventSerializer> serializer;
 	private final Class<? extends EventEncrypter> encrypter;
+	private final Class<? extends Network> network;
 	
 	/**
 	 * @param serializer - type of the serializer to instance.
@@ -48,22 +53,51 @@ class BenchmarkingModule extends AbstractModule {
 	public BenchmarkingModule(
 			Class<? extends EventSerializer> serializer,
 			Class<? extends EventEncrypter> encrypter) {
+		this(serializer, encrypter, ZeroMQNetwork.class);
+	}
+	
+	/**
+	 * @param serializer - type of the serializer to instance.
+	 * @param encrypter - type of the encrypter to instance.
+	 * @param network - type of the network layer to instance.
+	 */
+	public BenchmarkingModule(
+			Class<? extends EventSerializer> serializer,
+			Class<? extends EventEncrypter> encrypter,
+			Class<? extends Network> network) {
 		this.serializer = serializer;
 		this.encrypter = encrypter;
+		this.network = network;
 	}
 	
+	/** Replies the type of the serializer.
+	 * 
+	 * @return the type of the serializer.
+	 */
+	public Class<? extends EventSerializer> getSerializerType() {
+		return this.serializer;
+	}
+
+	/** Replies the type of the encrypter.
+	 * 
+	 * @return the type of the encrypter.
+	 */
+	public Class<? extends EventEncrypter> getEncrypterType() {
+		return this.encrypter;
+	}
+
 	@Override
 	protected void configure() {
 		install(new CoreModule());
 
 		Names.bindProperties(binder(), System.getProperties());
 
-		bind(Network.class).to(ZeroMQNetwork.class).in(Singleton.class);
+		bind(Network.class).to(this.network).in(Singleton.class);
 		bind(EventSerializer.class).to(this.serializer).in(Singleton.class);
 		bind(EventEncrypter.class).to(this.encrypter).in(Singleton.class);
 
 		Multibinder<Service> uriBinder = Multibinder.newSetBinder(binder(), Service.class);
-	    uriBinder.addBinding().to(ZeroMQNetwork.class);
+	    uriBinder.addBinding().to(this.network);
 	}
 
 }
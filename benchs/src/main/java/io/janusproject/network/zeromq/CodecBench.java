@@ -0,0 +1,283 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.network.zeromq;
+
+import io.janusproject.benchmarking.AllocationCounter;
+import io.janusproject.benchmarking.BenchAxis;
+import io.janusproject.benchmarking.BenchConstants;
+import io.janusproject.benchmarking.BenchRunFactory;
+import io.janusproject.benchmarking.BenchSweep;
+import io.janusproject.benchmarking.CsvBench;
+import io.sarl.lang.core.Scope;
+import io.sarl.lang.core.SpaceID;
+import io.sarl.util.OpenEventSpaceSpecification;
+import io.sarl.util.Scopes;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.logging.Logger;
+
+import org.arakhne.afc.vmutil.locale.Locale;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+
+/** Benchmarking of the codecs of the ZeroMQ layer, without network:
+ * <ul>
+ * <li><code>Serialize</code>: {@link EventSerializer#serialize(EventDispatch)}.</li>
+ * <li><code>Deserialize</code>: {@link EventSerializer#deserialize(EventEnvelope)}.</li>
+ * <li><code>Encrypt</code>: {@link EventEncrypter#encrypt(EventEnvelope)}.</li>
+ * <li><code>Decrypt</code>: {@link EventEncrypter#decrypt(EventEnvelope)}.</li>
+ * </ul>
+ * The serializers are run with the {@link PlainTextEncrypter}, and the encrypters
+ * are run on the envelopes that are produced by the serializers. Each function is
+ * run for each serializer, encrypter, shape of payload ({@link PayloadEvent.Shape})
+ * and size in {@link ZMQConstants#PAYLOAD_SIZES}.
+ * <p>
+ * The encoders and decoders are modifying the envelopes; each decoding
+ * or encryption is run on a new envelope that is sharing the bytes of
+ * a prepared envelope. The creation of this envelope is measured.
+ * <p>
+ * In addition to the durations of the operations and the allocations that are
+ * reported by all the benchs, the allocation rate and the size of the output
+ * are reported.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+public class CodecBench extends CsvBench<CodecBenchRun> {
+
+	private static final String SERIALIZER_AXIS = "serializer"; //$NON-NLS-1$
+	private static final String ENCRYPTER_AXIS = "encrypter"; //$NON-NLS-1$
+	private static final String SHAPE_AXIS = "shape"; //$NON-NLS-1$
+	private static final String SIZE_AXIS = "size"; //$NON-NLS-1$
+
+	/** Number of operations per run. */
+	private static final int CALL_NUMBER = 1000;
+
+	/** Number of runs. */
+	private static final int RUN_NUMBER = 5;
+
+	/** Number of operations per warmup batch. */
+	private static final int WARMUP_BATCH_SIZE = 100;
+
+	private static final Map<String,Class<? extends EventSerializer>> SERIALIZERS = new LinkedHashMap<>();
+	private static final Map<String,Class<? extends EventEncrypter>> ENCRYPTERS = new LinkedHashMap<>();
+
+	static {
+		SERIALIZERS.put("Java", JavaBinaryEventSerializer.class); //$NON-NLS-1$
+		SERIALIZERS.put("Gson", GsonEventSerializer.class); //$NON-NLS-1$
+		ENCRYPTERS.put("Plain", PlainTextEncrypter.class); //$NON-NLS-1$
+		ENCRYPTERS.put("AES", AESEventEncrypter.class); //$NON-NLS-1$
+	}
+
+	private SpaceID spaceId;
+	private Scope<?> scope;
+
+	private CodecBenchRun preparedRun = null;
+	private EventSerializer serializer;
+	private EventEncrypter encrypter;
+	private EventDispatch dispatch;
+	private EventEnvelope plainEnvelope;
+	private EventEnvelope encryptedEnvelope;
+
+	/**
+	 * @param directory - the directory that shold contains the CSV file.
+	 * @throws IOException
+	 */
+	public CodecBench(File directory) throws IOException {
+		super(directory, Locale.getString(CodecBench.class, "BENCH_NAME"), //$NON-NLS-1$
+				Locale.getString(CodecBench.class, "COLUMN_ROW_NUMBER"), //$NON-NLS-1$
+				Locale.getString(CodecBench.class, "COLUMN_BENCH_NAME"), //$NON-NLS-1$
+				Locale.getString(CodecBench.class, "COLUMN_OPERATION_DURATION"), //$NON-NLS-1$
+				Locale.getString(CodecBench.class, "COLUMN_OPERATION_STANDARD_DEVIATION"), //$NON-NLS-1$
+				Locale.getString(CodecBench.class, "COLUMN_ALLOCATION_RATE"), //$NON-NLS-1$
+				Locale.getString(CodecBench.class, "COLUMN_OUTPUT_SIZE"), //$NON-NLS-1$
+				Locale.getString(CodecBench.class, "COLUMN_OS_LOAD_AVERAGE")); //$NON-NLS-1$
+	}
+
+	@Override
+	public void initialize() throws Exception {
+		super.initialize();
+		this.spaceId = new SpaceID(
+				UUID.randomUUID(),
+				UUID.randomUUID(),
+				OpenEventSpaceSpecification.class);
+		this.scope = Scopes.allParticipants();
+		setNumberOfCalls(CALL_NUMBER);
+		setNumberOfRuns(RUN_NUMBER);
+		setWarmup(BenchConstants.DEFAULT_WARMUP_BATCH_NUMBER, WARMUP_BATCH_SIZE);
+		setCallRecording(true); // Report the percentiles of the operation durations
+		setSteadyStateThreshold(BenchConstants.DEFAULT_STEADY_STATE_THRESHOLD);
+		if (!AllocationCounter.isSupported()) {
+			Logger.getAnonymousLogger().warning(Locale.getString(CodecBench.class, "NO_ALLOCATION_COUNTER")); //$NON-NLS-1$
+		}
+	}
+
+	@Override
+	protected BenchAxis[] getSweepAxes(String benchFunctionName) {
+		BenchAxis shapes = BenchAxis.values(SHAPE_AXIS, (Object[])PayloadEvent.Shape.values());
+		BenchAxis sizes = BenchAxis.values(SIZE_AXIS, (Object[])ZMQConstants.PAYLOAD_SIZES);
+		BenchAxis serializers = BenchAxis.values(SERIALIZER_AXIS, SERIALIZERS.keySet().toArray());
+		if ("Encrypt".equals(benchFunctionName) || "Decrypt".equals(benchFunctionName)) { //$NON-NLS-1$ //$NON-NLS-2$
+			return new BenchAxis[] {
+				BenchAxis.values(ENCRYPTER_AXIS, ENCRYPTERS.keySet().toArray()),
+				serializers, shapes, sizes
+			};
+		}
+		return new BenchAxis[] {serializers, shapes, sizes};
+	}
+
+	@Override
+	protected Collection<CodecBenchRun> determineRuns(String benchFunctionName) {
+		return BenchSweep.cartesianProduct(benchFunctionName,
+				new BenchRunFactory<CodecBenchRun>() {
+					@Override
+					public CodecBenchRun newRun(String name) {
+						return new CodecBenchRun(name);
+					}
+				},
+				getSweepAxes(benchFunctionName));
+	}
+
+	/** Prepare the codecs and the envelopes of the given run.
+	 * 
+	 * @param run is the run.
+	 * @throws Exception
+	 */
+	private void prepare(CodecBenchRun run) throws Exception {
+		Object encrypterName = run.getParameter(ENCRYPTER_AXIS);
+		Class<? extends EventEncrypter> encrypterType = encrypterName==null
+				? PlainTextEncrypter.class : ENCRYPTERS.get(encrypterName);
+		Class<? extends EventSerializer> serializerType = SERIALIZERS.get(run.getParameter(SERIALIZER_AXIS));
+		// The serializers are run without encryption
+		Injector injector = Guice.createInjector(new BenchmarkingModule(
+				serializerType, PlainTextEncrypter.class, LoopbackNetwork.class));
+		this.serializer = injector.getInstance(EventSerializer.class);
+		injector = Guice.createInjector(new BenchmarkingModule(
+				serializerType, encrypterType, LoopbackNetwork.class));
+		this.encrypter = injector.getInstance(EventEncrypter.class);
+		this.dispatch = new EventDispatch(this.spaceId,
+				new PayloadEvent((PayloadEvent.Shape)run.getParameter(SHAPE_AXIS), run.getIntParameter(SIZE_AXIS, 0)),
+				this.scope);
+		this.plainEnvelope = this.serializer.serialize(this.dispatch);
+		this.encryptedEnvelope = copy(this.plainEnvelope);
+		this.encrypter.encrypt(this.encryptedEnvelope);
+		this.preparedRun = run;
+	}
+
+	private static EventEnvelope copy(EventEnvelope envelope) {
+		return new EventEnvelope(
+				envelope.getContextId(),
+				envelope.getSpaceId(),
+				envelope.getScope(),
+				envelope.getCustomHeaders(),
+				envelope.getBody());
+	}
+
+	private static long sizeOf(EventEnvelope envelope) {
+		return envelope.getContextId().length
+				+ envelope.getSpaceId().length
+				+ envelope.getScope().length
+				+ envelope.getCustomHeaders().length
+				+ envelope.getBody().length;
+	}
+
+	@Override
+	public void onStartDeclaredBenchFunction(String benchFunctionName) throws Exception {
+		this.preparedRun = null;
+		super.onStartDeclaredBenchFunction(benchFunctionName);
+	}
+
+	@Override
+	public void onStartBenchCalls(CodecBenchRun run) throws Exception {
+		super.onStartBenchCalls(run);
+		if (this.preparedRun!=run) {
+			prepare(run);
+			boolean encrypted = run.getParameter(ENCRYPTER_AXIS)!=null;
+			run.setOutputSize(sizeOf(encrypted ? this.encryptedEnvelope : this.plainEnvelope));
+		}
+	}
+
+	@Override
+	public void onEndDeclaredBenchFunction() throws Exception {
+		int i=0;
+		for(CodecBenchRun r : getTerminatedRuns()) {
+			writeRunRecord(r,
+				i,
+				r.getName(),
+				r.getCallAverageDuration(),
+				r.getCallStandardDeviation(),
+				r.getAllocationRate(),
+				r.getOutputSize(),
+				getSystemLoadAverage());
+			++i;
+		}
+		super.onEndDeclaredBenchFunction();
+	}
+
+	@Override
+	public void dispose() throws Exception {
+		this.preparedRun = null;
+		this.serializer = null;
+		this.encrypter = null;
+		this.dispatch = null;
+		this.plainEnvelope = this.encryptedEnvelope = null;
+		this.spaceId = null;
+		this.scope = null;
+		super.dispose();
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void benchSerialize() throws Exception {
+		this.serializer.serialize(this.dispatch);
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void benchDeserialize() throws Exception {
+		this.serializer.deserialize(copy(this.plainEnvelope));
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void benchEncrypt() throws Exception {
+		this.encrypter.encrypt(copy(this.plainEnvelope));
+	}
+
+	/**
+	 * @throws Exception
+	 */
+	public void benchDecrypt() throws Exception {
+		this.encrypter.decrypt(copy(this.encryptedEnvelope));
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,74 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.network.zeromq;
+
+import io.janusproject.benchmarking.BenchRun;
+
+/** Implementation of a run for the
+ * benchmaking of the codecs.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+class CodecBenchRun extends BenchRun {
+
+	private long outputSize = -1;
+
+	/**
+	 * @param name
+	 */
+	public CodecBenchRun(String name) {
+		super(name);
+	}
+
+	/** Replies the number of megabytes that are allocated per second
+	 * by the operations.
+	 * 
+	 * @return the allocation rate in MB/s, or {@code -1} if unknown.
+	 */
+	public double getAllocationRate() {
+		double bytes = getAllocatedBytesPerCall();
+		long duration = getCallAverageDuration();
+		if (bytes<0 || duration<=0) {
+			return -1;
+		}
+		return bytes * 1e9 / duration / (1024. * 1024.);
+	}
+
+	/** Replies the size of the output of an operation.
+	 * 
+	 * @return the number of bytes, or {@code -1} if unknown.
+	 */
+	public long getOutputSize() {
+		return this.outputSize;
+	}
+
+	/** Set the size of the output of an operation.
+	 * 
+	 * @param size is the number of bytes.
+	 */
+	public void setOutputSize(long size) {
+		this.outputSize = size;
+	}
+
+}
\ No newline at end of file
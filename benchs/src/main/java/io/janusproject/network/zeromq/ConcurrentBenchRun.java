@@ -0,0 +1,159 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.network.zeromq;
+
+import io.janusproject.benchmarking.BenchRun;
+import io.janusproject.benchmarking.LatencyHistogram;
+
+/** Implementation of a run for the
+ * benchmaking with several producers.
+ * <p>
+ * The number of producer threads is given by the parameter
+ * {@link #THREAD_PARAMETER} of the run.
+ * <p>
+ * Each producer thread records the durations of its operations
+ * in its own histogram. The durations of the calls to the benchmarking
+ * functions, which are the durations of the bursts of operations of all the
+ * threads, are used for computing the aggregate throughput.
+ * <p>
+ * The histograms and the counters are accumulated over all the calls of the run;
+ * the run should therefore not be repeated when the statistics of each repetition
+ * are expected.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+class ConcurrentBenchRun extends BenchRun {
+
+	/** Name of the parameter that contains the number of threads.
+	 */
+	public static final String THREAD_PARAMETER = "threads"; //$NON-NLS-1$
+
+	private LatencyHistogram[] threadHistograms = null;
+	private long operationNumber = 0;
+	private long burstDuration = 0;
+	private LatencyHistogram mergedHistogram = null;
+	private boolean merged = false;
+
+	/**
+	 * @param name
+	 */
+	public ConcurrentBenchRun(String name) {
+		super(name);
+	}
+
+	/** Replies the number of producer threads.
+	 * 
+	 * @return the number of threads.
+	 */
+	public int getThreadNumber() {
+		return Math.max(1, getIntParameter(THREAD_PARAMETER, 1));
+	}
+
+	private LatencyHistogram[] getThreadHistograms() {
+		if (this.threadHistograms==null) {
+			this.threadHistograms = new LatencyHistogram[getThreadNumber()];
+			for(int i=0; i<this.threadHistograms.length; ++i) {
+				this.threadHistograms[i] = new LatencyHistogram();
+			}
+		}
+		return this.threadHistograms;
+	}
+
+	/** Replies the histogram of the durations of the operations of a producer thread.
+	 * The histogram must be filled only by the thread.
+	 * 
+	 * @param thread is the index of the thread.
+	 * @return the histogram.
+	 */
+	public LatencyHistogram getThreadHistogram(int thread) {
+		return getThreadHistograms()[thread];
+	}
+
+	/** Add a burst of operations that were run by the producer threads.
+	 * 
+	 * @param operations is the number of operations of all the threads.
+	 * @param duration is the nano time between the start of the threads and
+	 * the end of the last thread.
+	 */
+	public void addBurst(long operations, long duration) {
+		this.operationNumber += operations;
+		this.burstDuration += duration;
+		// The histograms of the threads were changed by the burst
+		this.merged = false;
+	}
+
+	/** Replies the number of operations per second of all the threads.
+	 * 
+	 * @return the aggregate throughput, or {@code -1} if unknown.
+	 */
+	public double getAggregateThroughput() {
+		if (this.burstDuration<=0) {
+			return -1;
+		}
+		return this.operationNumber * 1e9 / this.burstDuration;
+	}
+
+	/** {@inheritDoc}
+	 * <p>
+	 * The durations of the calls to the benchmarking functions are ignored
+	 * because the durations of the operations are recorded by the threads.
+	 */
+	@Override
+	protected void recordCallDuration(long duration) {
+		//
+	}
+
+	/** {@inheritDoc}
+	 * <p>
+	 * The replied histogram is the merging of the histograms of the threads.
+	 * It is merged again only when a burst was added since the last call.
+	 */
+	@Override
+	public LatencyHistogram getCallHistogram() {
+		if (this.mergedHistogram==null) {
+			this.mergedHistogram = new LatencyHistogram();
+		}
+		if (!this.merged) {
+			this.mergedHistogram.reset();
+			for(LatencyHistogram threadHistogram : getThreadHistograms()) {
+				this.mergedHistogram.add(threadHistogram);
+			}
+			this.merged = true;
+		}
+		return this.mergedHistogram;
+	}
+
+	@Override
+	public long getCallAverageDuration() {
+		LatencyHistogram histogram = getCallHistogram();
+		return histogram.getTotalCount()==0 ? -1 : (long)histogram.getMean();
+	}
+
+	@Override
+	public double getCallStandardDeviation() {
+		LatencyHistogram histogram = getCallHistogram();
+		return histogram.getTotalCount()==0 ? 0 : histogram.getStandardDeviation();
+	}
+
+}
\ No newline at end of file
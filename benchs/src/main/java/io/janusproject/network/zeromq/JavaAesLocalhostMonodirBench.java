@@ -41,7 +41,7 @@ import com.google.inject.Module;
  * @mavenartifactid $ArtifactId$
  * @since 2.0.0
  */
-public class JavaAesLocalhostMonodirBench extends AbstractLocalhostBench {
+public class JavaAesLocalhostMonodirBench extends AbstractLocalhostMonodirBench {
 
 	/**
 	 * @param directory
@@ -0,0 +1,146 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.network.zeromq;
+
+import io.janusproject.JanusConfig;
+import io.janusproject.kernel.DistributedSpace;
+import io.janusproject.kernel.Network;
+import io.sarl.lang.core.Event;
+import io.sarl.lang.core.Scope;
+import io.sarl.lang.core.SpaceID;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import com.google.common.util.concurrent.AbstractService;
+import com.google.inject.Inject;
+import com.google.inject.name.Named;
+
+/** Network layer that is not using sockets: the events are serialized
+ * and encrypted as by {@link ZeroMQNetwork}, and the envelopes are given
+ * directly to the networks of the same virtual machine that are connected
+ * to the publisher.
+ * <p>
+ * This network is isolating the cost of the {@link EventSerializer} and
+ * the {@link EventEncrypter} from the cost of the transport. The events are
+ * delivered synchronously, in the thread of the publisher.
+ * <p>
+ * As for {@link ZeroMQNetwork}, {@link #connectPeer(String)} is subscribing
+ * to the events that are published by the network with the given URI.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+class LoopbackNetwork extends AbstractService implements Network {
+
+	/** Subscribers of the networks of the virtual machine, per URI of the publishers.
+	 */
+	private static final ConcurrentMap<String,Set<LoopbackNetwork>> SUBSCRIBERS = new ConcurrentHashMap<>();
+
+	private final Map<SpaceID,DistributedSpace> spaces = new ConcurrentHashMap<>();
+
+	@Inject
+	private EventSerializer serializer;
+
+	@Inject
+	@Named(JanusConfig.PUB_URI)
+	private String uri;
+
+	/**
+	 */
+	public LoopbackNetwork() {
+		//
+	}
+
+	private static Set<LoopbackNetwork> getSubscribers(String uri) {
+		Set<LoopbackNetwork> subscribers = SUBSCRIBERS.get(uri);
+		if (subscribers==null) {
+			subscribers = new CopyOnWriteArraySet<>();
+			Set<LoopbackNetwork> s = SUBSCRIBERS.putIfAbsent(uri, subscribers);
+			if (s!=null) {
+				subscribers = s;
+			}
+		}
+		return subscribers;
+	}
+
+	@Override
+	protected void doStart() {
+		notifyStarted();
+	}
+
+	@Override
+	protected void doStop() {
+		for(Set<LoopbackNetwork> subscribers : SUBSCRIBERS.values()) {
+			subscribers.remove(this);
+		}
+		this.spaces.clear();
+		notifyStopped();
+	}
+
+	@Override
+	public void publish(SpaceID id, Scope<?> scope, Event data) throws Exception {
+		// The event is encoded even if there is no subscriber, as by ZeroMQNetwork
+		EventEnvelope envelope = this.serializer.serialize(new EventDispatch(id, data, scope));
+		for(LoopbackNetwork subscriber : getSubscribers(this.uri)) {
+			subscriber.receive(envelope);
+		}
+	}
+
+	/** Decode an envelope and give the event to the registered space.
+	 * 
+	 * @param envelope is the envelope to decode.
+	 * @throws Exception
+	 */
+	private void receive(EventEnvelope envelope) throws Exception {
+		EventDispatch dispatch = this.serializer.deserialize(envelope);
+		DistributedSpace space = this.spaces.get(dispatch.getSpaceID());
+		if (space!=null) {
+			space.recv(dispatch.getScope(), dispatch.getEvent());
+		}
+	}
+
+	@Override
+	public void connectPeer(String peerUri) throws Exception {
+		getSubscribers(peerUri).add(this);
+	}
+
+	@Override
+	public void disconnectPeer(String peerUri) throws Exception {
+		getSubscribers(peerUri).remove(this);
+	}
+
+	@Override
+	public void register(DistributedSpace space) throws Exception {
+		this.spaces.put(space.getID(), space);
+	}
+
+	@Override
+	public void unregister(DistributedSpace space) throws Exception {
+		this.spaces.remove(space.getID());
+	}
+
+}
\ No newline at end of file
@@ -0,0 +1,197 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.network.zeromq;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/** Event with a generated payload that is
+ * going over the network during the benchmarking process.
+ * <p>
+ * The payload is generated with a fixed seed, so that the same
+ * shape and size give the same event in all the benchs.
+ * The size of a payload is the number of bytes of its primitive
+ * values; the size of the encoded event depends on the serializer.
+ * The event is timestamped as any {@link RemoteBenchEvent}, so that
+ * its transit time may be measured.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+class PayloadEvent extends RemoteBenchEvent implements Serializable {
+
+	private static final long serialVersionUID = 4610327738014520893L;
+
+	private static final long SEED = 1234567890L;
+
+	/** Number of values in the lists of the nested collections.
+	 */
+	private static final int NESTED_LIST_SIZE = 16;
+
+	/** Number of lists in the maps of the nested collections.
+	 */
+	private static final int NESTED_MAP_SIZE = 4;
+
+	private final Shape shape;
+
+	private final double[] numbers;
+
+	private final String text;
+
+	private final ArrayList<HashMap<String,ArrayList<Integer>>> collections;
+
+	private final byte[] bytes;
+
+	/**
+	 * @param shape is the shape of the payload.
+	 * @param size is the approximative size of the payload in bytes.
+	 */
+	public PayloadEvent(Shape shape, int size) {
+		super(false);
+		Random random = new Random(SEED);
+		this.shape = shape;
+		switch(shape) {
+		case FLAT_PRIMITIVES:
+			// Half of the payload in numbers, the other half in ASCII characters
+			this.numbers = new double[size / 16];
+			for(int i=0; i<this.numbers.length; ++i) {
+				this.numbers[i] = random.nextDouble();
+			}
+			char[] chars = new char[size / 2];
+			for(int i=0; i<chars.length; ++i) {
+				chars[i] = (char)('a' + random.nextInt(26));
+			}
+			this.text = new String(chars);
+			this.collections = null;
+			this.bytes = null;
+			break;
+		case NESTED_COLLECTIONS:
+			int nbLists = Math.max(0, size / (4 * NESTED_LIST_SIZE));
+			this.collections = new ArrayList<>();
+			for(int i=0; i<nbLists; i+=NESTED_MAP_SIZE) {
+				HashMap<String,ArrayList<Integer>> map = new HashMap<>();
+				for(int j=0; j<NESTED_MAP_SIZE && (i+j)<nbLists; ++j) {
+					ArrayList<Integer> list = new ArrayList<>(NESTED_LIST_SIZE);
+					for(int k=0; k<NESTED_LIST_SIZE; ++k) {
+						list.add(random.nextInt());
+					}
+					map.put("k"+j, list); //$NON-NLS-1$
+				}
+				this.collections.add(map);
+			}
+			this.numbers = null;
+			this.text = null;
+			this.bytes = null;
+			break;
+		case BYTE_ARRAY:
+			this.bytes = new byte[size];
+			random.nextBytes(this.bytes);
+			this.numbers = null;
+			this.text = null;
+			this.collections = null;
+			break;
+		default:
+			throw new IllegalArgumentException(shape.name());
+		}
+	}
+
+	/** Create an event with the payload of the given event.
+	 * The payload is shared, not copied.
+	 * 
+	 * @param payload is the event that is providing the payload.
+	 * @param warmup indicates if the event is sent during the warmup of a run.
+	 */
+	public PayloadEvent(PayloadEvent payload, boolean warmup) {
+		super(warmup);
+		this.shape = payload.shape;
+		this.numbers = payload.numbers;
+		this.text = payload.text;
+		this.collections = payload.collections;
+		this.bytes = payload.bytes;
+	}
+
+	/** Replies the shape of the payload.
+	 * 
+	 * @return the shape.
+	 */
+	public Shape getShape() {
+		return this.shape;
+	}
+
+	/** Replies the flat primitive values.
+	 * 
+	 * @return the values, or <code>null</code> if the shape is not {@link Shape#FLAT_PRIMITIVES}.
+	 */
+	public double[] getNumbers() {
+		return this.numbers;
+	}
+
+	/** Replies the flat text.
+	 * 
+	 * @return the text, or <code>null</code> if the shape is not {@link Shape#FLAT_PRIMITIVES}.
+	 */
+	public String getText() {
+		return this.text;
+	}
+
+	/** Replies the nested collections.
+	 * 
+	 * @return the collections, or <code>null</code> if the shape is not {@link Shape#NESTED_COLLECTIONS}.
+	 */
+	public List<? extends Map<String,? extends List<Integer>>> getCollections() {
+		return this.collections;
+	}
+
+	/** Replies the byte array.
+	 * 
+	 * @return the bytes, or <code>null</code> if the shape is not {@link Shape#BYTE_ARRAY}.
+	 */
+	public byte[] getBytes() {
+		return this.bytes;
+	}
+
+	/** Shapes of the payloads.
+	 * 
+	 * @author $Author: sgalland$
+	 * @version $FullVersion$
+	 * @mavengroupid $GroupId$
+	 * @mavenartifactid $ArtifactId$
+	 * @since 2.0.0
+	 */
+	public static enum Shape {
+		/** Arrays of primitive values and a string.
+		 */
+		FLAT_PRIMITIVES,
+		/** List of maps of lists of boxed integers.
+		 */
+		NESTED_COLLECTIONS,
+		/** Array of random bytes.
+		 */
+		BYTE_ARRAY;
+	}
+
+}
\ No newline at end of file
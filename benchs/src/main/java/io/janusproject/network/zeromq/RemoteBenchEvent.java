@@ -38,12 +38,69 @@ class RemoteBenchEvent extends Event implements Serializable {
 	
 	private final long sendingTime;
 	
+	private final long intendedSendingTime;
+	
+	private final boolean warmup;
+	
+	private final int burst;
+	
 	private transient long arrivalTime;
 
 	/**
 	 */
 	public RemoteBenchEvent() {
+		this(false);
+	}
+	
+	/**
+	 * @param warmup indicates if the event is sent during the warmup of a run.
+	 */
+	public RemoteBenchEvent(boolean warmup) {
+		this.sendingTime = System.nanoTime();
+		this.intendedSendingTime = this.sendingTime;
+		this.warmup = warmup;
+		this.burst = 0;
+	}
+	
+	/**
+	 * @param warmup indicates if the event is sent during the warmup of a run.
+	 * @param intendedSendingTime is the nano time at which the event should have
+	 * been sent by an open-loop generator.
+	 */
+	public RemoteBenchEvent(boolean warmup, long intendedSendingTime) {
+		this(warmup, intendedSendingTime, 0);
+	}
+	
+	/**
+	 * @param warmup indicates if the event is sent during the warmup of a run.
+	 * @param intendedSendingTime is the nano time at which the event should have
+	 * been sent by an open-loop generator.
+	 * @param burst is the identifier of the burst of messages in which the event is sent.
+	 */
+	public RemoteBenchEvent(boolean warmup, long intendedSendingTime, int burst) {
 		this.sendingTime = System.nanoTime();
+		this.intendedSendingTime = intendedSendingTime;
+		this.warmup = warmup;
+		this.burst = burst;
+	}
+	
+	/** Replies if this message was sent during the warmup of a run.
+	 * The transit time of such a message is not measured.
+	 * 
+	 * @return <code>true</code> if the message is a warmup message.
+	 */
+	public boolean isWarmup() {
+		return this.warmup;
+	}
+	
+	/** Replies the identifier of the burst of messages in which this
+	 * message was sent, or <code>0</code> if the message is not part of
+	 * a burst.
+	 * 
+	 * @return the identifier of the burst.
+	 */
+	public int getBurst() {
+		return this.burst;
 	}
 	
 	/** Replies the nano time at which this message was sent.
@@ -54,6 +111,16 @@ class RemoteBenchEvent extends Event implements Serializable {
 		return this.sendingTime;
 	}
 	
+	/** Replies the nano time at which this message should have been sent.
+	 * It is the sending time, except for an open-loop generator that
+	 * was late on its schedule.
+	 * 
+	 * @return the intended sending time.
+	 */
+	public long getIntendedSendingTime() {
+		return this.intendedSendingTime;
+	}
+	
 	/** Replies the nano time at which this message was arrived.
 	 * 
 	 * @return the sending time.
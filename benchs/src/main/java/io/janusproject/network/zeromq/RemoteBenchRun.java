@@ -20,13 +20,28 @@
 package io.janusproject.network.zeromq;
 
 import io.janusproject.benchmarking.BenchRun;
+import io.janusproject.benchmarking.LatencyHistogram;
+import io.janusproject.benchmarking.RobustStatistics;
+import io.janusproject.benchmarking.TimestampRecorder;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /** Implementation of a run for the
  * benchmaking with remote hosts.
+ * <p>
+ * The sending and arrival times of the events are stored in a
+ * {@link TimestampRecorder} that is allocated by {@link #prepareEvents(long)}
+ * before the measured calls, with the number of expected events. At most
+ * {@link ZMQConstants#TRANSIT_TIME_CAPACITY} transit times are kept; the
+ * oldest ones are overwritten. When the events of the calls are awaited, the
+ * transit times are added to the statistics of the run and the recorder is released.
+ * <p>
+ * The time scaling factor is applied to the transit time from the sending
+ * time to the arrival time. The delay of an open-loop generator between the
+ * intended sending time and the sending time is added without scaling.
  * 
  * @author $Author: sgalland$
  * @version $FullVersion$
@@ -36,24 +51,64 @@ import java.util.concurrent.atomic.AtomicInteger;
  */
 class RemoteBenchRun extends BenchRun {
 
-	private final List<RemoteBenchEvent> events = new ArrayList<>(100);
+	private volatile TimestampRecorder transitTimes;
 	private final AtomicInteger awaitingMessages = new AtomicInteger();
+	private final ReentrantLock lock = new ReentrantLock();
+	private final Condition allReceived = this.lock.newCondition();
+	private long lostEvents = 0;
+	private long burstMessages = 0;
+	private long burstDuration = 0;
+	private volatile boolean closed = false;
 	
-	private double averageDuration = Double.NaN;
-	private double standardDeviation = Double.NaN;
+	private long transitTimeNumber = 0;
+	private double transitTimeMean = 0;
+	private double transitTimeSquaredDeviations = 0;
 
 	/**
 	 * @param name
 	 */
 	public RemoteBenchRun(String name) {
+		this(name, .5f);
+	}
+	
+	/**
+	 * @param name
+	 * @param timeScalingFactor is the factor applied to the transit times, e.g.
+	 * <code>.5</code> when the transit times are the durations of round trips.
+	 */
+	public RemoteBenchRun(String name, float timeScalingFactor) {
 		super(name);
-		setTimeScalingFactor(.5f);
+		setTimeScalingFactor(timeScalingFactor);
 	}
 	
+	/** Prepare the reception of the events that are expected during
+	 * the next calls of the run, and allocate the recorder of their transit
+	 * times. This function must be invoked out of the measured calls; the
+	 * events that are received when no recorder is allocated are not measured.
+	 * 
+	 * @param expectedEvents is the number of expected events.
+	 */
+	public void prepareEvents(long expectedEvents) {
+		this.closed = false;
+		if (this.transitTimes==null) {
+			this.transitTimes = new TimestampRecorder(
+					(int)Math.max(1, Math.min(expectedEvents, ZMQConstants.TRANSIT_TIME_CAPACITY)));
+		}
+	}
+
 	/** Increment the number of events that are emitted during the run.
 	 */
 	public void incrementEventCounter() {
-		this.awaitingMessages.incrementAndGet();
+		incrementEventCounter(1);
+	}
+	
+	/** Increment the number of events that are awaited during the run,
+	 * e.g. when an emitted event is received by several peers.
+	 * 
+	 * @param count is the number of awaited events.
+	 */
+	public void incrementEventCounter(int count) {
+		this.awaitingMessages.addAndGet(count);
 	}
 	
 	/** Decrement the number of events that are emitted during the run.
@@ -61,8 +116,86 @@ class RemoteBenchRun extends BenchRun {
 	 * @param event
 	 */
 	public void decrementEventCounter(RemoteBenchEvent event) {
-		this.events.add(event);
-		this.awaitingMessages.decrementAndGet();
+		if (this.closed) {
+			// The event is arrived after the timeout; it is counted as lost
+			return;
+		}
+		TimestampRecorder recorder = this.transitTimes;
+		if (recorder!=null) {
+			recorder.record(event.getIntendedSendingTime(), event.getSendingTime(), event.getArrivalTime());
+		}
+		if (this.awaitingMessages.decrementAndGet()<=0) {
+			this.lock.lock();
+			try {
+				this.allReceived.signalAll();
+			}
+			finally {
+				this.lock.unlock();
+			}
+		}
+	}
+	
+	/** Block until all the events that are emitted during the run
+	 * are received, or the timeout is reached.
+	 * <p>
+	 * The events that are not received before the timeout are
+	 * assumed to be lost; they are counted by {@link #getLostEventNumber()}.
+	 * The events that are received after this waiting, and before the next
+	 * call to {@link #prepareEvents(long)}, are ignored. The transit times
+	 * of the received events are added to the statistics of the run.
+	 * 
+	 * @param timeout is the maximal duration of the waiting, in ms.
+	 * @return the number of events that are lost by this waiting.
+	 * @throws InterruptedException
+	 */
+	public long awaitEvents(long timeout) throws InterruptedException {
+		long remaining = TimeUnit.MILLISECONDS.toNanos(timeout);
+		this.lock.lock();
+		try {
+			while (this.awaitingMessages.get()>0 && remaining>0) {
+				remaining = this.allReceived.awaitNanos(remaining);
+			}
+		}
+		finally {
+			this.lock.unlock();
+		}
+		// The late events are not waited anymore
+		this.closed = true;
+		long lost = Math.max(0, this.awaitingMessages.getAndSet(0));
+		this.lostEvents += lost;
+		flushTransitTimes();
+		return lost;
+	}
+	
+	/** Replies the number of events that were not received
+	 * before the timeout of {@link #awaitEvents(long)}.
+	 * 
+	 * @return the number of lost events.
+	 */
+	public long getLostEventNumber() {
+		return this.lostEvents;
+	}
+	
+	/** Add a burst of messages for which all the replies were received.
+	 * 
+	 * @param messages is the number of measured messages.
+	 * @param duration is the nano time between the sending of the first
+	 * measured message and the reception of the last reply.
+	 */
+	public void addBurst(long messages, long duration) {
+		this.burstMessages += messages;
+		this.burstDuration += duration;
+	}
+
+	/** Replies the number of round trips per second in the bursts of messages.
+	 * 
+	 * @return the throughput, or {@code -1} if unknown.
+	 */
+	public double getMessageThroughput() {
+		if (this.burstDuration<=0) {
+			return -1;
+		}
+		return this.burstMessages * 1e9 / this.burstDuration;
 	}
 	
 	/** Replies if an event is still waited.
@@ -74,40 +207,66 @@ class RemoteBenchRun extends BenchRun {
 		return this.awaitingMessages.get()>0;
 	}
 	
-	private void compute() {
-		long total = 0;
-		double average = 0;
-		double stdDev = 0f;
-		if (!this.events.isEmpty()) {
-			for(RemoteBenchEvent event : this.events) {
-				total += (event.getArrivalTime() - event.getSendingTime()) * getTimeScalingFactor() + getTimeIncrement();
-			}
-			average = total / this.events.size();
-			total = 0;
-			for(RemoteBenchEvent event : this.events) {
-				float x = (event.getArrivalTime() - event.getSendingTime()) * getTimeScalingFactor() + getTimeIncrement();
-				total += (x-average)*(x-average);
+	private double getTransitTime(TimestampRecorder recorder, int index) {
+		return (double)recorder.getDuration(index) * getTimeScalingFactor()
+				+ recorder.getDelay(index) + getTimeIncrement();
+	}
+
+	/** Add the stored transit times to the statistics of the run,
+	 * and release the recorder.
+	 */
+	private synchronized void flushTransitTimes() {
+		TimestampRecorder recorder = this.transitTimes;
+		this.transitTimes = null;
+		if (recorder!=null) {
+			int size = recorder.size();
+			for(int i=0; i<size; ++i) {
+				double duration = getTransitTime(recorder, i);
+				super.recordCallDuration(Math.round(duration));
+				// Running mean and variance of Welford
+				++this.transitTimeNumber;
+				double delta = duration - this.transitTimeMean;
+				this.transitTimeMean += delta / this.transitTimeNumber;
+				this.transitTimeSquaredDeviations += delta * (duration - this.transitTimeMean);
 			}
-			stdDev = Math.sqrt(total / this.events.size());
 		}
-		this.averageDuration = average;
-		this.standardDeviation = stdDev;
 	}
 	
+	/** {@inheritDoc}
+	 * <p>
+	 * The durations of the calls to the benchmarking functions are ignored
+	 * because the durations of the runs are the transit times of the events.
+	 */
+	@Override
+	protected void recordCallDuration(long duration) {
+		//
+	}
+
+	@Override
+	public LatencyHistogram getCallHistogram() {
+		flushTransitTimes();
+		return super.getCallHistogram();
+	}
+
 	@Override
 	public long getCallAverageDuration() {
-		if (Double.isNaN(this.averageDuration)) {
-			compute();
-		}
-		return (long)this.averageDuration;
+		flushTransitTimes();
+		return (long)this.transitTimeMean;
 	}
 	
 	@Override
 	public double getCallStandardDeviation() {
-		if (Double.isNaN(this.standardDeviation)) {
-			compute();
+		flushTransitTimes();
+		if (this.transitTimeNumber==0) {
+			return 0;
 		}
-		return (long)this.standardDeviation;
+		return Math.sqrt(this.transitTimeSquaredDeviations / this.transitTimeNumber);
+	}
+
+	@Override
+	public RobustStatistics getRobustStatistics() {
+		flushTransitTimes();
+		return super.getRobustStatistics();
 	}
 		
 }
\ No newline at end of file
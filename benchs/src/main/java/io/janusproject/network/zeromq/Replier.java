@@ -55,7 +55,15 @@ import com.google.inject.Module;
  * <li><code>-gson</code>: Use the GSon serializer (default).</li>
  * <li><code>-aes</code>: Use the encrypter with AES algorithm (default).</li>
  * <li><code>-plain</code>: Do not use encrypter.</li>
+ * <li><code>-uri uri</code>: URI of the publishing socket of the replier
+ * (default: the primary address of the host, on the port {@link ZMQConstants#REPLIER_PORT}).</li>
+ * <li><code>-peer uri</code>: URI of a peer to connect to, e.g. the sender.</li>
+ * <li><code>-quiet</code>: Do not log the received messages.</li>
  * </ul> 
+ * <p>
+ * When the replier is started, the line {@value #READY} is written
+ * on the standard output. The replier may also be started in the
+ * virtual machine of the sender with {@link #start(Module, String, String, boolean)}.
  * 
  * @author $Author: sgalland$
  * @version $FullVersion$
@@ -65,17 +73,25 @@ import com.google.inject.Module;
  */
 public class Replier {
 
+	/** Line that is written on the standard output when the replier is started.
+	 */
+	public static final String READY = "REPLIER READY"; //$NON-NLS-1$
+
 	/** Network connection. */
 	private final Network network;
 	
+	private final boolean quiet;
+	
 	private DSpace dspace = null;
 	
 	/**
 	 * @param module
+	 * @param quiet indicates if the received messages are not logged.
 	 */
-	private Replier(Module module) {
+	private Replier(Module module, boolean quiet) {
 		Injector injector = Guice.createInjector(module);
 		this.network = injector.getInstance(Network.class);
+		this.quiet = quiet;
 	}
 	
 	private static Inet4Address getPrimaryAdapter() {
@@ -99,13 +115,56 @@ public class Replier {
 		return null;
 	}
 	
-	private void start() throws Exception {
+	private void start(String peer) throws Exception {
 		this.dspace = new DSpace();
 		this.network.startAsync();
-		this.network.awaitTerminated();
+		// The space cannot be registered before the network is running
+		this.network.awaitRunning();
+		if (peer!=null) {
+			this.network.connectPeer(peer);
+		}
 		this.network.register(this.dspace);
 	}
 
+	/** Start a replier in this virtual machine.
+	 * <p>
+	 * The publishing URI of the replier is given to the network with the system
+	 * property {@link JanusConfig#PUB_URI}; the previous value of this property
+	 * is restored.
+	 * 
+	 * @param module is the injection module of the network of the replier.
+	 * @param uri is the URI of the publishing socket of the replier.
+	 * @param peer is the URI of a peer to connect to, or <code>null</code>.
+	 * @param quiet indicates if the received messages are not logged.
+	 * @return the replier.
+	 * @throws Exception
+	 */
+	public static Replier start(Module module, String uri, String peer, boolean quiet) throws Exception {
+		String previousUri = System.getProperty(JanusConfig.PUB_URI);
+		Replier replier;
+		try {
+			System.setProperty(JanusConfig.PUB_URI, uri);
+			replier = new Replier(module, quiet);
+		}
+		finally {
+			if (previousUri==null) {
+				System.clearProperty(JanusConfig.PUB_URI);
+			}
+			else {
+				System.setProperty(JanusConfig.PUB_URI, previousUri);
+			}
+		}
+		replier.start(peer);
+		return replier;
+	}
+
+	/** Stop the replier.
+	 */
+	public void stop() {
+		this.network.stopAsync();
+		this.network.awaitTerminated();
+	}
+
 	/**
 	 * @param args
 	 * @throws Exception
@@ -119,6 +178,9 @@ public class Replier {
 		options.addOption("g", "gson", false, "Serializer is Gson"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
 		options.addOption("a", "aes", false, "Encrypter is AES"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
 		options.addOption("p", "plain", false, "No encrypter"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("u", "uri", true, "URI of the publishing socket of the replier"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("c", "peer", true, "URI of a peer to connect to"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
+		options.addOption("q", "quiet", false, "Do not log the received messages"); //$NON-NLS-1$//$NON-NLS-2$//$NON-NLS-3$
 
 		Class<? extends EventSerializer> serialType = GsonEventSerializer.class;
 		Class<? extends EventEncrypter> encrypType = AESEventEncrypter.class;
@@ -146,13 +208,18 @@ public class Replier {
 			encrypType = PlainTextEncrypter.class;
 		}
 
-		String pubUri = "tcp://"+getPrimaryAdapter().getHostAddress()+":"+ZMQConstants.REPLIER_PORT; //$NON-NLS-1$ //$NON-NLS-2$
+		String pubUri = cmd.getOptionValue('u');
+		if (pubUri==null) {
+			pubUri = "tcp://"+getPrimaryAdapter().getHostAddress()+":"+ZMQConstants.REPLIER_PORT; //$NON-NLS-1$ //$NON-NLS-2$
+		}
 		System.err.println("PUB SOCKET:"+pubUri); //$NON-NLS-1$
-		System.setProperty(JanusConfig.PUB_URI, pubUri);
 
-		Replier r = new Replier(new BenchmarkingModule(serialType, encrypType));
+		Replier r = start(new BenchmarkingModule(serialType, encrypType),
+				pubUri, cmd.getOptionValue('c'), cmd.hasOption('q'));
+		System.out.println(READY);
+		System.out.flush();
 		
-		r.start();
+		r.network.awaitTerminated();
 	}
 	
 	/**
@@ -190,7 +257,9 @@ public class Replier {
 			try {
 				if (scope==null || ((Scope<Address>)scope).matches(this.address)) {
 					Address src = envelope.getSource();
-					System.out.println(Locale.getString("LOG_MESSAGE", src, envelope));  //$NON-NLS-1$
+					if (!Replier.this.quiet) {
+						System.out.println(Locale.getString("LOG_MESSAGE", src, envelope));  //$NON-NLS-1$
+					}
 					envelope.setSource(this.address);
 					
 					Replier.this.network.publish(this.spaceId,
@@ -0,0 +1,83 @@
+/*
+ * $Id$
+ * 
+ * Janus platform is an open-source multiagent platform.
+ * More details on http://www.janusproject.io
+ * 
+ * Copyright (C) 2012-2014 Sebastian RODRIGUEZ, Nicolas GAUD, Stéphane GALLAND.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.janusproject.network.zeromq;
+
+import java.util.concurrent.TimeUnit;
+
+/** Counter of the warmup messages that are sent over the network
+ * and that are not yet received.
+ * <p>
+ * The benchs wait for the warmup traffic at the end of the warmup,
+ * so that the first measured message is not queued behind the
+ * warmup messages. The counters are never reset: a late warmup
+ * message is counted when it is received.
+ * 
+ * @author $Author: sgalland$
+ * @version $FullVersion$
+ * @mavengroupid $GroupId$
+ * @mavenartifactid $ArtifactId$
+ * @since 2.0.0
+ */
+class WarmupTraffic {
+
+	private long sentMessages = 0;
+	private long receivedMessages = 0;
+
+	/**
+	 */
+	public WarmupTraffic() {
+		//
+	}
+
+	/** Count warmup messages that are sent.
+	 * 
+	 * @param count is the number of expected receptions of the messages.
+	 */
+	public synchronized void sent(int count) {
+		this.sentMessages += count;
+	}
+
+	/** Count a warmup message that is received.
+	 */
+	public synchronized void received() {
+		++this.receivedMessages;
+		if (this.receivedMessages>=this.sentMessages) {
+			notifyAll();
+		}
+	}
+
+	/** Wait until all the warmup messages are received.
+	 * 
+	 * @param timeout is the greatest time to wait, in milliseconds.
+	 * @return the number of warmup messages that were not received
+	 * before the timeout.
+	 * @throws InterruptedException
+	 */
+	public synchronized long await(long timeout) throws InterruptedException {
+		long end = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		long remaining = end - System.nanoTime();
+		while (this.receivedMessages<this.sentMessages && remaining>0) {
+			TimeUnit.NANOSECONDS.timedWait(this, remaining);
+			remaining = end - System.nanoTime();
+		}
+		return Math.max(0, this.sentMessages - this.receivedMessages);
+	}
+
+}
\ No newline at end of file
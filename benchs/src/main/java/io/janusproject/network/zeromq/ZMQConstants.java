@@ -19,7 +19,7 @@
  */
 package io.janusproject.network.zeromq;
 
-
+import io.janusproject.benchmarking.BenchConstants;
 
 /** Abstract implementation of a benchmarking tool for the ZeroMQ layer.
  * 
@@ -31,14 +31,31 @@ package io.janusproject.network.zeromq;
  */
 interface ZMQConstants {
 
+	/** Offset that is added to the ports on localhost, for
+	 * running several benchs at the same time.
+	 * @see BenchConstants#PORT_OFFSET_PROPERTY
+	 */
+	public final int LOCALHOST_PORT_OFFSET = Integer.getInteger(BenchConstants.PORT_OFFSET_PROPERTY, 0).intValue();
+
 	/** URI of the source peer on localhost.
 	 */
-	public final String LOCALHOST_SOURCE_PEER = "tcp://localhost:29118"; //$NON-NLS-1$
+	public final String LOCALHOST_SOURCE_PEER = "tcp://localhost:" + (29118 + LOCALHOST_PORT_OFFSET); //$NON-NLS-1$
 	
 	/** URI of the target peer on localhost.
 	 */
-	public final String LOCALHOST_TARGET_PEER = "tcp://localhost:19118"; //$NON-NLS-1$;
+	public final String LOCALHOST_TARGET_PEER = "tcp://localhost:" + (19118 + LOCALHOST_PORT_OFFSET); //$NON-NLS-1$;
 	
+	/** Port of the first target peer on localhost when a source is
+	 * publishing to several targets; the other targets are on the next ports.
+	 */
+	public final int LOCALHOST_FANOUT_BASE_PORT = 19200 + LOCALHOST_PORT_OFFSET;
+
+	/** Numbers of target peers when a source is publishing to several targets.
+	 */
+	public final Integer[] FANOUT_PEER_NUMBERS = new Integer[] {
+		1, 2, 4, 8, 16
+	};
+
 	/** Address of the sender.
 	 */
 	public final String SENDER_ADDRESS = "04376c83-6fb8-4b7c-9196-94c32a58bdeb"; //$NON-NLS-1$
@@ -51,8 +68,89 @@ interface ZMQConstants {
 	 */
 	public final int REPLIER_PORT = 24316;
 
+	/** URI of the replier when it is started on localhost by the bench.
+	 */
+	public final String LOCALHOST_REPLIER_PEER = "tcp://localhost:" + (REPLIER_PORT + LOCALHOST_PORT_OFFSET); //$NON-NLS-1$
+
+	/** Value of the property <code>REMOTE_HOST</code> for starting the
+	 * replier in the virtual machine of the bench.
+	 */
+	public final String REPLIER_IN_PROCESS = "inprocess"; //$NON-NLS-1$
+
+	/** Value of the property <code>REMOTE_HOST</code> for starting the
+	 * replier in a forked virtual machine on localhost.
+	 */
+	public final String REPLIER_FORK = "fork"; //$NON-NLS-1$
+
+	/** Maximal duration of the start of a forked replier (in ms).
+	 */
+	public final long REPLIER_STARTUP_TIMEOUT = 60*1000;
+
 	/** Timeout used to assumed that messages were lost over the network.
 	 */
 	public final long NETWORK_TIMEOUT = 5*60*1000;
+
+	/** Delay between two probes that are published until the subscriptions
+	 * of new peers are established (in ms).
+	 */
+	public final long SUBSCRIPTION_PROBE_INTERVAL = 10;
+
+	/** Rates of the open-loop load generator (in messages per second).
+	 */
+	public final Integer[] OPEN_LOOP_RATES = new Integer[] {
+		10000, 50000, 100000
+	};
+
+	/** Duration of a burst of the open-loop load generator (in ms).
+	 */
+	public final long OPEN_LOOP_DURATION = 10000;
+
+	/** Duration at the start of a burst of the open-loop load generator
+	 * during which the messages are not measured (in ms).
+	 */
+	public final long OPEN_LOOP_WARMUP_DURATION = 1000;
+
+	/** Number of bursts of the open-loop load generator per rate.
+	 */
+	public final int OPEN_LOOP_RUN_NUMBER = 3;
+
+	/** Numbers of messages in flight of the pipelined generator.
+	 */
+	public final Integer[] WINDOW_SIZES = new Integer[] {
+		1, 8, 64, 512
+	};
+
+	/** Number of measured messages in a burst of the pipelined generator.
+	 */
+	public final int WINDOW_MESSAGE_NUMBER = 20000;
+
+	/** Number of messages at the start of a burst of the pipelined generator
+	 * that are not measured.
+	 */
+	public final int WINDOW_WARMUP_MESSAGE_NUMBER = 2000;
+
+	/** Number of bursts of the pipelined generator per window size.
+	 */
+	public final int WINDOW_RUN_NUMBER = 5;
+
+	/** Maximal number of transit times that are stored per run.
+	 */
+	public final int TRANSIT_TIME_CAPACITY = 1 << 22;
+
+	/** Number of messages that are published by each thread
+	 * in a call of the multi-producer benchs.
+	 */
+	public final int CONTENTION_PUBLISH_NUMBER = 10000;
+
+	/** Number of runs of the multi-producer benchs per number of threads.
+	 * Each run is a distinct run range, with its own statistics.
+	 */
+	public final int CONTENTION_RUN_NUMBER = 2;
+
+	/** Sizes of the payloads of the generated events (in bytes).
+	 */
+	public final Integer[] PAYLOAD_SIZES = new Integer[] {
+		0, 1024, 4*1024, 16*1024, 64*1024
+	};
 	
 }
\ No newline at end of file